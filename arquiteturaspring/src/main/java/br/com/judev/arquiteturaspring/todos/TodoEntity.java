@@ -3,7 +3,8 @@ package br.com.judev.arquiteturaspring.todos;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "tb_todo")
+@Table(name = "tb_todo",
+        uniqueConstraints = @UniqueConstraint(name = "uk_todo_descricao", columnNames = "descricao"))
 public class TodoEntity {
 
     @Id
@@ -1,5 +1,7 @@
 package br.com.judev.arquiteturaspring.todos;
 
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -19,7 +21,24 @@ public class TodoService {
 
     public TodoEntity salvar(TodoEntity novoTodo){
         validator.validar(novoTodo);
-        return repository.save(novoTodo);
+        try {
+            return repository.saveAndFlush(novoTodo);
+        } catch (DataIntegrityViolationException e){
+            if(violouDescricaoUnica(e)){
+                throw new IllegalArgumentException("Já existe um TODO com esta descrição!");
+            }
+            throw e;
+        }
+    }
+
+    private boolean violouDescricaoUnica(DataIntegrityViolationException e){
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            // o H2 devolve o nome do índice em maiúsculas e com sufixo (UK_TODO_DESCRICAO_INDEX_...)
+            if(causa instanceof ConstraintViolationException violacao && violacao.getConstraintName() != null){
+                return violacao.getConstraintName().toLowerCase().contains("uk_todo_descricao");
+            }
+        }
+        return false;
     }
 
     public void atualizarStatus(TodoEntity todo){
@@ -1,18 +1,23 @@
 package br.com.judev.arquiteturaspring.todos;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
 public class TodoValidator {
 
     private TodoRepository repository;
+    // false: a descrição duplicada é barrada pela uk_todo_descricao na gravação (ver TodoService)
+    private boolean consultaPrevia;
 
-    public TodoValidator(TodoRepository repository) {
+    public TodoValidator(TodoRepository repository,
+                         @Value("${app.todos.consulta-previa:false}") boolean consultaPrevia) {
         this.repository = repository;
+        this.consultaPrevia = consultaPrevia;
     }
 
     public void validar(TodoEntity todo){
-        if(existeTodoComDescricao(todo.getDescricao())){
+        if(consultaPrevia && existeTodoComDescricao(todo.getDescricao())){
             throw new IllegalArgumentException("Já existe um TODO com esta descrição!");
         }
     }
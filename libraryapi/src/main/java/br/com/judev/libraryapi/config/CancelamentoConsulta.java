@@ -0,0 +1,92 @@
+package br.com.judev.libraryapi.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Statements em execução de uma requisição, para cancelar no banco quando o cliente desconecta
+ * (ver CancelamentoConsultaFilter): cancelar() pode ser chamado de outra thread e manda
+ * Statement.cancel() para cada statement em andamento; os execute* seguintes falham na hora.
+ *
+ * A thread que executa a requisição fica associada com executar(); o ContagemStatementsDataSource
+ * passa cada execute* por rastrear. Fora de uma requisição cancelável, rastrear só executa.
+ */
+@Slf4j
+public final class CancelamentoConsulta {
+
+    // mesmo SQLState do query timeout: o Spring/Hibernate traduzem para QueryTimeoutException
+    static final String SQLSTATE_CANCELADA = "57014";
+
+    private static final ThreadLocal<CancelamentoConsulta> ATUAL = new ThreadLocal<>();
+
+    private final Set<Statement> emAndamento = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelada;
+
+    public static <T> T executar(CancelamentoConsulta cancelamento, Callable<T> acao) throws Exception {
+        CancelamentoConsulta anterior = ATUAL.get();
+        ATUAL.set(cancelamento);
+        try {
+            return acao.call();
+        } finally {
+            if (anterior == null) {
+                ATUAL.remove();
+            } else {
+                ATUAL.set(anterior);
+            }
+        }
+    }
+
+    // a requisição da thread atual foi cancelada (o erro que chega ao controller vem do cancelamento)
+    public static boolean canceladaNaThreadAtual() {
+        CancelamentoConsulta atual = ATUAL.get();
+        return atual != null && atual.cancelada;
+    }
+
+    static Object rastrear(Statement statement, Execucao execucao) throws Throwable {
+        CancelamentoConsulta atual = ATUAL.get();
+        if (atual == null) {
+            return execucao.executar();
+        }
+        atual.recusarSeCancelada();
+        atual.emAndamento.add(statement);
+        try {
+            // cancelar() pode ter rodado entre a verificação e o add
+            atual.recusarSeCancelada();
+            return execucao.executar();
+        } finally {
+            atual.emAndamento.remove(statement);
+        }
+    }
+
+    public boolean isCancelada() {
+        return cancelada;
+    }
+
+    public void cancelar() {
+        cancelada = true;
+        for (Statement statement : emAndamento) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                log.warn("Falha ao cancelar statement: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void recusarSeCancelada() throws SQLException {
+        if (cancelada) {
+            throw new SQLException("Consulta cancelada: o cliente desconectou", SQLSTATE_CANCELADA);
+        }
+    }
+
+    // o execute* do statement, com as exceções do método invocado por reflexão
+    @FunctionalInterface
+    interface Execucao {
+        Object executar() throws Throwable;
+    }
+}
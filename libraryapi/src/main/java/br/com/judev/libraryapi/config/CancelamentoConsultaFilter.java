@@ -0,0 +1,217 @@
+package br.com.judev.libraryapi.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.server.RequestPath;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Cancela no banco as consultas da requisição quando o cliente desconecta.
+ *
+ * Numa requisição síncrona o container não avisa a aplicação da desconexão: a consulta vai até o fim
+ * e o erro só aparece na escrita da resposta. Por isso o resto da cadeia (segurança, DispatcherServlet)
+ * roda em AsyncContext.start, e o AsyncListener desta requisição recebe:
+ * - onError: o Tomcat percebeu a conexão fechada pelo cliente;
+ * - onTimeout: prazo do endpoint (PrazoInterceptor) mais FOLGA_TIMEOUT; a consulta em si termina antes,
+ *   pelo query timeout, então isto pega o que ficou preso fora dela. Rota sem prazo: sem timeout.
+ * Nos dois casos CancelamentoConsulta.cancelar() manda Statement.cancel() para o que está executando,
+ * os statements seguintes falham na hora e libraryapi.consulta.cancelada{uri, method, motivo} é
+ * incrementado. O listener espera a thread da requisição terminar (até ESPERA_CONCLUSAO) para o container
+ * não encerrar a resposta enquanto ela ainda escreve.
+ *
+ * Só para os handlers síncronos do RequestMappingHandlerMapping: os que devolvem DeferredResult,
+ * StreamingResponseBody etc. (exportação, feed de mudanças) já iniciam o próprio processamento assíncrono,
+ * e o resto (estáticos, actuator, /error) segue direto. Registrado em PrazoConfiguration.
+ */
+@Slf4j
+public class CancelamentoConsultaFilter extends OncePerRequestFilter {
+
+    static final Duration FOLGA_TIMEOUT = Duration.ofSeconds(2);
+    static final Duration ESPERA_CONCLUSAO = Duration.ofSeconds(2);
+
+    private static final List<Class<?>> RETORNOS_ASSINCRONOS = List.of(Callable.class, DeferredResult.class,
+            WebAsyncTask.class, CompletionStage.class, StreamingResponseBody.class, ResponseBodyEmitter.class);
+
+    private final ObjectProvider<RequestMappingHandlerMapping> handlerMapping;
+    private final PrazoInterceptor prazoInterceptor;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<Method, Boolean> assincronos = new ConcurrentHashMap<>();
+
+    // o RequestMappingHandlerMapping depende dos WebMvcConfigurer (PrazoConfiguration): só no primeiro uso
+    public CancelamentoConsultaFilter(ObjectProvider<RequestMappingHandlerMapping> handlerMapping,
+                                      PrazoInterceptor prazoInterceptor, MeterRegistry meterRegistry) {
+        this.handlerMapping = handlerMapping;
+        this.prazoInterceptor = prazoInterceptor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        HandlerMethod handler = request.isAsyncSupported() ? handler(request) : null;
+        if (handler == null || assincronos.computeIfAbsent(handler.getMethod(), metodo -> assincrono(handler))) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        CancelamentoConsulta cancelamento = new CancelamentoConsulta();
+        CountDownLatch concluida = new CountDownLatch(1);
+        AsyncContext async = request.startAsync(request, response);
+        async.setTimeout(prazoInterceptor.orcamento(handler)
+                .map(orcamento -> orcamento.plus(FOLGA_TIMEOUT).toMillis())
+                .orElse(0L));
+        async.addListener(new Listener(request, cancelamento, concluida));
+        async.start(() -> {
+            try {
+                CancelamentoConsulta.executar(cancelamento, () -> {
+                    chain.doFilter(request, response);
+                    return null;
+                });
+            } catch (Exception e) {
+                falha(request, response, cancelamento, e);
+            } finally {
+                // complete antes do countDown: chamado durante o onError/onTimeout, o container só encerra depois dele
+                try {
+                    async.complete();
+                } catch (IllegalStateException e) {
+                    log.debug("Requisição {} já encerrada pelo container", request.getRequestURI());
+                }
+                concluida.countDown();
+            }
+        });
+    }
+
+    // o que o container faria com a exceção fora do AsyncContext: 500 pela página de erro
+    private static void falha(HttpServletRequest request, HttpServletResponse response,
+                              CancelamentoConsulta cancelamento, Exception e) {
+        if (cancelamento.isCancelada()) {
+            log.debug("{} {} interrompida pelo cancelamento: {}", request.getMethod(), request.getRequestURI(), e.getMessage());
+        } else {
+            log.error("Erro em {} {}", request.getMethod(), request.getRequestURI(), e);
+        }
+        if (!response.isCommitted()) {
+            request.setAttribute(RequestDispatcher.ERROR_EXCEPTION, e);
+            try {
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            } catch (IOException | IllegalStateException ex) {
+                log.debug("Falha ao responder o erro de {}: {}", request.getRequestURI(), ex.getMessage());
+            }
+        }
+    }
+
+    private HandlerMethod handler(HttpServletRequest request) {
+        RequestMappingHandlerMapping mapping = handlerMapping.getIfAvailable();
+        if (mapping == null) {
+            return null;
+        }
+        RequestPath anterior = ServletRequestPathUtils.hasParsedRequestPath(request)
+                ? ServletRequestPathUtils.getParsedRequestPath(request) : null;
+        ServletRequestPathUtils.parseAndCache(request);
+        try {
+            HandlerExecutionChain encontrado = mapping.getHandler(request);
+            return encontrado != null && encontrado.getHandler() instanceof HandlerMethod metodo ? metodo : null;
+        } catch (Exception e) {
+            // 405, 415...: o DispatcherServlet chega ao mesmo erro e responde
+            return null;
+        } finally {
+            if (anterior == null) {
+                ServletRequestPathUtils.clearParsedRequestPath(request);
+            } else {
+                ServletRequestPathUtils.setParsedRequestPath(anterior, request);
+            }
+        }
+    }
+
+    // o tipo de retorno, ou o corpo de um ResponseEntity/HttpEntity, é processado de forma assíncrona pelo Spring
+    static boolean assincrono(HandlerMethod handler) {
+        ResolvableType retorno = ResolvableType.forMethodParameter(handler.getReturnType());
+        if (HttpEntity.class.isAssignableFrom(retorno.toClass())) {
+            retorno = retorno.as(HttpEntity.class).getGeneric(0);
+        }
+        Class<?> tipo = retorno.toClass();
+        return RETORNOS_ASSINCRONOS.stream().anyMatch(assincrono -> assincrono.isAssignableFrom(tipo));
+    }
+
+    private final class Listener implements AsyncListener {
+
+        private final HttpServletRequest request;
+        private final CancelamentoConsulta cancelamento;
+        private final CountDownLatch concluida;
+
+        private Listener(HttpServletRequest request, CancelamentoConsulta cancelamento, CountDownLatch concluida) {
+            this.request = request;
+            this.cancelamento = cancelamento;
+            this.concluida = concluida;
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            cancelar("desconexao");
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            cancelar("timeout");
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private void cancelar(String motivo) {
+            if (concluida.getCount() == 0) {
+                return;
+            }
+            cancelamento.cancelar();
+            Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            log.info("Consultas de {} {} canceladas ({})", request.getMethod(), request.getRequestURI(), motivo);
+            Counter.builder("libraryapi.consulta.cancelada")
+                    .description("Requisições com as consultas canceladas no banco antes do fim")
+                    .tag("uri", padrao != null ? padrao.toString() : "UNKNOWN")
+                    .tag("method", request.getMethod())
+                    .tag("motivo", motivo)
+                    .register(meterRegistry)
+                    .increment();
+            try {
+                concluida.await(ESPERA_CONCLUSAO.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
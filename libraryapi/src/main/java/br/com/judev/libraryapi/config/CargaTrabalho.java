@@ -0,0 +1,21 @@
+package br.com.judev.libraryapi.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+ * Escolhe o pool de conexões usado durante a chamada (no método ou na classe inteira, inclusive em
+ * interfaces de repositório). Sem a anotação, CATALOGO.
+ *
+ * Vale para a conexão que a chamada abrir: dentro de uma transação que já pegou conexão
+ * de outro pool, continua naquela conexão.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CargaTrabalho {
+    TipoCarga value();
+}
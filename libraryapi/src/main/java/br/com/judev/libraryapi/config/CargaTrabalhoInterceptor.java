@@ -0,0 +1,46 @@
+package br.com.judev.libraryapi.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+
+// aplica o @CargaTrabalho durante a chamada; registrado como advisor em DatabaseConfiguration
+public class CargaTrabalhoInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        CargaTrabalho carga = encontrar(invocation);
+        if (carga == null) {
+            return invocation.proceed();
+        }
+
+        TipoCarga anterior = RoteamentoDataSource.usarCarga(carga.value());
+        try {
+            return invocation.proceed();
+        } finally {
+            RoteamentoDataSource.usarCarga(anterior);
+        }
+    }
+
+    // método antes da classe; procura também nas interfaces (repositórios do Spring Data)
+    private static CargaTrabalho encontrar(MethodInvocation invocation) {
+        Method metodo = invocation.getMethod();
+        Class<?> alvo = invocation.getThis() != null ? AopUtils.getTargetClass(invocation.getThis()) : metodo.getDeclaringClass();
+        Method especifico = AopUtils.getMostSpecificMethod(metodo, alvo);
+
+        CargaTrabalho carga = AnnotatedElementUtils.findMergedAnnotation(especifico, CargaTrabalho.class);
+        if (carga == null) {
+            carga = AnnotatedElementUtils.findMergedAnnotation(metodo, CargaTrabalho.class);
+        }
+        if (carga == null) {
+            carga = AnnotatedElementUtils.findMergedAnnotation(alvo, CargaTrabalho.class);
+        }
+        if (carga == null) {
+            carga = AnnotatedElementUtils.findMergedAnnotation(metodo.getDeclaringClass(), CargaTrabalho.class);
+        }
+        return carga;
+    }
+}
@@ -0,0 +1,83 @@
+package br.com.judev.libraryapi.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/*
+ * Leitura das próprias escritas com réplica: logo depois de um POST/PUT/DELETE, um GET do mesmo
+ * usuário poderia ir para a réplica e ainda não ver a alteração.
+ *
+ * - por sessão: durante a janela configurada após uma escrita do usuário autenticado, as leituras
+ *   dele vão para o primário (memória desta instância; com várias instâncias, usar o header);
+ * - por token: o cliente envia "X-Consistencia: primario" nas leituras que precisam ver o que ele acabou
+ *   de gravar, em qualquer instância.
+ *
+ * Registrado depois dos filtros do Spring Security (ordem padrão), para já ter o usuário autenticado.
+ */
+public class ConsistenciaLeituraFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Consistencia";
+    private static final String PRIMARIO = "primario";
+    private static final Set<String> LEITURAS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final Cache<String, Boolean> escritasRecentes;
+
+    public ConsistenciaLeituraFilter(Duration janela) {
+        this.escritasRecentes = janela.isZero() ? null : Caffeine.newBuilder()
+                .expireAfterWrite(janela)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String usuario = usuario();
+        boolean escrita = !LEITURAS.contains(request.getMethod());
+        if (escrita) {
+            registrarEscrita(usuario);
+        }
+
+        boolean primario = PRIMARIO.equalsIgnoreCase(request.getHeader(HEADER))
+                || (usuario != null && escritasRecentes != null && escritasRecentes.getIfPresent(usuario) != null);
+        if (primario) {
+            RoteamentoDataSource.lerDoPrimario();
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RoteamentoDataSource.liberarLeitura();
+            // a janela conta a partir do fim da escrita (commit), não do início da requisição
+            if (escrita) {
+                registrarEscrita(usuario);
+            }
+        }
+    }
+
+    private void registrarEscrita(String usuario) {
+        if (usuario != null && escritasRecentes != null) {
+            escritasRecentes.put(usuario, Boolean.TRUE);
+        }
+    }
+
+    private static String usuario() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
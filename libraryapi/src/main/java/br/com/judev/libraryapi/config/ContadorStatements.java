@@ -0,0 +1,95 @@
+package br.com.judev.libraryapi.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Conta os statements SQL executados pela thread atual (ContagemStatementsDataSource chama registrar).
+ *
+ * - total(): contador da thread inteira, só cresce; a diferença antes/depois de uma chamada dá o custo
+ *   dela (usado por método de repositório, ver RepositorioStatementsInterceptor);
+ * - iniciar(): abre uma contagem com o texto de cada statement (requisição HTTP, bloco de teste);
+ *   contagens podem ser aninhadas, cada statement entra em todas as abertas.
+ *
+ * Um executeBatch conta como um statement (uma ida ao banco).
+ */
+public final class ContadorStatements {
+
+    private static final ThreadLocal<long[]> TOTAL = ThreadLocal.withInitial(() -> new long[1]);
+    private static final ThreadLocal<Contagem> ATUAL = new ThreadLocal<>();
+
+    private ContadorStatements() {
+    }
+
+    static void registrar(String sql) {
+        TOTAL.get()[0]++;
+        for (Contagem contagem = ATUAL.get(); contagem != null; contagem = contagem.anterior) {
+            contagem.registrar(sql);
+        }
+    }
+
+    public static long total() {
+        return TOTAL.get()[0];
+    }
+
+    // fechar na mesma thread, de preferência com try-with-resources
+    public static Contagem iniciar() {
+        Contagem contagem = new Contagem(ATUAL.get());
+        ATUAL.set(contagem);
+        return contagem;
+    }
+
+    public static final class Contagem implements AutoCloseable {
+
+        private final Contagem anterior;
+        private final Map<String, Integer> porSql = new LinkedHashMap<>();
+        private int total;
+        private boolean fechada;
+
+        private Contagem(Contagem anterior) {
+            this.anterior = anterior;
+        }
+
+        private void registrar(String sql) {
+            total++;
+            porSql.merge(sql == null ? "?" : sql, 1, Integer::sum);
+        }
+
+        public int total() {
+            return total;
+        }
+
+        // texto do statement -> execuções, na ordem da primeira execução
+        public Map<String, Integer> porSql() {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(porSql));
+        }
+
+        // statements idênticos executados pelo menos "minimo" vezes: provável N+1 (lazy load em loop)
+        public List<Map.Entry<String, Integer>> repetidos(int minimo) {
+            List<Map.Entry<String, Integer>> repetidos = new ArrayList<>();
+            porSql.forEach((sql, vezes) -> {
+                if (vezes >= minimo) {
+                    repetidos.add(Map.entry(sql, vezes));
+                }
+            });
+            repetidos.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+            return repetidos;
+        }
+
+        @Override
+        public void close() {
+            if (fechada) {
+                return;
+            }
+            fechada = true;
+            if (anterior == null) {
+                ATUAL.remove();
+            } else {
+                ATUAL.set(anterior);
+            }
+        }
+    }
+}
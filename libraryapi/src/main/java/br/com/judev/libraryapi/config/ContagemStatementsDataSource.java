@@ -0,0 +1,138 @@
+package br.com.judev.libraryapi.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/*
+ * Envolve as conexões e os statements em proxies que, a cada execute*:
+ * - aplicam o prazo da requisição como query timeout (PrazoRequisicao);
+ * - avisam o ContadorStatements, com o texto do SQL (o do prepareStatement, ou o passado ao execute);
+ * - ficam registrados no CancelamentoConsulta da requisição enquanto executam.
+ *
+ * Fica por fora do LazyConnectionDataSourceProxy (ver DatabaseConfiguration), então conta tudo o que
+ * passa pelo DataSource da aplicação: JPA, JdbcTemplate, Flyway. Não conta o que é feito direto na
+ * conexão do driver depois de um unwrap (COPY da importação) nem a conexão própria do LISTEN.
+ */
+public class ContagemStatementsDataSource extends DelegatingDataSource {
+
+    public ContagemStatementsDataSource(DataSource alvo) {
+        super(alvo);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return envolver(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return envolver(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private static Connection envolver(Connection conexao) {
+        return (Connection) Proxy.newProxyInstance(ContagemStatementsDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConexaoHandler(conexao));
+    }
+
+    // equals/hashCode por identidade do proxy; unwrap/isWrapperFor do próprio proxy antes do alvo
+    private static Object metodoDoProxy(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "unwrap" -> ((Class<?>) args[0]).isInstance(proxy) ? proxy : null;
+            case "isWrapperFor" -> ((Class<?>) args[0]).isInstance(proxy) ? Boolean.TRUE : null;
+            default -> null;
+        };
+    }
+
+    private static Object chamar(Object alvo, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(alvo, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static final class ConexaoHandler implements InvocationHandler {
+
+        private final Connection alvo;
+
+        private ConexaoHandler(Connection alvo) {
+            this.alvo = alvo;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object doProxy = metodoDoProxy(proxy, method, args);
+            if (doProxy != null) {
+                return doProxy;
+            }
+
+            Object resultado = chamar(alvo, method, args);
+            if (resultado instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                // prepareStatement / prepareCall: o SQL vem na criação; createStatement: vem em cada execute
+                String sql = args != null && args.length > 0 && args[0] instanceof String texto ? texto : null;
+                return Proxy.newProxyInstance(ContagemStatementsDataSource.class.getClassLoader(),
+                        new Class<?>[]{method.getReturnType()}, new StatementHandler(statement, (Connection) proxy, sql));
+            }
+            return resultado;
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+
+        private final Statement alvo;
+        private final Connection conexao;
+        private final String sql;
+        private String sqlBatch;
+
+        private StatementHandler(Statement alvo, Connection conexao, String sql) {
+            this.alvo = alvo;
+            this.conexao = conexao;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object doProxy = metodoDoProxy(proxy, method, args);
+            if (doProxy != null) {
+                return doProxy;
+            }
+
+            String nome = method.getName();
+            if (nome.equals("getConnection")) {
+                return conexao;
+            }
+            if (nome.equals("addBatch") && args != null && args.length == 1 && args[0] instanceof String texto) {
+                sqlBatch = sqlBatch == null ? texto : sqlBatch;
+            } else if (nome.startsWith("execute")) {
+                PrazoRequisicao.aplicar(alvo);
+                // conta antes de executar: um statement que falha também foi uma ida ao banco
+                ContadorStatements.registrar(textoExecutado(nome, args));
+                if (nome.endsWith("Batch")) {
+                    sqlBatch = null;
+                }
+                return CancelamentoConsulta.rastrear(alvo, () -> chamar(alvo, method, args));
+            }
+            return chamar(alvo, method, args);
+        }
+
+        private String textoExecutado(String nome, Object[] args) {
+            if (args != null && args.length > 0 && args[0] instanceof String texto) {
+                return texto;
+            }
+            if (nome.endsWith("Batch") && sql == null) {
+                return sqlBatch;
+            }
+            return sql;
+        }
+    }
+}
@@ -2,12 +2,36 @@ package br.com.judev.libraryapi.config;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.data.repository.Repository;
 import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 
 import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 public class DatabaseConfiguration {
@@ -34,23 +58,186 @@ public class DatabaseConfiguration {
     /**
      * configuracao Hikary
      * https://github.com/brettwooldridge/HikariCP
+     * Pool do primário para a carga CATALOGO: requisições da API (escritas e o que não vai para a réplica).
      * @return
      */
     @Bean
-    public DataSource hikariDataSource(){
+    public HikariDataSource hikariDataSource(
+            @Value("${libraryapi.pools.catalogo.tamanho:10}") int tamanho,
+            @Value("${libraryapi.pools.catalogo.timeout:100s}") Duration timeout){
+        return criarPool("library-db-pool", url, username, password, tamanho, timeout);
+    }
+
+    // login e client OAuth2 (@CargaTrabalho(AUTENTICACAO)): não disputam conexão com o catálogo nem com lotes
+    @Bean
+    public HikariDataSource autenticacaoDataSource(
+            @Value("${libraryapi.pools.autenticacao.tamanho:4}") int tamanho,
+            @Value("${libraryapi.pools.autenticacao.timeout:2s}") Duration timeout){
+        return criarPool("library-db-auth-pool", url, username, password, tamanho, timeout);
+    }
+
+    // importação, exportação e updates/deletes em massa (@CargaTrabalho(LOTE))
+    @Bean
+    public HikariDataSource loteDataSource(
+            @Value("${libraryapi.pools.lote.tamanho:3}") int tamanho,
+            @Value("${libraryapi.pools.lote.timeout:60s}") Duration timeout){
+        return criarPool("library-db-batch-pool", url, username, password, tamanho, timeout);
+    }
+
+    // jobs agendados (@CargaTrabalho(AGENDADA)): o relay do outbox não fica parado atrás de uma exportação de 30 min
+    @Bean
+    public HikariDataSource agendadaDataSource(
+            @Value("${libraryapi.pools.agendada.tamanho:2}") int tamanho,
+            @Value("${libraryapi.pools.agendada.timeout:30s}") Duration timeout){
+        return criarPool("library-db-jobs-pool", url, username, password, tamanho, timeout);
+    }
+
+    /*
+     * Pool da réplica, só quando libraryapi.replica.url está configurada.
+     * Conexões read-only: um write que escape para cá falha em vez de divergir do primário.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "libraryapi.replica.url")
+    public HikariDataSource replicaDataSource(
+            @Value("${libraryapi.replica.url}") String replicaUrl,
+            @Value("${libraryapi.replica.username:${spring.datasource.username}}") String replicaUsername,
+            @Value("${libraryapi.replica.password:${spring.datasource.password}}") String replicaPassword,
+            @Value("${libraryapi.replica.tamanho-pool:10}") int tamanhoPool){
+        HikariDataSource replica = criarPool("library-db-replica-pool",
+                replicaUrl, replicaUsername, replicaPassword, tamanhoPool, Duration.ofSeconds(100));
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    /*
+     * DataSource usado pela aplicação (JPA, JdbcTemplate, Flyway): RoteamentoDataSource atrás de um
+     * LazyConnectionDataSourceProxy, que escolhe o pool da carga atual ou a réplica (ver RoteamentoDataSource).
+     * Por fora de tudo, o ContagemStatementsDataSource: prazo da requisição como query timeout e
+     * contagem de statements por requisição/repositório.
+     */
+    @Bean
+    @Primary
+    public DataSource roteamentoDataSource(@Qualifier("hikariDataSource") DataSource catalogo,
+                                           @Qualifier("autenticacaoDataSource") DataSource autenticacao,
+                                           @Qualifier("loteDataSource") DataSource lote,
+                                           @Qualifier("agendadaDataSource") DataSource agendada,
+                                           @Qualifier("replicaDataSource") ObjectProvider<DataSource> replica){
+        Map<TipoCarga, DataSource> pools = new EnumMap<>(TipoCarga.class);
+        pools.put(TipoCarga.CATALOGO, catalogo);
+        pools.put(TipoCarga.AUTENTICACAO, autenticacao);
+        pools.put(TipoCarga.LOTE, lote);
+        pools.put(TipoCarga.AGENDADA, agendada);
+
+        LazyConnectionDataSourceProxy proxy =
+                new LazyConnectionDataSourceProxy(new RoteamentoDataSource(pools, replica.getIfAvailable()));
+        // sem isso o proxy abre uma conexão no startup só para descobrir os padrões
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return new ContagemStatementsDataSource(proxy);
+    }
+
+    /*
+     * Histogramas de ocupação e ajuste de tamanho dos pools do primário (ver GerenciadorPools).
+     * Limites de cada pool: libraryapi.pools.<carga>.tamanho-minimo / tamanho-maximo (padrão: o próprio tamanho).
+     */
+    @Bean
+    public GerenciadorPools gerenciadorPools(@Qualifier("hikariDataSource") HikariDataSource catalogo,
+                                             @Qualifier("autenticacaoDataSource") HikariDataSource autenticacao,
+                                             @Qualifier("loteDataSource") HikariDataSource lote,
+                                             @Qualifier("agendadaDataSource") HikariDataSource agendada,
+                                             MeterRegistry meterRegistry,
+                                             Environment environment,
+                                             @Value("${libraryapi.pools.ajuste.habilitado:false}") boolean ajusteHabilitado,
+                                             @Value("${libraryapi.pools.ajuste.espera-alvo:20ms}") Duration esperaAlvo,
+                                             @Value("${libraryapi.pools.ajuste.saturacao-banco:0.8}") double saturacaoBanco){
+        List<GerenciadorPools.PoolGerenciado> pools = List.of(
+                limites(environment, "catalogo", catalogo),
+                limites(environment, "autenticacao", autenticacao),
+                limites(environment, "lote", lote),
+                limites(environment, "agendada", agendada));
+        return new GerenciadorPools(pools, catalogo, meterRegistry, ajusteHabilitado, esperaAlvo, saturacaoBanco);
+    }
+
+    // static: advisors são criados antes dos demais beans, para entrarem no auto-proxy
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor cargaTrabalhoAdvisor(){
+        Pointcut pointcut = new ComposablePointcut(new AnnotationMatchingPointcut(CargaTrabalho.class, true))
+                .union(new AnnotationMatchingPointcut(null, CargaTrabalho.class, true));
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, new CargaTrabalhoInterceptor());
+        // por fora do @Transactional: a carga já está definida quando a transação pegar a conexão
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    // statements por método de repositório do Spring Data (ver RepositorioStatementsInterceptor)
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @ConditionalOnProperty(name = "libraryapi.sql.contagem.habilitada", matchIfMissing = true)
+    public static Advisor repositorioStatementsAdvisor(ObjectProvider<MeterRegistry> meterRegistry){
+        StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return method.getDeclaringClass() != Object.class;
+            }
+        };
+        pointcut.setClassFilter(Repository.class::isAssignableFrom);
+        return new DefaultPointcutAdvisor(pointcut, new RepositorioStatementsInterceptor(meterRegistry));
+    }
+
+    /*
+     * Orçamento de statements por requisição e detecção de N+1 (ver OrcamentoSqlFilter).
+     * Antes da segurança, para contar também o que a autenticação consulta, e depois do
+     * CancelamentoConsultaFilter (PrazoConfiguration): a contagem é da thread que executa a requisição.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "libraryapi.sql.contagem.habilitada", matchIfMissing = true)
+    public FilterRegistrationBean<OrcamentoSqlFilter> orcamentoSqlFilter(
+            MeterRegistry meterRegistry,
+            @Value("${libraryapi.sql.orcamento-requisicao:20}") int orcamento,
+            @Value("${libraryapi.sql.repeticoes-n-mais-1:5}") int repeticoesNMais1){
+        FilterRegistrationBean<OrcamentoSqlFilter> registro =
+                new FilterRegistrationBean<>(new OrcamentoSqlFilter(meterRegistry, orcamento, repeticoesNMais1));
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 3);
+        return registro;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "libraryapi.replica.url")
+    public MonitorReplica monitorReplica(@Qualifier("replicaDataSource") DataSource replica,
+                                         @Qualifier("roteamentoDataSource") DataSource roteamento,
+                                         @Value("${libraryapi.replica.atraso-maximo:5s}") Duration atrasoMaximo) throws Exception {
+        return new MonitorReplica(replica, roteamento.unwrap(RoteamentoDataSource.class), atrasoMaximo);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "libraryapi.replica.url")
+    public ConsistenciaLeituraFilter consistenciaLeituraFilter(
+            @Value("${libraryapi.replica.leitura-propria-escrita:5s}") Duration janela){
+        return new ConsistenciaLeituraFilter(janela);
+    }
+
+    private static GerenciadorPools.PoolGerenciado limites(Environment environment, String carga, HikariDataSource pool){
+        int tamanho = pool.getMaximumPoolSize();
+        int minimo = environment.getProperty("libraryapi.pools." + carga + ".tamanho-minimo", Integer.class, tamanho);
+        int maximo = environment.getProperty("libraryapi.pools." + carga + ".tamanho-maximo", Integer.class, tamanho);
+        return new GerenciadorPools.PoolGerenciado(pool, minimo, maximo);
+    }
 
+    private HikariDataSource criarPool(String nome, String jdbcUrl, String usuario, String senha,
+                                       int tamanho, Duration timeout){
         HikariConfig config = new HikariConfig();
-        config.setUsername(username);
-        config.setPassword(password);
+        config.setUsername(usuario);
+        config.setPassword(senha);
         config.setDriverClassName(driver);
-        config.setJdbcUrl(url);
+        config.setJdbcUrl(jdbcUrl);
 
-        config.setMaximumPoolSize(10); // maximo de conexões liberadas
+        config.setMaximumPoolSize(tamanho); // maximo de conexões liberadas
         config.setMinimumIdle(1); // tamanho inicial do pool
-        config.setPoolName("library-db-pool");
+        config.setPoolName(nome);
         config.setMaxLifetime(600000); // 600 mil ms (10 minutos)
-        config.setConnectionTimeout(100000); // timeout para conseguir uma conexão
-        config.setConnectionTestQuery("select 1"); // query de teste
+        config.setConnectionTimeout(timeout.toMillis()); // timeout para conseguir uma conexão
+        // sem connectionTestQuery: o Hikari valida com Connection.isValid() do JDBC4
 
         return new HikariDataSource(config);
     }
@@ -73,5 +260,5 @@ public class DatabaseConfiguration {
  * - minimumIdle: mínimo de conexões ociosas prontas para uso
  * - connectionTimeout: tempo máximo esperando uma conexão livre
  * - maxLifetime: tempo máximo de vida de uma conexão antes de ser reciclada
- * - connectionTestQuery: query simples para validar se a conexão está ok
- */
\ No newline at end of file
+ * - validação da conexão: Connection.isValid() do JDBC4 (sem connectionTestQuery)
+ */
@@ -0,0 +1,205 @@
+package br.com.judev.libraryapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Instrumentação e ajuste de tamanho dos pools do primário (um por TipoCarga).
+ *
+ * - o Hikari já publica hikaricp.connections.acquire (espera por conexão) e .usage (tempo com a conexão)
+ *   como timers por pool; os histogramas deles são ligados em management.metrics.distribution;
+ * - threads esperando e conexões ativas são gauges (só o valor do momento): aqui são amostrados a cada
+ *   segundo em libraryapi.pool.pendentes / libraryapi.pool.ativas, com histograma, para ver a distribuição;
+ * - ajuste (opcional): a cada intervalo compara a espera média por conexão com a espera-alvo e olha a
+ *   saturação do banco (pg_stat_activity). Cresce o pool quando há fila e o banco tem folga; encolhe quando
+ *   sobra conexão ociosa ou quando o banco está saturado (mais conexões só aumentariam a disputa lá).
+ *   Sempre dentro de [tamanho-minimo, tamanho-maximo] de cada pool.
+ */
+@Slf4j
+public class GerenciadorPools {
+
+    private static final String SATURACAO = """
+            select count(*) as conexoes,
+                   count(*) filter (where state = 'active') as ativas,
+                   count(*) filter (where state = 'active' and wait_event_type in ('Lock', 'LWLock')) as bloqueadas,
+                   current_setting('max_connections')::int as max_conexoes
+            from pg_stat_activity
+            where backend_type = 'client backend'
+            """;
+
+    private final List<Pool> pools;
+    private final JdbcTemplate primario;
+    private final boolean ajusteHabilitado;
+    private final Duration esperaAlvo;
+    private final double saturacaoMaxima;
+
+    public GerenciadorPools(List<PoolGerenciado> pools,
+                            DataSource primario,
+                            MeterRegistry meterRegistry,
+                            boolean ajusteHabilitado,
+                            Duration esperaAlvo,
+                            double saturacaoMaxima) {
+        this.pools = pools.stream().map(pool -> new Pool(pool, meterRegistry)).toList();
+        this.primario = new JdbcTemplate(primario);
+        this.ajusteHabilitado = ajusteHabilitado;
+        this.esperaAlvo = esperaAlvo;
+        this.saturacaoMaxima = saturacaoMaxima;
+    }
+
+    public record PoolGerenciado(HikariDataSource dataSource, int minimo, int maximo) {
+    }
+
+    @Scheduled(fixedDelayString = "${libraryapi.pools.amostragem-intervalo:1s}")
+    public void amostrar() {
+        for (Pool pool : pools) {
+            HikariPoolMXBean mx = pool.dataSource().getHikariPoolMXBean();
+            if (mx == null) {
+                // pool ainda não iniciado (nenhuma conexão pedida)
+                continue;
+            }
+            int pendentes = mx.getThreadsAwaitingConnection();
+            int ativas = mx.getActiveConnections();
+            pool.pendentes.record(pendentes);
+            pool.ativas.record(ativas);
+            pool.picoPendentes = Math.max(pool.picoPendentes, pendentes);
+            pool.picoAtivas = Math.max(pool.picoAtivas, ativas);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${libraryapi.pools.ajuste.intervalo:30s}")
+    public void ajustar() {
+        if (!ajusteHabilitado) {
+            return;
+        }
+
+        Boolean bancoSaturado = bancoSaturado();
+        for (Pool pool : pools) {
+            HikariDataSource dataSource = pool.dataSource();
+            Janela janela = pool.fecharJanela();
+            // sem a medida de saturação, não mexe em nenhum pool nesta janela
+            if (bancoSaturado == null || dataSource.getHikariPoolMXBean() == null) {
+                continue;
+            }
+
+            int atual = dataSource.getHikariConfigMXBean().getMaximumPoolSize();
+            int novo = novoTamanho(atual, pool.config.minimo(), pool.config.maximo(), janela, bancoSaturado, esperaAlvo);
+            if (novo == atual) {
+                continue;
+            }
+
+            log.info("Pool {}: {} -> {} conexões (espera média {} ms, timeouts {}, pico ativas {}, pico pendentes {}, banco saturado {})",
+                    dataSource.getPoolName(), atual, novo, janela.esperaMedia().toMillis(), janela.timeouts(),
+                    janela.picoAtivas(), janela.picoPendentes(), bancoSaturado);
+            if (dataSource.getMinimumIdle() > novo) {
+                dataSource.getHikariConfigMXBean().setMinimumIdle(novo);
+            }
+            dataSource.getHikariConfigMXBean().setMaximumPoolSize(novo);
+        }
+    }
+
+    /*
+     * - banco saturado: encolhe um (a fila fica na aplicação, não em locks/CPU do banco);
+     * - fila (espera acima do alvo ou timeout, com threads esperando): cresce 25% (no mínimo 1);
+     * - folga (pico de ativas abaixo da metade e quase sem espera): encolhe um;
+     * - senão, mantém.
+     */
+    static int novoTamanho(int atual, int minimo, int maximo, Janela janela, boolean bancoSaturado, Duration esperaAlvo) {
+        int novo = atual;
+        if (bancoSaturado) {
+            novo = atual - 1;
+        } else if ((janela.esperaMedia().compareTo(esperaAlvo) > 0 || janela.timeouts() > 0) && janela.picoPendentes() > 0) {
+            novo = atual + Math.max(1, atual / 4);
+        } else if (janela.picoAtivas() < atual / 2 && janela.esperaMedia().compareTo(esperaAlvo.dividedBy(4)) < 0) {
+            novo = atual - 1;
+        }
+        return Math.clamp(novo, minimo, maximo);
+    }
+
+    private Boolean bancoSaturado() {
+        try {
+            return primario.queryForObject(SATURACAO, (rs, rowNum) -> {
+                int conexoes = rs.getInt("conexoes");
+                int ativas = rs.getInt("ativas");
+                int bloqueadas = rs.getInt("bloqueadas");
+                int maxConexoes = rs.getInt("max_conexoes");
+                return conexoes >= saturacaoMaxima * maxConexoes || (ativas > 0 && bloqueadas * 2 > ativas);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível medir a saturação do banco", e);
+            return null;
+        }
+    }
+
+    // o que foi observado em um pool desde o último ajuste
+    record Janela(Duration esperaMedia, long timeouts, int picoAtivas, int picoPendentes) {
+    }
+
+    private static final class Pool {
+
+        private final PoolGerenciado config;
+        private final MeterRegistry meterRegistry;
+        private final DistributionSummary pendentes;
+        private final DistributionSummary ativas;
+
+        private volatile int picoAtivas;
+        private volatile int picoPendentes;
+        private long aquisicoesAnteriores;
+        private double esperaTotalAnteriorMs;
+        private double timeoutsAnteriores;
+
+        private Pool(PoolGerenciado config, MeterRegistry meterRegistry) {
+            this.config = config;
+            this.meterRegistry = meterRegistry;
+            String nome = config.dataSource().getPoolName();
+            this.pendentes = DistributionSummary.builder("libraryapi.pool.pendentes")
+                    .description("Threads esperando conexão (amostra por segundo)")
+                    .tag("pool", nome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.ativas = DistributionSummary.builder("libraryapi.pool.ativas")
+                    .description("Conexões em uso (amostra por segundo)")
+                    .tag("pool", nome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        private HikariDataSource dataSource() {
+            return config.dataSource();
+        }
+
+        // diferença dos contadores do Hikari desde a janela anterior
+        private Janela fecharJanela() {
+            String nome = dataSource().getPoolName();
+            Timer aquisicao = meterRegistry.find("hikaricp.connections.acquire").tag("pool", nome).timer();
+            Counter timeout = meterRegistry.find("hikaricp.connections.timeout").tag("pool", nome).counter();
+
+            long aquisicoes = aquisicao == null ? 0 : aquisicao.count();
+            double esperaTotalMs = aquisicao == null ? 0 : aquisicao.totalTime(TimeUnit.MILLISECONDS);
+            double timeouts = timeout == null ? 0 : timeout.count();
+
+            long novasAquisicoes = aquisicoes - aquisicoesAnteriores;
+            Duration esperaMedia = novasAquisicoes <= 0 ? Duration.ZERO
+                    : Duration.ofMillis(Math.round((esperaTotalMs - esperaTotalAnteriorMs) / novasAquisicoes));
+            Janela janela = new Janela(esperaMedia, Math.round(timeouts - timeoutsAnteriores), picoAtivas, picoPendentes);
+
+            aquisicoesAnteriores = aquisicoes;
+            esperaTotalAnteriorMs = esperaTotalMs;
+            timeoutsAnteriores = timeouts;
+            picoAtivas = 0;
+            picoPendentes = 0;
+            return janela;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package br.com.judev.libraryapi.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/*
+ * Mede o atraso da réplica e tira ela do roteamento enquanto ele passar do limite
+ * (ou enquanto a consulta falhar): as leituras read-only voltam para o primário.
+ *
+ * Atraso = tempo desde a última transação aplicada, mas só quando ainda há WAL recebido e não aplicado;
+ * réplica em dia com um primário ocioso tem atraso 0. Banco fora de recovery (ex.: dois bancos locais
+ * nos testes) também conta como 0.
+ */
+@Slf4j
+public class MonitorReplica {
+
+    private static final String ATRASO = """
+            select case
+                       when not pg_is_in_recovery() then 0
+                       when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+                       else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0)
+                   end
+            """;
+
+    private final JdbcTemplate replica;
+    private final RoteamentoDataSource roteamento;
+    private final Duration atrasoMaximo;
+
+    public MonitorReplica(DataSource replica, RoteamentoDataSource roteamento, Duration atrasoMaximo) {
+        this.replica = new JdbcTemplate(replica);
+        this.replica.setQueryTimeout(5);
+        this.roteamento = roteamento;
+        this.atrasoMaximo = atrasoMaximo;
+    }
+
+    @Scheduled(fixedDelayString = "${libraryapi.replica.verificacao-intervalo:1s}")
+    public void verificar() {
+        try {
+            Double segundos = replica.queryForObject(ATRASO, Double.class);
+            registrar(Duration.ofMillis(Math.round((segundos == null ? 0 : segundos) * 1000)));
+        } catch (RuntimeException e) {
+            if (roteamento.isReplicaDisponivel()) {
+                log.warn("Réplica indisponível; leituras read-only vão para o primário", e);
+            }
+            roteamento.setReplicaDisponivel(false);
+        }
+    }
+
+    void registrar(Duration atraso) {
+        boolean disponivel = atraso.compareTo(atrasoMaximo) <= 0;
+        if (disponivel != roteamento.isReplicaDisponivel()) {
+            log.warn("Réplica {} (atraso de {} ms, limite {} ms)",
+                    disponivel ? "de volta ao roteamento" : "fora do roteamento",
+                    atraso.toMillis(), atrasoMaximo.toMillis());
+        }
+        roteamento.setReplicaDisponivel(disponivel);
+    }
+}
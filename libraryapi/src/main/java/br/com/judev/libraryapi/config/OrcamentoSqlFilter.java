@@ -0,0 +1,111 @@
+package br.com.judev.libraryapi.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Statements SQL por requisição HTTP (contados pelo ContagemStatementsDataSource):
+ *
+ * - libraryapi.sql.statements{uri, method}: distribuição por endpoint;
+ * - acima do orçamento (libraryapi.sql.orcamento-requisicao): WARN com os statements mais repetidos
+ *   e libraryapi.sql.orcamento.excedido{uri, method};
+ * - o mesmo SQL executado libraryapi.sql.repeticoes-n-mais-1 vezes ou mais na requisição é marcado
+ *   como provável N+1 (lazy load dentro de um loop): WARN com o SQL e libraryapi.sql.n-mais-1{uri, method}.
+ *
+ * Conta só a thread da requisição: o que termina em outra thread (DeferredResult, @Async) fica de fora.
+ * A diferença entre a requisição e a soma dos repositórios (libraryapi.sql.statements.repositorio)
+ * é o que foi carregado fora deles, em geral lazy loads na montagem dos DTOs.
+ */
+@Slf4j
+public class OrcamentoSqlFilter extends OncePerRequestFilter {
+
+    private static final int TAMANHO_MAXIMO_SQL_LOG = 300;
+
+    private final MeterRegistry meterRegistry;
+    private final int orcamento;
+    private final int repeticoesNMais1;
+
+    public OrcamentoSqlFilter(MeterRegistry meterRegistry, int orcamento, int repeticoesNMais1) {
+        this.meterRegistry = meterRegistry;
+        this.orcamento = orcamento;
+        this.repeticoesNMais1 = repeticoesNMais1;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContadorStatements.Contagem contagem = ContadorStatements.iniciar();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            contagem.close();
+            registrar(request, contagem);
+        }
+    }
+
+    private void registrar(HttpServletRequest request, ContadorStatements.Contagem contagem) {
+        String uri = uri(request);
+        String metodo = request.getMethod();
+        DistributionSummary.builder("libraryapi.sql.statements")
+                .description("Statements SQL executados por requisição")
+                .tag("uri", uri)
+                .tag("method", metodo)
+                .register(meterRegistry)
+                .record(contagem.total());
+
+        List<Map.Entry<String, Integer>> repetidos = contagem.repetidos(repeticoesNMais1);
+        for (Map.Entry<String, Integer> repetido : repetidos) {
+            log.warn("Provável N+1 em {} {}: {} execuções de {}", metodo, uri, repetido.getValue(),
+                    resumir(repetido.getKey()));
+        }
+        if (!repetidos.isEmpty()) {
+            contador("libraryapi.sql.n-mais-1", uri, metodo).increment();
+        }
+
+        if (contagem.total() > orcamento) {
+            log.warn("{} {} executou {} statements SQL (orçamento {}); mais executados: {}", metodo, uri,
+                    contagem.total(), orcamento, maisExecutados(contagem));
+            contador("libraryapi.sql.orcamento.excedido", uri, metodo).increment();
+        }
+    }
+
+    private Counter contador(String nome, String uri, String metodo) {
+        return Counter.builder(nome)
+                .tag("uri", uri)
+                .tag("method", metodo)
+                .register(meterRegistry);
+    }
+
+    // padrão do mapeamento (/api/v1/livros/{id}), não a URL concreta: mantém poucas séries na métrica
+    private static String uri(HttpServletRequest request) {
+        Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return padrao != null ? padrao.toString() : "UNKNOWN";
+    }
+
+    private static String maisExecutados(ContadorStatements.Contagem contagem) {
+        StringBuilder texto = new StringBuilder();
+        contagem.repetidos(1).stream().limit(3).forEach(entrada -> texto.append("\n  ")
+                .append(entrada.getValue()).append("x ").append(resumir(entrada.getKey())));
+        return texto.toString();
+    }
+
+    private static String resumir(String sql) {
+        if (sql == null) {
+            return "?";
+        }
+        String linha = sql.replaceAll("\\s+", " ").trim();
+        return linha.length() <= TAMANHO_MAXIMO_SQL_LOG ? linha : linha.substring(0, TAMANHO_MAXIMO_SQL_LOG) + "...";
+    }
+}
@@ -0,0 +1,50 @@
+package br.com.judev.libraryapi.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+// prazo por endpoint (@PrazoExecucao / libraryapi.prazos.padrao), aplicado como query timeout,
+// e cancelamento das consultas quando o cliente desconecta
+@Configuration
+public class PrazoConfiguration implements WebMvcConfigurer {
+
+    private final PrazoInterceptor prazoInterceptor;
+
+    public PrazoConfiguration(Environment environment,
+                              @Value("${libraryapi.prazos.padrao:5s}") Duration padrao) {
+        this.prazoInterceptor = new PrazoInterceptor(environment, padrao);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(prazoInterceptor);
+    }
+
+    /*
+     * Depois do filtro de observação (HIGHEST_PRECEDENCE + 1), que acompanha a requisição assíncrona até
+     * o fim, e antes do OrcamentoSqlFilter e da segurança, que passam a rodar na thread do AsyncContext.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "libraryapi.prazos.cancelar-ao-desconectar", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<CancelamentoConsultaFilter> cancelamentoConsultaFilter(
+            @Qualifier("requestMappingHandlerMapping") ObjectProvider<RequestMappingHandlerMapping> handlerMapping,
+            MeterRegistry meterRegistry){
+        FilterRegistrationBean<CancelamentoConsultaFilter> registro = new FilterRegistrationBean<>(
+                new CancelamentoConsultaFilter(handlerMapping, prazoInterceptor, meterRegistry));
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registro;
+    }
+}
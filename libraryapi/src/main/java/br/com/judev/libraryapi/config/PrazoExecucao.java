@@ -0,0 +1,21 @@
+package br.com.judev.libraryapi.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+ * Prazo de um endpoint (no método ou no controller inteiro), ex.: "2s" ou "${libraryapi.prazos.pesquisa:3s}".
+ * "0" desliga o prazo (importação, exportação).
+ *
+ * Sem a anotação, os métodos com @PreAuthorize recebem libraryapi.prazos.padrao. O prazo vira query
+ * timeout dos statements executados na thread da requisição (ver PrazoRequisicao).
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface PrazoExecucao {
+    String value();
+}
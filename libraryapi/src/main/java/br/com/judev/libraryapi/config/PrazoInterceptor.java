@@ -0,0 +1,91 @@
+package br.com.judev.libraryapi.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Define o prazo (PrazoRequisicao) durante a execução do controller:
+ * - @PrazoExecucao no método ou no controller;
+ * - senão, libraryapi.prazos.padrao para os métodos com @PreAuthorize (rotas da API);
+ * - "0" ou sem prazo: nada muda.
+ *
+ * O prazo vale para a thread da requisição; o que continua em outra thread (DeferredResult,
+ * StreamingResponseBody) não tem prazo. Registrado em PrazoConfiguration.
+ */
+public class PrazoInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String ANTERIOR = PrazoInterceptor.class.getName() + ".ANTERIOR";
+
+    private final Environment environment;
+    private final Duration padrao;
+    private final ConcurrentHashMap<Method, Optional<Duration>> orcamentos = new ConcurrentHashMap<>();
+
+    public PrazoInterceptor(Environment environment, Duration padrao) {
+        this.environment = environment;
+        this.padrao = padrao;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            orcamento(handlerMethod)
+                    .ifPresent(orcamento -> request.setAttribute(ANTERIOR, new Anterior(PrazoRequisicao.iniciar(orcamento))));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        encerrar(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        encerrar(request);
+    }
+
+    private static void encerrar(HttpServletRequest request) {
+        if (request.getAttribute(ANTERIOR) instanceof Anterior anterior) {
+            request.removeAttribute(ANTERIOR);
+            PrazoRequisicao.restaurar(anterior.limite());
+        }
+    }
+
+    // também usado pelo CancelamentoConsultaFilter para o timeout da requisição
+    Optional<Duration> orcamento(HandlerMethod handlerMethod) {
+        return orcamentos.computeIfAbsent(handlerMethod.getMethod(), metodo -> resolver(handlerMethod));
+    }
+
+    private Optional<Duration> resolver(HandlerMethod handlerMethod) {
+        PrazoExecucao prazo = handlerMethod.getMethodAnnotation(PrazoExecucao.class);
+        if (prazo == null) {
+            prazo = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), PrazoExecucao.class);
+        }
+
+        Duration orcamento;
+        if (prazo != null) {
+            orcamento = DurationStyle.detectAndParse(environment.resolveRequiredPlaceholders(prazo.value()));
+        } else if (handlerMethod.hasMethodAnnotation(PreAuthorize.class)
+                || AnnotatedElementUtils.hasAnnotation(handlerMethod.getBeanType(), PreAuthorize.class)) {
+            orcamento = padrao;
+        } else {
+            orcamento = null;
+        }
+        return orcamento == null || orcamento.isZero() || orcamento.isNegative() ? Optional.empty() : Optional.of(orcamento);
+    }
+
+    // embrulha o prazo anterior: null também precisa ser restaurado
+    private record Anterior(PrazoRequisicao.Limite limite) {
+    }
+}
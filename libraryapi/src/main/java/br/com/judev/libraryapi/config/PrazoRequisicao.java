@@ -0,0 +1,95 @@
+package br.com.judev.libraryapi.config;
+
+import br.com.judev.libraryapi.exceptions.PrazoExcedidoException;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/*
+ * Prazo da requisição atual (thread), definido pelo PrazoInterceptor a partir do @PrazoExecucao.
+ *
+ * Antes de cada statement (ContagemStatementsDataSource) o tempo que resta vira o query timeout do JDBC:
+ * o driver cancela a consulta no banco quando ele acaba (SQLState 57014 -> QueryTimeoutException),
+ * em vez de a consulta continuar ocupando a conexão depois que o cliente desistiu.
+ * Com o prazo já esgotado, o statement nem é enviado (PrazoExcedidoException).
+ *
+ * O query timeout do JDBC é em segundos: o que resta é arredondado para cima (mínimo 1s).
+ *
+ * A espera por conexão do pool também entra no prazo (RoteamentoDataSource): sem isso uma rota de 5s
+ * podia ficar até o connectionTimeout do pool (100s no catálogo) parada antes do primeiro statement.
+ */
+public final class PrazoRequisicao {
+
+    private static final ThreadLocal<Limite> ATUAL = new ThreadLocal<>();
+
+    private PrazoRequisicao() {
+    }
+
+    // devolve o prazo anterior, para restaurar no fim
+    static Limite iniciar(Duration orcamento) {
+        Limite anterior = ATUAL.get();
+        ATUAL.set(new Limite(System.nanoTime() + orcamento.toNanos(), orcamento));
+        return anterior;
+    }
+
+    static void restaurar(Limite anterior) {
+        if (anterior == null) {
+            ATUAL.remove();
+        } else {
+            ATUAL.set(anterior);
+        }
+    }
+
+    // null quando a thread não tem prazo
+    public static Duration restante() {
+        Limite limite = ATUAL.get();
+        return limite == null ? null : Duration.ofNanos(Math.max(0, limite.fimNanos() - System.nanoTime()));
+    }
+
+    static void aplicar(Statement statement) throws SQLException {
+        Limite limite = ATUAL.get();
+        if (limite == null) {
+            return;
+        }
+
+        long restanteNanos = limite.fimNanos() - System.nanoTime();
+        if (restanteNanos <= 0) {
+            throw new PrazoExcedidoException("O prazo de " + limite.orcamento().toMillis()
+                    + " ms da requisição se esgotou antes da consulta ao banco.");
+        }
+        int segundos = (int) Math.max(1, (restanteNanos + 999_999_999L) / 1_000_000_000L);
+        int atual = statement.getQueryTimeout();
+        // um timeout menor já definido (hint da consulta, JdbcTemplate) continua valendo
+        if (atual == 0 || atual > segundos) {
+            statement.setQueryTimeout(segundos);
+        }
+    }
+
+    // quanto esperar por conexão do pool: o timeout dele ou o que resta do prazo, o que for menor
+    static long esperaConexaoMs(long timeoutPoolMs) {
+        Limite limite = ATUAL.get();
+        if (limite == null) {
+            return timeoutPoolMs;
+        }
+
+        long restanteNanos = limite.fimNanos() - System.nanoTime();
+        if (restanteNanos <= 0) {
+            throw prazoEsgotadoSemConexao(limite, null);
+        }
+        return Math.min(timeoutPoolMs, Math.max(1, (restanteNanos + 999_999L) / 1_000_000L));
+    }
+
+    // a espera limitada por esperaConexaoMs acabou: quem esgotou foi o prazo, não o timeout do pool
+    static PrazoExcedidoException prazoEsgotadoSemConexao(Throwable causa) {
+        return prazoEsgotadoSemConexao(ATUAL.get(), causa);
+    }
+
+    private static PrazoExcedidoException prazoEsgotadoSemConexao(Limite limite, Throwable causa) {
+        return new PrazoExcedidoException("O prazo de " + limite.orcamento().toMillis()
+                + " ms da requisição se esgotou esperando conexão do pool.", causa);
+    }
+
+    record Limite(long fimNanos, Duration orcamento) {
+    }
+}
@@ -0,0 +1,77 @@
+package br.com.judev.libraryapi.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Statements SQL por método de repositório do Spring Data: libraryapi.sql.statements.repositorio{metodo},
+ * com metodo = "LivroRepository.findById". Inclui o que a chamada dispara por dentro (eager, flush antes
+ * da query); lazy loads que acontecem depois, ao navegar no resultado, contam só na requisição.
+ * Registrado como advisor em DatabaseConfiguration.
+ */
+public class RepositorioStatementsInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final ConcurrentHashMap<Chave, DistributionSummary> distribuicoes = new ConcurrentHashMap<>();
+
+    public RepositorioStatementsInterceptor(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        long antes = ContadorStatements.total();
+        try {
+            return invocation.proceed();
+        } finally {
+            DistributionSummary distribuicao = distribuicao(invocation);
+            if (distribuicao != null) {
+                distribuicao.record(ContadorStatements.total() - antes);
+            }
+        }
+    }
+
+    private DistributionSummary distribuicao(MethodInvocation invocation) {
+        Object repositorio = invocation.getThis();
+        if (repositorio == null) {
+            return null;
+        }
+        // findById é o mesmo Method em todos os repositórios: a chave inclui a classe do proxy
+        Chave chave = new Chave(repositorio.getClass(), invocation.getMethod());
+        DistributionSummary distribuicao = distribuicoes.get(chave);
+        if (distribuicao == null) {
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry == null) {
+                return null;
+            }
+            distribuicao = distribuicoes.computeIfAbsent(chave, c -> DistributionSummary
+                    .builder("libraryapi.sql.statements.repositorio")
+                    .description("Statements SQL executados por chamada de método de repositório")
+                    .tag("metodo", nome(repositorio, c.metodo()))
+                    .register(registry));
+        }
+        return distribuicao;
+    }
+
+    private static String nome(Object repositorio, Method metodo) {
+        // a interface da aplicação (LivroRepository), não a do Spring Data que declara o método
+        for (Class<?> interfaceProxy : ClassUtils.getAllInterfacesForClass(repositorio.getClass())) {
+            if (Repository.class.isAssignableFrom(interfaceProxy)
+                    && !interfaceProxy.getName().startsWith("org.springframework.")) {
+                return interfaceProxy.getSimpleName() + "." + metodo.getName();
+            }
+        }
+        return metodo.getDeclaringClass().getSimpleName() + "." + metodo.getName();
+    }
+
+    private record Chave(Class<?> repositorio, Method metodo) {
+    }
+}
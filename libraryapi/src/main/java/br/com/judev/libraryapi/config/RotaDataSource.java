@@ -0,0 +1,7 @@
+package br.com.judev.libraryapi.config;
+
+// chaves do RoteamentoDataSource
+public enum RotaDataSource {
+    PRIMARIO,
+    REPLICA
+}
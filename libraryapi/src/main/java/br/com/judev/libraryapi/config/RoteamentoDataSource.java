@@ -0,0 +1,108 @@
+package br.com.judev.libraryapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPool;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Escolhe o pool de cada conexão:
+ * - transação read-only (@Transactional(readOnly = true)) -> réplica, quando configurada;
+ * - todo o resto (escrita, sem transação) -> primário, no pool da carga atual (@CargaTrabalho,
+ *   CATALOGO por padrão), para um lote pesado não tomar as conexões do login;
+ * - read-only também vai para o primário quando a requisição pediu para ler as próprias escritas
+ *   (ConsistenciaLeituraFilter) ou quando a réplica está atrasada além do limite (MonitorReplica).
+ *
+ * A decisão usa o estado da transação, então este DataSource fica atrás de um
+ * LazyConnectionDataSourceProxy: o JpaTransactionManager pede a conexão no begin, antes de marcar
+ * a transação como read-only, e o proxy só busca a conexão real no primeiro statement.
+ */
+public class RoteamentoDataSource extends AbstractRoutingDataSource {
+
+    private static final ThreadLocal<Boolean> PRIMARIO_OBRIGATORIO = ThreadLocal.withInitial(() -> false);
+    private static final ThreadLocal<TipoCarga> CARGA = ThreadLocal.withInitial(() -> TipoCarga.CATALOGO);
+
+    private volatile boolean replicaDisponivel;
+
+    // replica null: sem réplica, tudo no primário
+    public RoteamentoDataSource(Map<TipoCarga, DataSource> pools, DataSource replica) {
+        Map<Object, Object> destinos = new HashMap<>(pools);
+        if (replica != null) {
+            destinos.put(RotaDataSource.REPLICA, replica);
+        }
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(pools.get(TipoCarga.CATALOGO));
+        setLenientFallback(false);
+        afterPropertiesSet();
+        this.replicaDisponivel = replica != null;
+    }
+
+    /*
+     * Com prazo na requisição (PrazoRequisicao), a espera por conexão do pool fica limitada ao que resta dele:
+     * com o prazo esgotado nem entra na fila, e se a espera acabar antes do connectionTimeout do pool é
+     * PrazoExcedidoException (504), não a falha de conexão (503).
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource alvo = determineTargetDataSource();
+        if (!(alvo instanceof HikariDataSource pool) || !(pool.getHikariPoolMXBean() instanceof HikariPool hikari)) {
+            return alvo.getConnection();
+        }
+
+        long timeout = pool.getConnectionTimeout();
+        long espera = PrazoRequisicao.esperaConexaoMs(timeout);
+        if (espera >= timeout) {
+            return pool.getConnection();
+        }
+        try {
+            return hikari.getConnection(espera);
+        } catch (SQLTransientConnectionException e) {
+            throw PrazoRequisicao.prazoEsgotadoSemConexao(e);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return rotaAtual() == RotaDataSource.REPLICA ? RotaDataSource.REPLICA : CARGA.get();
+    }
+
+    public RotaDataSource rotaAtual() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || PRIMARIO_OBRIGATORIO.get()
+                || !replicaDisponivel) {
+            return RotaDataSource.PRIMARIO;
+        }
+        return RotaDataSource.REPLICA;
+    }
+
+    public boolean isReplicaDisponivel() {
+        return replicaDisponivel;
+    }
+
+    void setReplicaDisponivel(boolean replicaDisponivel) {
+        this.replicaDisponivel = replicaDisponivel;
+    }
+
+    // leituras desta thread (até liberarLeitura) vão para o primário, mesmo em transação read-only
+    public static void lerDoPrimario() {
+        PRIMARIO_OBRIGATORIO.set(true);
+    }
+
+    public static void liberarLeitura() {
+        PRIMARIO_OBRIGATORIO.remove();
+    }
+
+    // troca a carga desta thread e devolve a anterior, para quem chamou restaurar (CargaTrabalhoInterceptor)
+    public static TipoCarga usarCarga(TipoCarga carga) {
+        TipoCarga anterior = CARGA.get();
+        CARGA.set(carga);
+        return anterior;
+    }
+}
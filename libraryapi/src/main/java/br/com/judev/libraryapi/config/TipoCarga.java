@@ -0,0 +1,13 @@
+package br.com.judev.libraryapi.config;
+
+// classes de carga; cada uma usa o seu pool de conexões no primário (ver DatabaseConfiguration)
+public enum TipoCarga {
+    // requisições da API (padrão)
+    CATALOGO,
+    // login, busca de usuário e de client OAuth2: poucas conexões, timeout curto
+    AUTENTICACAO,
+    // importação, exportação e updates/deletes em massa: podem prender as conexões por minutos
+    LOTE,
+    // jobs agendados (relay do outbox, limpezas): pool pequeno próprio, não esperam atrás de uma exportação
+    AGENDADA
+}
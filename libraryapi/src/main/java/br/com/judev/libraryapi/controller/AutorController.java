@@ -1,5 +1,6 @@
 package br.com.judev.libraryapi.controller;
 
+import br.com.judev.libraryapi.controller.common.VersaoEtag;
 import br.com.judev.libraryapi.controller.dto.AutorDTO;
 import br.com.judev.libraryapi.controller.dto.ErroResposta;
 import br.com.judev.libraryapi.exceptions.RegistroDuplicadoException;
@@ -9,11 +10,13 @@ import br.com.judev.libraryapi.security.SecurityService;
 import br.com.judev.libraryapi.service.AutorService;
 import br.com.judev.libraryapi.service.UsuarioService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
@@ -45,27 +48,25 @@ public class AutorController implements GenericController{
         Autor autor = dto.toEntity();
         autorService.salvar(autor);
         URI location = gerarHeaderLocation(autor.getId());
-        return ResponseEntity.created(location).build();
+        return ResponseEntity.created(location).eTag(VersaoEtag.etag(autor.getVersao())).build();
     }
 
+    // If-Match (opcional) com o ETag recebido: 412 se o autor mudou desde então
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('GERENTE')")
-    public ResponseEntity<?> atualizar(@PathVariable("id") String id, @RequestBody @Valid AutorDTO dto) {
+    public ResponseEntity<?> atualizar(
+            @PathVariable("id") String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody @Valid AutorDTO dto) {
      try{
         var idAutor = UUID.fromString(id);
-        Optional<Autor> autorOptional = autorService.obterPorId(idAutor);
+        Optional<Autor> autorAtualizado =
+                autorService.atualizar(idAutor, VersaoEtag.versaoEsperada(ifMatch), dto.toEntity());
 
-        if (autorOptional.isEmpty()) {
+        if (autorAtualizado.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        var autor = autorOptional.get();
-        autor.setNome(dto.nome());
-        autor.setNacionalidade(dto.nacionalidade());
-        autor.setDataNascimento(dto.dataNascimento());
-
-        autorService.atualizar(autor);
-
-        return ResponseEntity.noContent().build();
+        return ResponseEntity.noContent().eTag(VersaoEtag.etag(autorAtualizado.get().getVersao())).build();
      }catch (RegistroDuplicadoException e){
          var erroDTO = ErroResposta.conflito(e.getMessage());
          return ResponseEntity.status(erroDTO.status()).body(erroDTO);
@@ -74,18 +75,9 @@ public class AutorController implements GenericController{
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('OPERADOR', 'GERENTE')")
-    public ResponseEntity<AutorDTO> obterDetalhes(@PathVariable("id") String id) {
+    public ResponseEntity<AutorDTO> obterDetalhes(@PathVariable("id") String id, WebRequest request) {
         var idAutor = UUID.fromString(id);
-        Optional<Autor> autorOptional = autorService.obterPorId(idAutor);
-        if (autorOptional.isPresent()) {
-            Autor autor = autorOptional.get();
-            AutorDTO dto = new AutorDTO(
-                    autor.getId(),
-                    autor.getNome(),
-                    autor.getDataNascimento(), autor.getNacionalidade());
-            return ResponseEntity.ok(dto);
-        }
-        return ResponseEntity.notFound().build();
+        return respostaCondicional(request, autorService.obterVersao(idAutor), () -> autorService.obterDetalhe(idAutor));
     }
 
     @GetMapping
@@ -1,9 +1,17 @@
 package br.com.judev.libraryapi.controller;
 
+import br.com.judev.libraryapi.controller.common.VersaoEtag;
+import br.com.judev.libraryapi.controller.dto.VersaoRecursoDTO;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 public interface GenericController {
 
@@ -14,4 +22,32 @@ public interface GenericController {
                 .buildAndExpand(id)
                 .toUri();
     }
+
+    /*
+     * GET condicional (If-None-Match / If-Modified-Since): a versão vem de uma consulta leve e o corpo
+     * só é carregado se o cliente não tiver essa versão; senão 304 sem corpo.
+     * A versão é lida antes do corpo: se o registro mudar no meio, o corpo sai mais novo que o ETag,
+     * o que custa no máximo um 200 a mais depois (nunca um 304 com conteúdo velho).
+     */
+    default <T> ResponseEntity<T> respostaCondicional(
+            WebRequest request, Optional<VersaoRecursoDTO> versao, Supplier<Optional<T>> corpo) {
+        if (versao.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String etag = VersaoEtag.etag(versao.get());
+        long ultimaModificacao = VersaoEtag.ultimaModificacao(versao.get());
+        if (request.checkNotModified(etag, ultimaModificacao)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        // no-cache: o cliente pode guardar, mas revalida sempre (o 304 é barato); private: exige autenticação
+        var resposta = ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePrivate());
+        if (ultimaModificacao >= 0) {
+            resposta.lastModified(ultimaModificacao);
+        }
+        return corpo.get()
+                .map(resposta::body)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 }
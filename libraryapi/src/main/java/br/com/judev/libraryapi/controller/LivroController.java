@@ -1,15 +1,39 @@
 package br.com.judev.libraryapi.controller;
 
+import br.com.judev.libraryapi.config.PrazoExecucao;
+import br.com.judev.libraryapi.controller.common.VersaoEtag;
+import br.com.judev.libraryapi.controller.dto.AlteracoesLivrosDTO;
 import br.com.judev.libraryapi.controller.dto.CadastroLivroDTO;
+import br.com.judev.libraryapi.controller.dto.PesquisaLivroComFacetasDTO;
+import br.com.judev.libraryapi.controller.dto.ResultadoImportacaoDTO;
 import br.com.judev.libraryapi.controller.dto.ResultadoPesquisaLivroDTO;
 import br.com.judev.libraryapi.model.GeneroLivro;
 import br.com.judev.libraryapi.model.Livro;
+import br.com.judev.libraryapi.repository.specs.FacetaLivro;
+import br.com.judev.libraryapi.repository.specs.FiltroPesquisaLivro;
+import br.com.judev.libraryapi.service.EstrategiaContagem;
+import br.com.judev.libraryapi.service.ExportacaoLivroService;
+import br.com.judev.libraryapi.service.FormatoArquivo;
+import br.com.judev.libraryapi.service.ImportacaoLivroService;
+import br.com.judev.libraryapi.service.LivroDetalheCache;
 import br.com.judev.libraryapi.service.LivroService;
+import br.com.judev.libraryapi.service.PaginaCursor;
+import br.com.judev.libraryapi.service.SincronizacaoLivroService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
@@ -17,9 +41,18 @@ import java.util.UUID;
 public class LivroController implements GenericController{
 
     private final LivroService livroService;
+    private final ExportacaoLivroService exportacaoLivroService;
+    private final ImportacaoLivroService importacaoLivroService;
+    private final SincronizacaoLivroService sincronizacaoLivroService;
 
-    public LivroController(LivroService livroService){
+    public LivroController(LivroService livroService,
+                           ExportacaoLivroService exportacaoLivroService,
+                           ImportacaoLivroService importacaoLivroService,
+                           SincronizacaoLivroService sincronizacaoLivroService){
         this.livroService = livroService;
+        this.exportacaoLivroService = exportacaoLivroService;
+        this.importacaoLivroService = importacaoLivroService;
+        this.sincronizacaoLivroService = sincronizacaoLivroService;
     }
 
     @PostMapping
@@ -28,16 +61,48 @@ public class LivroController implements GenericController{
         Livro livro = dto.toEntity();
         livroService.salvar(livro);
         var url = gerarHeaderLocation(livro.getId());
-        return ResponseEntity.created(url).build();
+        return ResponseEntity.created(url).eTag(VersaoEtag.etag(livro.getVersao())).build();
     }
 
-    @GetMapping("/{id}")
+    /*
+     * Importação em lote: corpo em NDJSON (um CadastroLivroDTO por linha) ou CSV com cabeçalho
+     * (isbn,titulo,data_publicacao,genero,preco,id_autor — o mesmo da exportação).
+     * O formato vem do Content-Type. Linhas inválidas voltam em "erros", as demais são gravadas.
+     */
+    @PostMapping(value = "/importacao", consumes = {"application/x-ndjson", "text/csv"})
     @PreAuthorize("hasAnyRole('OPERADOR', 'GERENTE')")
-    public ResponseEntity<ResultadoPesquisaLivroDTO> obterDetalhes(@PathVariable UUID id) {
+    // o corpo é lido e gravado em lotes durante a requisição; pode levar minutos
+    @PrazoExecucao("0")
+    public ResponseEntity<ResultadoImportacaoDTO> importar(HttpServletRequest request) throws IOException {
+        var formato = FormatoArquivo.de(MediaType.parseMediaType(request.getContentType()));
+        var resultado = importacaoLivroService.importar(request.getInputStream(), formato);
+        return ResponseEntity.ok(resultado);
+    }
 
-        return livroService.obterPorId(id)
-                .map(livro -> ResponseEntity.ok(ResultadoPesquisaLivroDTO.toDTO(livro)))
-                .orElseGet(() -> ResponseEntity.notFound().build());
+    /*
+     * Sincronização incremental: livros criados/alterados e ids dos removidos depois de "desde"
+     * (ISO, ex.: ?desde=2026-10-01T03:00:00). Sem "desde": todos os livros.
+     * Próximas páginas: ?cursor=<proximo>. Na sincronização seguinte, desde=<sincronizadoAte da última página>.
+     */
+    @GetMapping("/alteracoes")
+    @PreAuthorize("hasAnyRole('OPERADOR', 'GERENTE')")
+    public ResponseEntity<AlteracoesLivrosDTO> alteracoes(
+            @RequestParam(value = "desde", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "tamanho-pagina", defaultValue = "100") int tamanhoPagina
+    ) {
+        return ResponseEntity.ok(sincronizacaoLivroService.alteracoes(desde, cursor, tamanhoPagina));
+    }
+
+    // ETag "versão do livro.versão do autor": alterar o autor também muda o detalhe do livro
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('OPERADOR', 'GERENTE')")
+    public ResponseEntity<ResultadoPesquisaLivroDTO> obterDetalhes(@PathVariable UUID id, WebRequest request) {
+        Optional<LivroDetalheCache.Entrada> detalhe = livroService.obterDetalhe(id);
+        return respostaCondicional(request,
+                detalhe.map(LivroDetalheCache.Entrada::versao),
+                () -> detalhe.map(LivroDetalheCache.Entrada::livro));
     }
 
     @DeleteMapping("{id}")
@@ -51,44 +116,113 @@ public class LivroController implements GenericController{
                 }).orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    /*
+     * "contagem" escolhe como o total é obtido (ver EstrategiaContagem):
+     * EXATA (padrão), CACHE, ESTIMADA ou NENHUMA (sem total; usar "last" para saber se acabou).
+     * A estratégia que de fato deu o total volta no header X-Contagem: EXATA quando a própria página
+     * já dá o total (não há próxima) ou quando o total em cache venceu e o count foi refeito.
+     *
+     * "facetas" (opcional) pede as contagens por GENERO, ANO_PUBLICACAO e/ou NACIONALIDADE
+     * para o mesmo filtro, ex.: ?facetas=GENERO,ANO_PUBLICACAO. Nesse caso a resposta
+     * vem como { "resultado": <página>, "facetas": {...} }.
+     */
     @GetMapping
     @PreAuthorize("hasAnyRole('OPERADOR', 'GERENTE')")
-    public ResponseEntity<Page<ResultadoPesquisaLivroDTO>> pesquisa(
+    @PrazoExecucao("${libraryapi.prazos.pesquisa:3s}")
+    public ResponseEntity<?> pesquisa(
             @RequestParam(value = "isbn", required = false) String isbn,
             @RequestParam(value = "titulo", required = false) String titulo,
             @RequestParam(value = "nome-autor", required = false) String nomeAutor,
             @RequestParam(value = "genero", required = false) GeneroLivro genero,
             @RequestParam(value = "ano-publicacao", required = false) Integer anoPublicacao,
             @RequestParam(value = "pagina", defaultValue = "0") int pagina,
+            @RequestParam(value = "tamanho-pagina", defaultValue = "10") int tamanhoPagina,
+            @RequestParam(value = "contagem", defaultValue = "EXATA") EstrategiaContagem contagem,
+            @RequestParam(value = "facetas", required = false) Set<FacetaLivro> facetas
+    ) {
+        var filtro = new FiltroPesquisaLivro(isbn, titulo, nomeAutor, genero, anoPublicacao);
+        var pesquisa = livroService.pesquisa(filtro, pagina, tamanhoPagina, contagem, facetas);
+        var resposta = ResponseEntity.ok().header("X-Contagem", pesquisa.contagem().name());
+
+        if (pesquisa.facetas() == null) {
+            return resposta.body(pesquisa.resultado());
+        }
+        return resposta.body(new PesquisaLivroComFacetasDTO(pesquisa.resultado(), pesquisa.facetas()));
+    }
+
+    /*
+     * Modo cursor da pesquisa: ativado quando o parâmetro "cursor" está presente.
+     * Primeira página: ?cursor=  (vazio). Próximas: ?cursor=<valor de "proximo" da resposta anterior>.
+     * Aceita os mesmos filtros da pesquisa paginada, sem OFFSET e sem count(*).
+     */
+    @GetMapping(params = "cursor")
+    @PreAuthorize("hasAnyRole('OPERADOR', 'GERENTE')")
+    @PrazoExecucao("${libraryapi.prazos.pesquisa:3s}")
+    public ResponseEntity<PaginaCursor<ResultadoPesquisaLivroDTO>> pesquisaPorCursor(
+            @RequestParam(value = "isbn", required = false) String isbn,
+            @RequestParam(value = "titulo", required = false) String titulo,
+            @RequestParam(value = "nome-autor", required = false) String nomeAutor,
+            @RequestParam(value = "genero", required = false) GeneroLivro genero,
+            @RequestParam(value = "ano-publicacao", required = false) Integer anoPublicacao,
+            @RequestParam(value = "cursor") String cursor,
             @RequestParam(value = "tamanho-pagina", defaultValue = "10") int tamanhoPagina
     ) {
-        var paginaResultado = livroService.pesquisa(
-                isbn, titulo, nomeAutor, genero, anoPublicacao, pagina, tamanhoPagina);
+        var filtro = new FiltroPesquisaLivro(isbn, titulo, nomeAutor, genero, anoPublicacao);
+        var resultado = livroService.pesquisaPorCursor(filtro, cursor, tamanhoPagina);
 
-        var resultado = paginaResultado.map(ResultadoPesquisaLivroDTO::toDTO);
         return ResponseEntity.ok(resultado);
     }
 
+    /*
+     * Busca textual ranqueada sobre título e nome do autor, atendida pelo índice em memória
+     * (IndiceTextoLivros). Todos os termos precisam casar; o último também casa por prefixo.
+     * Ex.: ?q=machado dom cas
+     */
+    @GetMapping(params = {"q", "!cursor"})
+    @PreAuthorize("hasAnyRole('OPERADOR', 'GERENTE')")
+    public ResponseEntity<List<ResultadoPesquisaLivroDTO>> buscaTextual(
+            @RequestParam(value = "q") String consulta,
+            @RequestParam(value = "tamanho-pagina", defaultValue = "10") int tamanhoPagina
+    ) {
+        return ResponseEntity.ok(livroService.buscaTextual(consulta, tamanhoPagina));
+    }
+
+    /*
+     * Exporta todos os livros do filtro (mesmos parâmetros da pesquisa), sem paginação.
+     * formato=NDJSON (padrão) ou CSV. O corpo é escrito enquanto as linhas são lidas do banco.
+     */
+    @GetMapping("/exportacao")
+    @PreAuthorize("hasAnyRole('OPERADOR', 'GERENTE')")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam(value = "isbn", required = false) String isbn,
+            @RequestParam(value = "titulo", required = false) String titulo,
+            @RequestParam(value = "nome-autor", required = false) String nomeAutor,
+            @RequestParam(value = "genero", required = false) GeneroLivro genero,
+            @RequestParam(value = "ano-publicacao", required = false) Integer anoPublicacao,
+            @RequestParam(value = "formato", defaultValue = "NDJSON") FormatoArquivo formato
+    ) {
+        var filtro = new FiltroPesquisaLivro(isbn, titulo, nomeAutor, genero, anoPublicacao);
+        StreamingResponseBody corpo = saida -> exportacaoLivroService.exportar(filtro, formato, saida);
+
+        return ResponseEntity.ok()
+                .contentType(formato.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"livros." + formato.extensao() + "\"")
+                .body(corpo);
+    }
+
+    /*
+     * If-Match (opcional) com o ETag recebido: se o livro mudou desde então, 412 em vez de
+     * sobrescrever a alteração de outra pessoa. A resposta traz o ETag da nova versão.
+     */
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('OPERADOR', 'GERENTE')")
     public ResponseEntity<?> atualizar(
             @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody @Valid CadastroLivroDTO dto
     ) {
-        return livroService.obterPorId(id)
-                .map(livro -> {
-                    Livro entidadeAux = dto.toEntity();
-
-                    livro.setDataPublicacao(entidadeAux.getDataPublicacao());
-                    livro.setIsbn(entidadeAux.getIsbn());
-                    livro.setPreco(entidadeAux.getPreco());
-                    livro.setGenero(entidadeAux.getGenero());
-                    livro.setTitulo(entidadeAux.getTitulo());
-                    livro.setAutor(entidadeAux.getAutor()); // só vem com o id; o service valida/resolve
-
-                    livroService.atualizar(livro);
-                    return ResponseEntity.noContent().build();
-                })
+        return livroService.atualizar(id, VersaoEtag.versaoEsperada(ifMatch), dto.toEntity())
+                .map(livro -> ResponseEntity.noContent().eTag(VersaoEtag.etag(livro.getVersao())).build())
                 .orElseGet(() -> ResponseEntity.notFound().build());
-        }
+    }
     }
@@ -0,0 +1,38 @@
+package br.com.judev.libraryapi.controller;
+
+import br.com.judev.libraryapi.controller.dto.PaginaMudancasDTO;
+import br.com.judev.libraryapi.mudancas.FeedMudancas;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+
+/*
+ * Feed das criações/atualizações/remoções de livros e autores, para sistemas que hoje varrem
+ * GET /livros para descobrir o que mudou. O consumidor guarda "proxima" e chama de novo com
+ * ?desde=<proxima>; sem mudanças novas a requisição aguarda até "espera" segundos (long-poll).
+ */
+@RestController
+@RequestMapping("/api/v1/mudancas")
+public class MudancaController {
+
+    private final FeedMudancas feed;
+
+    public MudancaController(FeedMudancas feed) {
+        this.feed = feed;
+    }
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('OPERADOR', 'GERENTE')")
+    public DeferredResult<PaginaMudancasDTO> acompanhar(
+            @RequestParam(value = "desde", defaultValue = "0") long desde,
+            @RequestParam(value = "limite", defaultValue = "100") int limite,
+            @RequestParam(value = "espera", defaultValue = "30") int espera
+    ) {
+        return feed.acompanhar(desde, limite, Duration.ofSeconds(espera));
+    }
+}
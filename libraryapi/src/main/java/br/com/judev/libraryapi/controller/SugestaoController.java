@@ -0,0 +1,43 @@
+package br.com.judev.libraryapi.controller;
+
+import br.com.judev.libraryapi.controller.dto.SugestoesDTO;
+import br.com.judev.libraryapi.search.IndiceSugestoes;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/*
+ * Autocomplete para a tela de pesquisa: responde da memória (IndiceSugestoes), sem ir ao banco.
+ * Substitui o uso de GET /livros?titulo= e GET /autores?nome= a cada tecla digitada.
+ */
+@RestController
+@RequestMapping("/api/v1/sugestoes")
+public class SugestaoController {
+
+    private final IndiceSugestoes indiceSugestoes;
+
+    public SugestaoController(IndiceSugestoes indiceSugestoes) {
+        this.indiceSugestoes = indiceSugestoes;
+    }
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('OPERADOR', 'GERENTE')")
+    public ResponseEntity<SugestoesDTO> sugerir(
+            @RequestParam("prefixo") String prefixo,
+            @RequestParam(value = "limite", defaultValue = "10") int limite
+    ) {
+        var titulos = indiceSugestoes.sugerirTitulos(prefixo, limite)
+                .stream()
+                .map(SugestoesDTO.Item::de)
+                .toList();
+        var autores = indiceSugestoes.sugerirAutores(prefixo, limite)
+                .stream()
+                .map(SugestoesDTO.Item::de)
+                .toList();
+
+        return ResponseEntity.ok(new SugestoesDTO(titulos, autores));
+    }
+}
@@ -1,17 +1,31 @@
 package br.com.judev.libraryapi.controller.common;
 
+import br.com.judev.libraryapi.config.CancelamentoConsulta;
 import br.com.judev.libraryapi.controller.dto.ErroCampo;
 import br.com.judev.libraryapi.controller.dto.ErroResposta;
 import br.com.judev.libraryapi.exceptions.CampoInvalidoException;
+import br.com.judev.libraryapi.exceptions.CursorExpiradoException;
 import br.com.judev.libraryapi.exceptions.OperacaoNaoPermitidaException;
+import br.com.judev.libraryapi.exceptions.PrazoExcedidoException;
 import br.com.judev.libraryapi.exceptions.RegistroDuplicadoException;
+import br.com.judev.libraryapi.exceptions.VersaoDivergenteException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.HandlerMapping;
 
 import java.nio.file.AccessDeniedException;
 import java.util.List;
@@ -21,6 +35,12 @@ import java.util.stream.Collectors;
 @Slf4j
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
     public ErroResposta handleMethodArgumentNotValidException(MethodArgumentNotValidException e){
@@ -41,6 +61,63 @@ public class GlobalExceptionHandler {
         return ErroResposta.conflito(e.getMessage());
     }
 
+    // If-Match com versão antiga ou update concorrente detectado pelo @Version
+    @ExceptionHandler(VersaoDivergenteException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ErroResposta handleVersaoDivergenteException(VersaoDivergenteException e){
+        return ErroResposta.preCondicaoFalhou(e.getMessage());
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ErroResposta handleOptimisticLockingFailureException(OptimisticLockingFailureException e){
+        return ErroResposta.preCondicaoFalhou("O registro foi alterado por outra requisição. Obtenha a versão atual e tente novamente.");
+    }
+
+    // feed de mudanças: a posição pedida já saiu do outbox (retenção); o cliente precisa reler o catálogo
+    @ExceptionHandler(CursorExpiradoException.class)
+    @ResponseStatus(HttpStatus.GONE)
+    public ErroResposta handleCursorExpiradoException(CursorExpiradoException e){
+        return new ErroResposta(HttpStatus.GONE.value(), e.getMessage(), List.of());
+    }
+
+    /*
+     * Prazo do endpoint esgotado (@PrazoExecucao): a consulta foi cancelada no banco pelo query timeout
+     * (SQLState 57014, traduzido pelo Spring/Hibernate) ou nem chegou a ser enviada (prazo esgotado antes
+     * do statement ou na fila do pool, ver RoteamentoDataSource.getConnection).
+     * Consulta cancelada porque o cliente desconectou chega pelo mesmo caminho, mas já foi contada
+     * pelo CancelamentoConsultaFilter (libraryapi.consulta.cancelada).
+     */
+    @ExceptionHandler({PrazoExcedidoException.class, QueryTimeoutException.class,
+            jakarta.persistence.QueryTimeoutException.class})
+    @ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+    public ErroResposta handlePrazoExcedido(RuntimeException e, HttpServletRequest request){
+        if (CancelamentoConsulta.canceladaNaThreadAtual()) {
+            log.debug("Consulta cancelada em {} {}: {}", request.getMethod(), request.getRequestURI(), e.getMessage());
+        } else {
+            log.warn("Prazo excedido em {} {}: {}", request.getMethod(), request.getRequestURI(), e.getMessage());
+            contar("libraryapi.prazo.excedido", request);
+        }
+        return new ErroResposta(HttpStatus.GATEWAY_TIMEOUT.value(),
+                "A consulta excedeu o tempo limite do endpoint. Refine os filtros e tente novamente.", List.of());
+    }
+
+    /*
+     * Sem conexão livre no pool dentro do timeout dele (ou banco fora do ar): tentar de novo em seguida.
+     * Em rota com prazo a espera termina antes, pelo prazo, e a resposta é a 504 acima.
+     * Com o LazyConnectionDataSourceProxy a conexão só é pedida no primeiro statement, então a falha
+     * chega como DataAccessResourceFailureException (JPA/JdbcTemplate), não no início da transação.
+     */
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<ErroResposta> handleSemConexao(RuntimeException e, HttpServletRequest request){
+        log.warn("Sem conexão com o banco em {} {}: {}", request.getMethod(), request.getRequestURI(), e.getMessage());
+        contar("libraryapi.banco.indisponivel", request);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErroResposta(HttpStatus.SERVICE_UNAVAILABLE.value(),
+                        "Serviço temporariamente sem conexões com o banco de dados. Tente novamente.", List.of()));
+    }
+
     @ExceptionHandler(OperacaoNaoPermitidaException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErroResposta handleOperacaoNaoPermitidaException(
@@ -72,4 +149,14 @@ public class GlobalExceptionHandler {
                 "Ocorreu um erro inesperado. Entre em contato com a administração."
                 , List.of());
     }
+
+    // {uri, method}: uri é o padrão do mapeamento (/api/v1/livros/{id})
+    private void contar(String nome, HttpServletRequest request){
+        Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Counter.builder(nome)
+                .tag("uri", padrao != null ? padrao.toString() : "UNKNOWN")
+                .tag("method", request.getMethod())
+                .register(meterRegistry)
+                .increment();
+    }
 }
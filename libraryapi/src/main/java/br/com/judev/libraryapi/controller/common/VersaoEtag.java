@@ -0,0 +1,61 @@
+package br.com.judev.libraryapi.controller.common;
+
+import br.com.judev.libraryapi.controller.dto.VersaoRecursoDTO;
+import br.com.judev.libraryapi.exceptions.VersaoDivergenteException;
+
+import java.time.ZoneId;
+
+/*
+ * ETag forte a partir da coluna @Version: "3", ou "3.7" quando a representação também
+ * inclui o autor (versão do livro . versão do autor).
+ * No If-Match do PUT o cliente devolve o ETag que recebeu; só o primeiro número
+ * (antes de um ".") é a versão do próprio registro.
+ */
+public final class VersaoEtag {
+
+    private VersaoEtag() {
+    }
+
+    public static String etag(long versao) {
+        return "\"" + versao + "\"";
+    }
+
+    public static String etag(VersaoRecursoDTO versao) {
+        if (versao.versaoAutor() == null) {
+            return etag(versao.versao());
+        }
+        return "\"" + versao.versao() + "." + versao.versaoAutor() + "\"";
+    }
+
+    // epoch em ms para o Last-Modified; -1 quando o registro nunca teve data de atualização
+    public static long ultimaModificacao(VersaoRecursoDTO versao) {
+        if (versao.ultimaAtualizacao() == null) {
+            return -1;
+        }
+        return versao.ultimaAtualizacao().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /*
+     * Versão esperada a partir do If-Match:
+     * - sem o header ou "*": null (não confere a versão, mas o @Version ainda protege o update);
+     * - ETag fraco (W/...) nunca casa em If-Match, então é tratado como versão divergente.
+     */
+    public static Long versaoEsperada(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        String valor = ifMatch.trim();
+        if (valor.startsWith("W/") || valor.length() < 2 || !valor.startsWith("\"") || !valor.endsWith("\"")) {
+            throw new VersaoDivergenteException("If-Match inválido: " + ifMatch);
+        }
+
+        String conteudo = valor.substring(1, valor.length() - 1);
+        int ponto = conteudo.indexOf('.');
+        try {
+            return Long.parseLong(ponto >= 0 ? conteudo.substring(0, ponto) : conteudo);
+        } catch (NumberFormatException e) {
+            throw new VersaoDivergenteException("If-Match inválido: " + ifMatch);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package br.com.judev.libraryapi.controller.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/*
+ * Página da sincronização incremental: livros criados/alterados e ids dos removidos.
+ * "proximo" != null: há mais páginas (?cursor=<proximo>).
+ * "sincronizadoAte" da última página é o ?desde= da próxima sincronização.
+ */
+public record AlteracoesLivrosDTO(
+        List<ResultadoPesquisaLivroDTO> alterados,
+        List<UUID> removidos,
+        String proximo,
+        LocalDateTime sincronizadoAte
+) {
+}
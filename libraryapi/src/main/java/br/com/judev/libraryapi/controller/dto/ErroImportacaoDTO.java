@@ -0,0 +1,5 @@
+package br.com.judev.libraryapi.controller.dto;
+
+// linha: número da linha no arquivo enviado (a linha 1 do CSV é o cabeçalho)
+public record ErroImportacaoDTO(long linha, String campo, String erro) {
+}
@@ -14,4 +14,8 @@ public record ErroResposta(int status, String mensagem, List<ErroCampo> erros) {
         return new ErroResposta(HttpStatus.CONFLICT.value(), mensagem, List.of());
     }
 
+    public static ErroResposta preCondicaoFalhou(String mensagem){
+        return new ErroResposta(HttpStatus.PRECONDITION_FAILED.value(), mensagem, List.of());
+    }
+
 }
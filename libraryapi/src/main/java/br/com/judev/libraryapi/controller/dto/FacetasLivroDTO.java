@@ -0,0 +1,18 @@
+package br.com.judev.libraryapi.controller.dto;
+
+import br.com.judev.libraryapi.model.GeneroLivro;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Map;
+
+/*
+ * Quantidade de livros por valor de cada faceta, na ordem da maior para a menor.
+ * Facetas que não foram pedidas ficam nulas e não aparecem no JSON.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record FacetasLivroDTO(
+        Map<GeneroLivro, Long> generos,
+        Map<Integer, Long> anosPublicacao,
+        Map<String, Long> nacionalidades
+) {
+}
@@ -0,0 +1,8 @@
+package br.com.judev.libraryapi.controller.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// posição de um registro na sincronização incremental: data da alteração (ou remoção) e id
+public record MarcaAlteracaoDTO(UUID id, LocalDateTime data) {
+}
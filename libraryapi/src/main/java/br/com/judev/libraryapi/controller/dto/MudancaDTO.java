@@ -0,0 +1,22 @@
+package br.com.judev.libraryapi.controller.dto;
+
+import br.com.judev.libraryapi.events.TipoAlteracao;
+import br.com.judev.libraryapi.mudancas.EntidadeMudanca;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/*
+ * Uma linha do feed de mudanças. "dados" é o registro como ficou no commit (JSON gravado pelo
+ * próprio banco no outbox, repassado sem conversão); null na remoção.
+ */
+public record MudancaDTO(
+        long posicao,
+        EntidadeMudanca entidade,
+        TipoAlteracao tipo,
+        UUID id,
+        @JsonRawValue String dados,
+        LocalDateTime dataPublicacao
+) {
+}
@@ -0,0 +1,7 @@
+package br.com.judev.libraryapi.controller.dto;
+
+import java.util.List;
+
+// "proxima" é o valor de ?desde= da próxima chamada (igual ao desde recebido quando não houve mudança)
+public record PaginaMudancasDTO(List<MudancaDTO> mudancas, long proxima) {
+}
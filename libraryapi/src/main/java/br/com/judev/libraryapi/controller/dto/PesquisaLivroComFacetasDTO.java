@@ -0,0 +1,9 @@
+package br.com.judev.libraryapi.controller.dto;
+
+import org.springframework.data.domain.Slice;
+
+public record PesquisaLivroComFacetasDTO(
+        Slice<ResultadoPesquisaLivroDTO> resultado,
+        FacetasLivroDTO facetas
+) {
+}
@@ -0,0 +1,15 @@
+package br.com.judev.libraryapi.controller.dto;
+
+import java.util.List;
+
+/*
+ * Resumo da importação em lote. "erros" traz no máximo os primeiros N problemas encontrados;
+ * "rejeitados" é o total de linhas que não foram gravadas.
+ */
+public record ResultadoImportacaoDTO(
+        long linhasLidas,
+        long importados,
+        long rejeitados,
+        List<ErroImportacaoDTO> erros
+) {
+}
@@ -17,6 +17,11 @@ public record ResultadoPesquisaLivroDTO(
         AutorDTO autor
 ) {
 
+    /*
+     * Lê o autor do livro: chamar dentro da transação que carregou o livro (sem open-in-view, fora dela
+     * o autor LAZY dá LazyInitializationException). Para listas, preferir as projeções do LivroRepository,
+     * que trazem o autor no mesmo select.
+     */
     public static ResultadoPesquisaLivroDTO toDTO(Livro livro) {
         return new ResultadoPesquisaLivroDTO(
                 livro.getId(),
@@ -0,0 +1,19 @@
+package br.com.judev.libraryapi.controller.dto;
+
+import br.com.judev.libraryapi.search.Sugestao;
+
+import java.util.List;
+import java.util.UUID;
+
+public record SugestoesDTO(
+        List<Item> titulos,
+        List<Item> autores
+) {
+
+    public record Item(UUID id, String texto) {
+
+        public static Item de(Sugestao sugestao){
+            return new Item(sugestao.id(), sugestao.texto());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package br.com.judev.libraryapi.controller.dto;
+
+import java.time.LocalDateTime;
+
+/*
+ * Só o necessário para responder um GET condicional (ETag / Last-Modified),
+ * sem carregar a entidade: versao do registro, versao do autor (quando o
+ * recurso exibe o autor) e a última atualização entre os dois.
+ */
+public record VersaoRecursoDTO(long versao, Long versaoAutor, LocalDateTime ultimaAtualizacao) {
+
+    // livro: o detalhe inclui o autor, então a alteração de qualquer um dos dois muda a representação
+    public VersaoRecursoDTO(Long versao, Long versaoAutor, LocalDateTime atualizacao, LocalDateTime atualizacaoAutor) {
+        this(versao, versaoAutor, maisRecente(atualizacao, atualizacaoAutor));
+    }
+
+    // autor
+    public VersaoRecursoDTO(Long versao, LocalDateTime atualizacao) {
+        this(versao, null, atualizacao);
+    }
+
+    private static LocalDateTime maisRecente(LocalDateTime a, LocalDateTime b) {
+        if (a == null || b == null) {
+            return a != null ? a : b;
+        }
+        return a.isAfter(b) ? a : b;
+    }
+}
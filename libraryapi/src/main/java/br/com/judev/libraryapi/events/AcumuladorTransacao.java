@@ -0,0 +1,57 @@
+package br.com.judev.libraryapi.events;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/*
+ * Acumula os itens adicionados durante a transação atual e entrega todos juntos no beforeCommit,
+ * na mesma transação (se a entrega falhar, a transação falha junto; rollback = nada é entregue).
+ * Sem transação ativa, entrega na hora (a gravação já foi commitada).
+ *
+ * Usado pelo PublicadorInvalidacao (NOTIFY) e pelo OutboxMudancas (outbox_mudanca): cada instância
+ * é a chave do próprio recurso na transação, então os dois acumulam separados.
+ */
+public final class AcumuladorTransacao<T> {
+
+    private final Consumer<List<T>> entrega;
+
+    public AcumuladorTransacao(Consumer<List<T>> entrega) {
+        this.entrega = entrega;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void adicionar(T item) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            entrega.accept(List.of(item));
+            return;
+        }
+
+        Pendentes pendentes = (Pendentes) TransactionSynchronizationManager.getResource(this);
+        if (pendentes == null) {
+            pendentes = new Pendentes();
+            TransactionSynchronizationManager.bindResource(this, pendentes);
+            TransactionSynchronizationManager.registerSynchronization(pendentes);
+        }
+        pendentes.itens.add(item);
+    }
+
+    private final class Pendentes implements TransactionSynchronization {
+
+        private final List<T> itens = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            entrega.accept(itens);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(AcumuladorTransacao.this);
+        }
+    }
+}
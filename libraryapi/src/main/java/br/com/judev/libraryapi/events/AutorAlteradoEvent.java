@@ -0,0 +1,9 @@
+package br.com.judev.libraryapi.events;
+
+import java.util.UUID;
+
+/*
+ * Publicado pelo AutorService a cada cadastro, atualização ou exclusão de autor.
+ */
+public record AutorAlteradoEvent(UUID id, String nome, TipoAlteracao tipo) {
+}
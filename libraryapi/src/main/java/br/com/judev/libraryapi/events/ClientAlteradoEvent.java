@@ -0,0 +1,10 @@
+package br.com.judev.libraryapi.events;
+
+import java.util.UUID;
+
+/*
+ * Publicado pelo ClientService ao gravar um client OAuth2. Serve para invalidar o que estiver
+ * em memória por client_id (nesta instância e, via NOTIFY, nas demais).
+ */
+public record ClientAlteradoEvent(UUID id, String clientId, TipoAlteracao tipo) {
+}
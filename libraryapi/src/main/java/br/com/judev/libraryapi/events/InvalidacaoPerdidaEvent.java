@@ -0,0 +1,8 @@
+package br.com.judev.libraryapi.events;
+
+/*
+ * A conexão do LISTEN caiu e foi refeita: notificações enviadas nesse intervalo se perderam.
+ * Caches e índices em memória devem descartar/recarregar tudo.
+ */
+public record InvalidacaoPerdidaEvent() {
+}
@@ -0,0 +1,11 @@
+package br.com.judev.libraryapi.events;
+
+import java.util.UUID;
+
+/*
+ * Publicado pelo LivroService a cada cadastro, atualização ou exclusão de livro.
+ * Quem precisa reagir (índices em memória, caches...) escuta com @TransactionalEventListener,
+ * para só aplicar a mudança depois do commit.
+ */
+public record LivroAlteradoEvent(UUID id, String titulo, UUID idAutor, TipoAlteracao tipo) {
+}
@@ -0,0 +1,74 @@
+package br.com.judev.libraryapi.events;
+
+import java.util.UUID;
+
+/*
+ * Payload do NOTIFY, em texto compacto (o Postgres limita o payload a 8000 bytes):
+ *
+ *   origem|entidade|tipo|id|idAutor|nome
+ *
+ * - origem: instância que gravou (ela mesma ignora a mensagem, já aplicou a alteração localmente);
+ * - entidade e tipo: uma letra cada (L/A/U/C e C/A/R);
+ * - nome por último, porque pode conter "|" (título do livro, nome do autor, login, client_id).
+ */
+public record MensagemInvalidacao(String origem, char entidade, TipoAlteracao tipo, UUID id, UUID idAutor, String nome) {
+
+    private static final char LIVRO = 'L';
+    private static final char AUTOR = 'A';
+    private static final char USUARIO = 'U';
+    private static final char CLIENT = 'C';
+
+    public static MensagemInvalidacao de(String origem, Object evento) {
+        return switch (evento) {
+            case LivroAlteradoEvent e -> new MensagemInvalidacao(origem, LIVRO, e.tipo(), e.id(), e.idAutor(), e.titulo());
+            case AutorAlteradoEvent e -> new MensagemInvalidacao(origem, AUTOR, e.tipo(), e.id(), null, e.nome());
+            case UsuarioAlteradoEvent e -> new MensagemInvalidacao(origem, USUARIO, e.tipo(), e.id(), null, e.login());
+            case ClientAlteradoEvent e -> new MensagemInvalidacao(origem, CLIENT, e.tipo(), e.id(), null, e.clientId());
+            default -> throw new IllegalArgumentException("Evento sem mensagem de invalidação: " + evento);
+        };
+    }
+
+    // o mesmo evento que a instância de origem publicou, para os listeners locais reagirem igual
+    public Object paraEvento() {
+        return switch (entidade) {
+            case LIVRO -> new LivroAlteradoEvent(id, nome, idAutor, tipo);
+            case AUTOR -> new AutorAlteradoEvent(id, nome, tipo);
+            case USUARIO -> new UsuarioAlteradoEvent(id, nome, tipo);
+            case CLIENT -> new ClientAlteradoEvent(id, nome, tipo);
+            default -> throw new IllegalArgumentException("Entidade desconhecida na mensagem de invalidação: " + entidade);
+        };
+    }
+
+    public String codificar() {
+        return String.join("|",
+                origem,
+                String.valueOf(entidade),
+                String.valueOf(tipo.name().charAt(0)),
+                id.toString(),
+                idAutor != null ? idAutor.toString() : "",
+                nome != null ? nome : "");
+    }
+
+    public static MensagemInvalidacao decodificar(String payload) {
+        String[] partes = payload.split("\\|", 6);
+        if (partes.length != 6 || partes[1].length() != 1 || partes[2].length() != 1) {
+            throw new IllegalArgumentException("Mensagem de invalidação inválida: " + payload);
+        }
+        return new MensagemInvalidacao(
+                partes[0],
+                partes[1].charAt(0),
+                tipo(partes[2].charAt(0)),
+                UUID.fromString(partes[3]),
+                partes[4].isEmpty() ? null : UUID.fromString(partes[4]),
+                partes[5].isEmpty() ? null : partes[5]);
+    }
+
+    private static TipoAlteracao tipo(char letra) {
+        for (TipoAlteracao tipo : TipoAlteracao.values()) {
+            if (tipo.name().charAt(0) == letra) {
+                return tipo;
+            }
+        }
+        throw new IllegalArgumentException("Tipo de alteração desconhecido: " + letra);
+    }
+}
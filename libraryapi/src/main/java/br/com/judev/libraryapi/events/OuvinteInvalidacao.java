@@ -0,0 +1,135 @@
+package br.com.judev.libraryapi.events;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.regex.Pattern;
+
+/*
+ * Recebe as mensagens do PublicadorInvalidacao das outras instâncias (LISTEN) e republica
+ * o evento correspondente aqui: os mesmos listeners que reagem a uma alteração local
+ * (LivroDetalheCache, índices de texto e de sugestões, ...) despejam/atualizam o que têm em memória.
+ *
+ * - conexão própria, aberta pelo DriverManager, fora do pool: ela fica presa no LISTEN o tempo todo;
+ * - se a conexão cair, reconecta e publica InvalidacaoPerdidaEvent (o que chegou nesse meio tempo se perdeu);
+ * - a cada espera sem notificação faz um "select 1", para perceber conexão morta.
+ */
+@Component
+@Slf4j
+public class OuvinteInvalidacao {
+
+    private static final Pattern NOME_CANAL = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final int ESPERA_NOTIFICACAO_MS = 10_000;
+    private static final long ESPERA_RECONEXAO_MS = 5_000;
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String canal;
+    private final boolean habilitada;
+
+    private volatile boolean ativo;
+    private Thread thread;
+
+    public OuvinteInvalidacao(ApplicationEventPublisher eventPublisher,
+                              @Value("${spring.datasource.url}") String url,
+                              @Value("${spring.datasource.username}") String username,
+                              @Value("${spring.datasource.password}") String password,
+                              @Value("${libraryapi.invalidacao.canal:libraryapi_invalidacao}") String canal,
+                              @Value("${libraryapi.invalidacao.habilitada:true}") boolean habilitada) {
+        // o canal vai sem aspas no LISTEN
+        if (!NOME_CANAL.matcher(canal).matches()) {
+            throw new IllegalArgumentException("Nome de canal inválido para LISTEN: " + canal);
+        }
+        this.eventPublisher = eventPublisher;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.canal = canal;
+        this.habilitada = habilitada;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!habilitada) {
+            return;
+        }
+        ativo = true;
+        thread = Thread.ofPlatform().name("invalidacao-listen").daemon().start(this::escutar);
+    }
+
+    @PreDestroy
+    public void parar() {
+        ativo = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void escutar() {
+        boolean reconexao = false;
+        while (ativo) {
+            try (Connection connection = DriverManager.getConnection(url, username, password);
+                 Statement statement = connection.createStatement()) {
+                statement.execute("listen " + canal);
+                log.info("Escutando invalidações no canal {} (instância {})", canal, PublicadorInvalidacao.ORIGEM);
+
+                if (reconexao) {
+                    eventPublisher.publishEvent(new InvalidacaoPerdidaEvent());
+                }
+                reconexao = true;
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (ativo) {
+                    PGNotification[] notificacoes = pgConnection.getNotifications(ESPERA_NOTIFICACAO_MS);
+                    if (notificacoes == null || notificacoes.length == 0) {
+                        statement.execute("select 1");
+                        continue;
+                    }
+                    for (PGNotification notificacao : notificacoes) {
+                        receber(notificacao.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (ativo) {
+                    log.warn("Conexão do LISTEN perdida; nova tentativa em {} ms", ESPERA_RECONEXAO_MS, e);
+                    esperarReconexao();
+                }
+            }
+        }
+    }
+
+    private void receber(String payload) {
+        try {
+            MensagemInvalidacao mensagem = MensagemInvalidacao.decodificar(payload);
+            if (PublicadorInvalidacao.ORIGEM.equals(mensagem.origem())) {
+                return;
+            }
+            PublicadorInvalidacao.republicar(() -> eventPublisher.publishEvent(mensagem.paraEvento()));
+        } catch (RuntimeException e) {
+            // uma mensagem ruim (ou um listener com erro) não pode derrubar o LISTEN
+            log.error("Falha ao aplicar invalidação recebida: {}", payload, e);
+        }
+    }
+
+    private void esperarReconexao() {
+        try {
+            Thread.sleep(ESPERA_RECONEXAO_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ativo = false;
+        }
+    }
+}
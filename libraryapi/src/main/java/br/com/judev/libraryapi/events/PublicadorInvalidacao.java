@@ -0,0 +1,81 @@
+package br.com.judev.libraryapi.events;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.UUID;
+
+/*
+ * Envia as alterações de livro, autor, usuário e client para as outras instâncias via NOTIFY.
+ *
+ * - as mensagens de uma transação são acumuladas e enviadas em um único statement no beforeCommit,
+ *   na mesma conexão: o NOTIFY do Postgres é transacional, só é entregue se o commit acontecer
+ *   (rollback = nada é enviado). Sem transação ativa, envia na hora (a gravação já foi commitada);
+ * - quem recebe é o OuvinteInvalidacao de cada instância, que republica o evento localmente;
+ * - eventos republicados a partir de um NOTIFY não são reenviados (senão as instâncias ficariam
+ *   trocando a mesma mensagem).
+ */
+@Component
+public class PublicadorInvalidacao {
+
+    // identifica esta instância no payload, para ela ignorar as próprias mensagens
+    public static final String ORIGEM = UUID.randomUUID().toString().substring(0, 8);
+
+    private static final ThreadLocal<Boolean> REPUBLICANDO = ThreadLocal.withInitial(() -> false);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String canal;
+    private final boolean habilitada;
+    // se o NOTIFY falhar, a transação falha junto: melhor não gravar do que deixar as outras instâncias com cache velho
+    private final AcumuladorTransacao<String> mensagens = new AcumuladorTransacao<>(this::notificar);
+
+    public PublicadorInvalidacao(JdbcTemplate jdbcTemplate,
+                                 @Value("${libraryapi.invalidacao.canal:libraryapi_invalidacao}") String canal,
+                                 @Value("${libraryapi.invalidacao.habilitada:true}") boolean habilitada) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.canal = canal;
+        this.habilitada = habilitada;
+    }
+
+    // recebe na hora da publicação (ainda dentro da transação) para acumular até o commit
+    @EventListener({LivroAlteradoEvent.class, AutorAlteradoEvent.class,
+            UsuarioAlteradoEvent.class, ClientAlteradoEvent.class})
+    public void onAlteracao(Object evento) {
+        if (!habilitada || REPUBLICANDO.get()) {
+            return;
+        }
+
+        mensagens.adicionar(MensagemInvalidacao.de(ORIGEM, evento).codificar());
+    }
+
+    // o OuvinteInvalidacao republica o evento recebido dentro deste bloco
+    static void republicar(Runnable publicacao) {
+        REPUBLICANDO.set(true);
+        try {
+            publicacao.run();
+        } finally {
+            REPUBLICANDO.remove();
+        }
+    }
+
+    // true enquanto um evento recebido de outra instância está sendo republicado aqui
+    public static boolean republicando() {
+        return REPUBLICANDO.get();
+    }
+
+    private void notificar(List<String> mensagens) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement("select pg_notify(?, m) from unnest(?) m")) {
+                ps.setString(1, canal);
+                ps.setArray(2, connection.createArrayOf("text", mensagens.toArray()));
+                ps.execute();
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,7 @@
+package br.com.judev.libraryapi.events;
+
+public enum TipoAlteracao {
+    CRIACAO,
+    ATUALIZACAO,
+    REMOCAO
+}
@@ -0,0 +1,10 @@
+package br.com.judev.libraryapi.events;
+
+import java.util.UUID;
+
+/*
+ * Publicado pelo UsuarioService ao gravar um usuário. Serve para invalidar o que estiver
+ * em memória por login/id (nesta instância e, via NOTIFY, nas demais).
+ */
+public record UsuarioAlteradoEvent(UUID id, String login, TipoAlteracao tipo) {
+}
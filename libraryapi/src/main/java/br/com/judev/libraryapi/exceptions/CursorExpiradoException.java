@@ -0,0 +1,7 @@
+package br.com.judev.libraryapi.exceptions;
+
+public class CursorExpiradoException extends RuntimeException {
+    public CursorExpiradoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package br.com.judev.libraryapi.exceptions;
+
+public class PrazoExcedidoException extends RuntimeException {
+    public PrazoExcedidoException(String message) {
+        super(message);
+    }
+
+    public PrazoExcedidoException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,7 @@
+package br.com.judev.libraryapi.exceptions;
+
+public class VersaoDivergenteException extends RuntimeException {
+    public VersaoDivergenteException(String message) {
+        super(message);
+    }
+}
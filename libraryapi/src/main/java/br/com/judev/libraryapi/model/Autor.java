@@ -22,7 +22,7 @@ public class Autor {
 
     @Id
     @Column(name = "id")
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(name = "nome", length = 100, nullable = false)
@@ -47,7 +47,13 @@ public class Autor {
     @Column(name = "data_atualizacao")
     private LocalDateTime dataAtualizacao;
 
-    @ManyToOne
+    // incrementada a cada update; usada no If-Match do PUT
+    @Version
+    @Column(name = "versao", nullable = false)
+    private Long versao;
+
+    // LAZY: nenhuma leitura da API usa o usuário; EAGER fazia um select por usuário na pesquisa de autores
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_usuario")
     private Usuario usuario;
 
@@ -21,7 +21,7 @@ public class Livro {
 
     @Id
     @Column(name = "id")
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(name = "isbn", length = 20, nullable = false)
@@ -55,6 +55,11 @@ public class Livro {
     @Column(name = "data_atualizacao")
     private LocalDateTime dataAtualizacao;
 
+    // incrementada a cada update; usada no If-Match do PUT
+    @Version
+    @Column(name = "versao", nullable = false)
+    private Long versao;
+
   /*  @ManyToOne
     @JoinColumn(name = "id_usuario")
     private Usuario usuario;*/
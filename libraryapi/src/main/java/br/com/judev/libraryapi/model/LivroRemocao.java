@@ -0,0 +1,24 @@
+package br.com.judev.libraryapi.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// tombstone de um livro removido, para a sincronização incremental (id = id do livro)
+@Entity
+@Table(name = "livro_remocao")
+@Data
+public class LivroRemocao {
+
+    @Id
+    @Column(name = "id")
+    private UUID id;
+
+    @Column(name = "data_remocao", nullable = false)
+    private LocalDateTime dataRemocao;
+}
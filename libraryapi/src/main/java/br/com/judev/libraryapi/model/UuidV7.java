@@ -0,0 +1,20 @@
+package br.com.judev.libraryapi.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/*
+ * Id gerado como UUID versão 7 (ordenado pelo horário de criação), ver GeradorUuidV7.
+ * Substitui @GeneratedValue(strategy = GenerationType.UUID), que gera UUIDs v4 aleatórios.
+ */
+@IdGeneratorType(GeradorUuidV7.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface UuidV7 {
+}
@@ -0,0 +1,7 @@
+package br.com.judev.libraryapi.mudancas;
+
+// valores da coluna outbox_mudanca.entidade
+public enum EntidadeMudanca {
+    LIVRO,
+    AUTOR
+}
@@ -0,0 +1,138 @@
+package br.com.judev.libraryapi.mudancas;
+
+import br.com.judev.libraryapi.config.CargaTrabalho;
+import br.com.judev.libraryapi.config.TipoCarga;
+import br.com.judev.libraryapi.controller.dto.MudancaDTO;
+import br.com.judev.libraryapi.controller.dto.PaginaMudancasDTO;
+import br.com.judev.libraryapi.events.TipoAlteracao;
+import br.com.judev.libraryapi.exceptions.CursorExpiradoException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Feed GET /api/v1/mudancas?desde=<posicao>: as linhas do outbox já publicadas pelo RelayMudancas,
+ * em ordem de posição.
+ *
+ * - long-poll: sem mudança depois de "desde", a requisição fica aguardando (DeferredResult, sem
+ *   prender thread do servidor) até aparecer alguma ou a espera acabar (página vazia);
+ * - quem aguarda é acordado pelo relay desta instância logo depois do commit do lote e, para os
+ *   lotes publicados por outras instâncias, por uma verificação periódica de max(posicao);
+ * - "desde" que não existe mais no outbox (removido pela retenção) -> 410: podem ter se perdido
+ *   mudanças, o consumidor precisa reler o catálogo e recomeçar do zero.
+ */
+@Component
+@Slf4j
+public class FeedMudancas {
+
+    private static final int LIMITE_MAXIMO = 1000;
+
+    private static final RowMapper<MudancaDTO> MUDANCA = (rs, rowNum) -> new MudancaDTO(
+            rs.getLong("posicao"),
+            EntidadeMudanca.valueOf(rs.getString("entidade")),
+            TipoAlteracao.valueOf(rs.getString("tipo")),
+            rs.getObject("id_registro", UUID.class),
+            rs.getString("dados"),
+            rs.getObject("data_publicacao", LocalDateTime.class));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration esperaMaxima;
+    private final Set<Espera> esperas = ConcurrentHashMap.newKeySet();
+
+    public FeedMudancas(JdbcTemplate jdbcTemplate,
+                        @Value("${libraryapi.mudancas.espera-maxima:60s}") Duration esperaMaxima) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.esperaMaxima = esperaMaxima;
+    }
+
+    public DeferredResult<PaginaMudancasDTO> acompanhar(long desde, int limite, Duration espera) {
+        int limiteEfetivo = Math.clamp(limite, 1, LIMITE_MAXIMO);
+        verificarCursor(desde);
+
+        PaginaMudancasDTO pagina = buscar(desde, limiteEfetivo);
+        if (!pagina.mudancas().isEmpty() || espera.isZero() || espera.isNegative()) {
+            DeferredResult<PaginaMudancasDTO> resultado = new DeferredResult<>();
+            resultado.setResult(pagina);
+            return resultado;
+        }
+
+        Duration esperaEfetiva = espera.compareTo(esperaMaxima) > 0 ? esperaMaxima : espera;
+        Espera aguardando = new Espera(desde, limiteEfetivo, new DeferredResult<>(esperaEfetiva.toMillis()));
+        // só quem remove a espera do conjunto responde (timeout x relay x verificação periódica)
+        aguardando.resultado().onTimeout(() -> {
+            if (esperas.remove(aguardando)) {
+                aguardando.resultado().setResult(new PaginaMudancasDTO(List.of(), desde));
+            }
+        });
+        aguardando.resultado().onCompletion(() -> esperas.remove(aguardando));
+        esperas.add(aguardando);
+        return aguardando.resultado();
+    }
+
+    // chamado pelo relay depois do commit de um lote, e periodicamente para os lotes das outras instâncias
+    @Scheduled(fixedDelayString = "${libraryapi.mudancas.feed-intervalo:1s}")
+    @CargaTrabalho(TipoCarga.AGENDADA)
+    public void notificarEsperas() {
+        if (esperas.isEmpty()) {
+            return;
+        }
+
+        Long ultima = jdbcTemplate.queryForObject("select max(posicao) from outbox_mudanca", Long.class);
+        if (ultima == null) {
+            return;
+        }
+
+        for (Espera espera : esperas) {
+            if (espera.desde() < ultima && esperas.remove(espera)) {
+                responder(espera);
+            }
+        }
+    }
+
+    private void responder(Espera espera) {
+        try {
+            espera.resultado().setResult(buscar(espera.desde(), espera.limite()));
+        } catch (RuntimeException e) {
+            log.error("Falha ao responder o feed de mudanças (desde={})", espera.desde(), e);
+            espera.resultado().setErrorResult(e);
+        }
+    }
+
+    private void verificarCursor(long desde) {
+        if (desde <= 0) {
+            return;
+        }
+        Boolean existe = jdbcTemplate.queryForObject(
+                "select exists (select 1 from outbox_mudanca where posicao = ?)", Boolean.class, desde);
+        if (!Boolean.TRUE.equals(existe)) {
+            throw new CursorExpiradoException(
+                    "Posição " + desde + " não está mais disponível no feed de mudanças. Releia o catálogo e recomece com desde=0.");
+        }
+    }
+
+    private PaginaMudancasDTO buscar(long desde, int limite) {
+        List<MudancaDTO> mudancas = jdbcTemplate.query("""
+                select posicao, entidade, tipo, id_registro, dados::text as dados, data_publicacao
+                from outbox_mudanca
+                where posicao > ?
+                order by posicao
+                limit ?
+                """, MUDANCA, desde, limite);
+        long proxima = mudancas.isEmpty() ? desde : mudancas.getLast().posicao();
+        return new PaginaMudancasDTO(mudancas, proxima);
+    }
+
+    private record Espera(long desde, int limite, DeferredResult<PaginaMudancasDTO> resultado) {
+    }
+}
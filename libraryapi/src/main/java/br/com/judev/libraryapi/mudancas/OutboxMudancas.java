@@ -0,0 +1,109 @@
+package br.com.judev.libraryapi.mudancas;
+
+import br.com.judev.libraryapi.events.AcumuladorTransacao;
+import br.com.judev.libraryapi.events.AutorAlteradoEvent;
+import br.com.judev.libraryapi.events.LivroAlteradoEvent;
+import br.com.judev.libraryapi.events.PublicadorInvalidacao;
+import br.com.judev.libraryapi.events.TipoAlteracao;
+import jakarta.persistence.EntityManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.UUID;
+
+/*
+ * Grava em outbox_mudanca, na mesma transação, cada criação/atualização/remoção de livro e autor
+ * (LivroService, AutorService e importação em lote). O RelayMudancas publica essas linhas depois.
+ *
+ * - as alterações da transação são acumuladas e gravadas em um único insert ... select no beforeCommit:
+ *   rollback = nenhuma linha no outbox; commit = alteração e linha do outbox juntas;
+ * - o snapshot (coluna dados) é lido das tabelas nesse momento, então é o estado final da transação;
+ *   na remoção fica null;
+ * - eventos republicados a partir de um NOTIFY de outra instância são ignorados: a instância de origem
+ *   já gravou o outbox.
+ */
+@Component
+public class OutboxMudancas {
+
+    private static final String INSERT = """
+            insert into outbox_mudanca (entidade, tipo, id_registro, dados)
+            select m.entidade, m.tipo, m.id,
+                   case
+                       when m.tipo = 'REMOCAO' then null
+                       when m.entidade = 'LIVRO' then (
+                           select jsonb_build_object(
+                                      'id', l.id, 'isbn', l.isbn, 'titulo', l.titulo,
+                                      'dataPublicacao', l.data_publicacao, 'genero', l.genero,
+                                      'preco', l.preco, 'idAutor', l.id_autor, 'versao', l.versao,
+                                      'dataAtualizacao', l.data_atualizacao)
+                           from livro l where l.id = m.id)
+                       else (
+                           select jsonb_build_object(
+                                      'id', a.id, 'nome', a.nome, 'dataNascimento', a.data_nascimento,
+                                      'nacionalidade', a.nacionalidade, 'versao', a.versao,
+                                      'dataAtualizacao', a.data_atualizacao)
+                           from autor a where a.id = m.id)
+                   end
+            from unnest(?::varchar[], ?::varchar[], ?::uuid[]) with ordinality as m(entidade, tipo, id, ordem)
+            order by m.ordem
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final AcumuladorTransacao<Mudanca> mudancas = new AcumuladorTransacao<>(this::gravarAntesDoCommit);
+
+    public OutboxMudancas(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    @EventListener
+    public void onLivroAlterado(LivroAlteradoEvent evento) {
+        registrar(new Mudanca(EntidadeMudanca.LIVRO, evento.tipo(), evento.id()));
+    }
+
+    @EventListener
+    public void onAutorAlterado(AutorAlteradoEvent evento) {
+        registrar(new Mudanca(EntidadeMudanca.AUTOR, evento.tipo(), evento.id()));
+    }
+
+    private void registrar(Mudanca mudanca) {
+        if (PublicadorInvalidacao.republicando()) {
+            return;
+        }
+        mudancas.adicionar(mudanca);
+    }
+
+    /*
+     * O beforeCommit roda antes do flush do commit do JPA: o flush aqui garante que o snapshot
+     * veja as alterações ainda pendentes no EntityManager. Se o insert falhar, a transação falha junto.
+     */
+    private void gravarAntesDoCommit(List<Mudanca> mudancas) {
+        if (entityManager.isJoinedToTransaction()) {
+            entityManager.flush();
+        }
+        gravar(mudancas);
+    }
+
+    private void gravar(List<Mudanca> mudancas) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT)) {
+                ps.setArray(1, connection.createArrayOf("varchar",
+                        mudancas.stream().map(m -> m.entidade().name()).toArray()));
+                ps.setArray(2, connection.createArrayOf("varchar",
+                        mudancas.stream().map(m -> m.tipo().name()).toArray()));
+                ps.setArray(3, connection.createArrayOf("uuid",
+                        mudancas.stream().map(Mudanca::id).toArray()));
+                ps.executeUpdate();
+            }
+            return null;
+        });
+    }
+
+    private record Mudanca(EntidadeMudanca entidade, TipoAlteracao tipo, UUID id) {
+    }
+}
@@ -0,0 +1,120 @@
+package br.com.judev.libraryapi.mudancas;
+
+import br.com.judev.libraryapi.config.CargaTrabalho;
+import br.com.judev.libraryapi.config.TipoCarga;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.List;
+
+/*
+ * Publica as linhas pendentes do outbox no feed, em lotes: cada linha recebe a posição pela qual
+ * os consumidores acompanham o feed (GET /api/v1/mudancas?desde=).
+ *
+ * - várias instâncias dividem o trabalho: cada uma reserva um lote com FOR UPDATE SKIP LOCKED,
+ *   pulando as linhas que outra instância já reservou;
+ * - a posição não pode ser a própria sequência do outbox: ela segue a ordem do insert, não a do commit,
+ *   e um consumidor que já leu a 11 nunca veria a 10 commitada depois. Por isso a atribuição das
+ *   posições e o commit do lote acontecem sob um advisory lock da transação: um lote só recebe
+ *   posições depois que o anterior (de qualquer instância) fez commit, e o feed nunca ganha uma
+ *   posição menor que a última já visível;
+ * - as publicadas mais antigas que a retenção são removidas, menos a última (cursor de quem está em dia).
+ */
+@Component
+@Slf4j
+@CargaTrabalho(TipoCarga.AGENDADA)
+public class RelayMudancas {
+
+    // chave do pg_advisory_xact_lock que serializa a atribuição de posições
+    private static final long LOCK_POSICAO = 0x6C69627261727901L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final FeedMudancas feed;
+    private final int tamanhoLote;
+    private final Duration retencao;
+
+    public RelayMudancas(JdbcTemplate jdbcTemplate,
+                         TransactionTemplate transactionTemplate,
+                         FeedMudancas feed,
+                         @Value("${libraryapi.mudancas.tamanho-lote:500}") int tamanhoLote,
+                         @Value("${libraryapi.mudancas.retencao:7d}") Duration retencao) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.feed = feed;
+        this.tamanhoLote = tamanhoLote;
+        this.retencao = retencao;
+    }
+
+    @Scheduled(fixedDelayString = "${libraryapi.mudancas.relay-intervalo:1s}")
+    public void publicar() {
+        int total = 0;
+        int publicadas;
+        do {
+            publicadas = transactionTemplate.execute(status -> publicarLote());
+            total += publicadas;
+        } while (publicadas == tamanhoLote);
+
+        if (total > 0) {
+            log.debug("{} mudanças publicadas no feed", total);
+            feed.notificarEsperas();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${libraryapi.mudancas.limpeza-intervalo:1h}")
+    public void limpar() {
+        int removidas = jdbcTemplate.update("""
+                delete from outbox_mudanca
+                where posicao is not null
+                  and data_publicacao < localtimestamp - make_interval(secs => ?)
+                  and posicao < (select max(posicao) from outbox_mudanca)
+                """, retencao.toSeconds());
+        if (removidas > 0) {
+            log.info("{} mudanças removidas do outbox (retenção de {})", removidas, retencao);
+        }
+    }
+
+    private int publicarLote() {
+        List<Long> sequencias = jdbcTemplate.queryForList("""
+                select sequencia
+                from outbox_mudanca
+                where posicao is null
+                order by sequencia
+                limit ?
+                for update skip locked
+                """, Long.class, tamanhoLote);
+        if (sequencias.isEmpty()) {
+            return 0;
+        }
+
+        // liberado no commit/rollback desta transação
+        jdbcTemplate.query("select pg_advisory_xact_lock(?)", rs -> null, LOCK_POSICAO);
+
+        // com o lock, ninguém mais pega valores da sequence: em ordem crescente, na ordem do outbox
+        List<Long> posicoes = jdbcTemplate.queryForList(
+                "select nextval('outbox_mudanca_posicao') as posicao from generate_series(1, ?) order by posicao",
+                Long.class, sequencias.size());
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement("""
+                    update outbox_mudanca o
+                    set posicao = n.posicao, data_publicacao = now()
+                    from unnest(?::bigint[], ?::bigint[]) as n(sequencia, posicao)
+                    where o.sequencia = n.sequencia
+                    """)) {
+                ps.setArray(1, connection.createArrayOf("bigint", sequencias.toArray()));
+                ps.setArray(2, connection.createArrayOf("bigint", posicoes.toArray()));
+                ps.executeUpdate();
+            }
+            return null;
+        });
+        return sequencias.size();
+    }
+}
@@ -1,11 +1,16 @@
 package br.com.judev.libraryapi.repository;
 
+import br.com.judev.libraryapi.controller.dto.VersaoRecursoDTO;
 import br.com.judev.libraryapi.model.Autor;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 public interface AutorRepository extends JpaRepository<Autor, UUID> {
@@ -16,4 +21,12 @@ public interface AutorRepository extends JpaRepository<Autor, UUID> {
 
     Optional<Autor> findByNomeAndDataNascimentoAndNacionalidade(
             String nome, LocalDate dataNascimento, String nacionalidade);
+
+    // GET condicional: só versão e data de atualização, sem carregar o autor (e o usuário junto)
+    @Query("select new br.com.judev.libraryapi.controller.dto.VersaoRecursoDTO(a.versao, a.dataAtualizacao) from Autor a where a.id = :id")
+    Optional<VersaoRecursoDTO> obterVersao(@Param("id") UUID id);
+
+    // select id from autor where id in (...) -> só confere a existência, sem carregar entidades
+    @Query("select a.id from Autor a where a.id in :ids")
+    Set<UUID> listarIdsCadastrados(@Param("ids") Collection<UUID> ids);
 }
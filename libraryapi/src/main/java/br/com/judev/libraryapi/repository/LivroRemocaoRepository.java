@@ -0,0 +1,38 @@
+package br.com.judev.libraryapi.repository;
+
+import br.com.judev.libraryapi.controller.dto.MarcaAlteracaoDTO;
+import br.com.judev.libraryapi.model.LivroRemocao;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface LivroRemocaoRepository extends JpaRepository<LivroRemocao, UUID> {
+
+    // insert direto: com o id já preenchido, o save() faria um select antes (merge)
+    @Modifying
+    @Query("insert into LivroRemocao (id, dataRemocao) values (:id, :data)")
+    void registrar(@Param("id") UUID id, @Param("data") LocalDateTime data);
+
+    // keyset em idx_livro_remocao_data_remocao_id: (data_remocao, id) > (:data, :id) and data_remocao <= :ate
+    @Query("""
+            select new br.com.judev.libraryapi.controller.dto.MarcaAlteracaoDTO(r.id, r.dataRemocao)
+            from LivroRemocao r
+            where (r.dataRemocao, r.id) > (:data, :id)
+              and r.dataRemocao <= :ate
+            order by r.dataRemocao, r.id
+            """)
+    List<MarcaAlteracaoDTO> listarRemocoes(@Param("data") LocalDateTime data,
+                                          @Param("id") UUID id,
+                                          @Param("ate") LocalDateTime ate,
+                                          Limit limite);
+
+    @Modifying
+    @Query("delete from LivroRemocao r where r.dataRemocao < :limite")
+    int removerAnterioresA(@Param("limite") LocalDateTime limite);
+}
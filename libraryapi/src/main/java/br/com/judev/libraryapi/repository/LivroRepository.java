@@ -1,12 +1,18 @@
 package br.com.judev.libraryapi.repository;
 
+import br.com.judev.libraryapi.config.CargaTrabalho;
+import br.com.judev.libraryapi.config.TipoCarga;
+import br.com.judev.libraryapi.controller.dto.MarcaAlteracaoDTO;
+import br.com.judev.libraryapi.controller.dto.VersaoRecursoDTO;
 import br.com.judev.libraryapi.model.Autor;
 import br.com.judev.libraryapi.model.GeneroLivro;
 import br.com.judev.libraryapi.model.Livro;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,11 +20,14 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
-public interface LivroRepository extends JpaRepository<Livro, UUID> {
+public interface LivroRepository extends JpaRepository<Livro, UUID>, JpaSpecificationExecutor<Livro>, LivroRepositoryCustom {
 
     boolean existsByAutorId(UUID autorId);
 
@@ -32,6 +41,38 @@ public interface LivroRepository extends JpaRepository<Livro, UUID> {
     // select * from livro where isbn = ?
     Optional<Livro> findByIsbn(String isbn);
 
+    // GET condicional: só as versões e datas de livro e autor, pela pk, sem montar as entidades
+    @Query("""
+            select new br.com.judev.libraryapi.controller.dto.VersaoRecursoDTO(
+                l.versao, a.versao, l.dataAtualizacao, a.dataAtualizacao)
+            from Livro l join l.autor a
+            where l.id = :id
+            """)
+    Optional<VersaoRecursoDTO> obterVersao(@Param("id") UUID id);
+
+    // sincronização incremental, keyset em idx_livro_data_atualizacao_id:
+    // where (data_atualizacao, id) > (:data, :id) and data_atualizacao <= :ate order by data_atualizacao, id
+    @Query("""
+            select new br.com.judev.libraryapi.controller.dto.MarcaAlteracaoDTO(l.id, l.dataAtualizacao)
+            from Livro l
+            where (l.dataAtualizacao, l.id) > (:data, :id)
+              and l.dataAtualizacao <= :ate
+            order by l.dataAtualizacao, l.id
+            """)
+    List<MarcaAlteracaoDTO> listarAlteracoes(@Param("data") LocalDateTime data,
+                                            @Param("id") UUID id,
+                                            @Param("ate") LocalDateTime ate,
+                                            Limit limite);
+
+    /*
+     * O resumo da sincronização leva nome, nacionalidade e nascimento do autor: alterar o autor
+     * marca os livros dele como alterados, na transação de quem chama. A versão do livro não muda
+     * (o If-Match do PUT do livro continua valendo).
+     */
+    @Modifying
+    @Query(" update Livro l set l.dataAtualizacao = :data where l.autor.id = :idAutor ")
+    int marcarAlteradosPorAutor(@Param("idAutor") UUID idAutor, @Param("data") LocalDateTime data);
+
     // select * from livro where titulo = ? and preco = ?
     List<Livro> findByTituloAndPreco(String titulo, BigDecimal preco);
 
@@ -78,13 +119,16 @@ public interface LivroRepository extends JpaRepository<Livro, UUID> {
     @Query("select l from Livro l where l.genero = ?2 order by ?1 ")
     List<Livro> findByGeneroPositionalParameters(String nomePropriedade, GeneroLivro generoLivro);
 
+    // updates/deletes em massa no pool de lotes: podem segurar a conexão por muito tempo
     @Modifying
     @Transactional
+    @CargaTrabalho(TipoCarga.LOTE)
     @Query(" delete from Livro where genero = ?1 ")
     void deleteByGenero(GeneroLivro genero);
 
     @Modifying
     @Transactional
+    @CargaTrabalho(TipoCarga.LOTE)
     @Query(" update Livro set dataPublicacao = ?1 ")
     void updateDataPublicacao(LocalDate novaData);
 
@@ -92,5 +136,9 @@ public interface LivroRepository extends JpaRepository<Livro, UUID> {
 
     boolean existsByIsbn(String isbn);
 
+    // select isbn from livro where isbn in (...) -> usado na importação, um lote por vez
+    @Query("select l.isbn from Livro l where l.isbn in :isbns")
+    Set<String> listarIsbnsCadastrados(@Param("isbns") Collection<String> isbns);
+
     Page<Livro> findAll(Specification<Livro> specs, Pageable pageRequest);
 }
@@ -0,0 +1,53 @@
+package br.com.judev.libraryapi.repository;
+
+import br.com.judev.libraryapi.controller.dto.FacetasLivroDTO;
+import br.com.judev.libraryapi.controller.dto.ResultadoPesquisaLivroDTO;
+import br.com.judev.libraryapi.model.Livro;
+import br.com.judev.libraryapi.repository.specs.FacetaLivro;
+import br.com.judev.libraryapi.repository.specs.FiltroPesquisaLivro;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Consultas de leitura que montam o ResultadoPesquisaLivroDTO direto do banco,
+ * em uma única query (livro + autor), sem carregar entidades no contexto de persistência.
+ */
+public interface LivroRepositoryCustom {
+
+    Page<ResultadoPesquisaLivroDTO> pesquisarResumo(Specification<Livro> specs, Pageable pageable);
+
+    /*
+     * Mesma página, mas com um total aproximado vindo de quem chama (cache, estimativa...).
+     * A existência da próxima página não depende dele: ver a implementação.
+     */
+    Page<ResultadoPesquisaLivroDTO> pesquisarResumoComTotalAproximado(
+            Specification<Livro> specs, Pageable pageable, LongSupplier totalAproximado);
+
+    // sem count: busca um registro a mais só para saber se existe próxima página
+    Slice<ResultadoPesquisaLivroDTO> pesquisarResumoSemContagem(Specification<Livro> specs, Pageable pageable);
+
+    List<ResultadoPesquisaLivroDTO> pesquisarResumo(Specification<Livro> specs, Sort sort, int limite);
+
+    Optional<ResultadoPesquisaLivroDTO> obterResumoPorId(UUID id);
+
+    // sem ordem garantida: quem chama reordena se precisar
+    List<ResultadoPesquisaLivroDTO> obterResumosPorIds(Collection<UUID> ids);
+
+    long contar(Specification<Livro> specs);
+
+    // contagens por faceta para o mesmo filtro da pesquisa, em uma única query
+    FacetasLivroDTO contarFacetas(FiltroPesquisaLivro filtro, Set<FacetaLivro> facetas);
+
+    // estimativa de linhas do planner do Postgres para o filtro, sem executar a consulta
+    long estimarTotal(FiltroPesquisaLivro filtro);
+}
@@ -0,0 +1,291 @@
+package br.com.judev.libraryapi.repository;
+
+import br.com.judev.libraryapi.controller.dto.AutorDTO;
+import br.com.judev.libraryapi.controller.dto.FacetasLivroDTO;
+import br.com.judev.libraryapi.controller.dto.ResultadoPesquisaLivroDTO;
+import br.com.judev.libraryapi.model.Autor;
+import br.com.judev.libraryapi.model.GeneroLivro;
+import br.com.judev.libraryapi.model.Livro;
+import br.com.judev.libraryapi.repository.specs.FacetaLivro;
+import br.com.judev.libraryapi.repository.specs.FiltroPesquisaLivro;
+import br.com.judev.libraryapi.repository.specs.LivroFiltroSql;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * Implementação do fragmento LivroRepositoryCustom (o Spring Data encontra pelo sufixo "Impl").
+ *
+ * A consulta seleciona só as colunas do DTO, com LEFT JOIN no autor:
+ *
+ * select l.id, l.isbn, l.titulo, l.data_publicacao, l.genero, l.preco,
+ *        a.id, a.nome, a.data_nascimento, a.nacionalidade
+ * from livro l
+ * left join autor a on a.id = l.id_autor
+ * where <specs>
+ *
+ * Assim uma página de 100 livros custa 1 select (+ 1 count), e não 1 + 100 selects de autor.
+ */
+class LivroRepositoryCustomImpl implements LivroRepositoryCustom {
+
+    private static final Pattern PLAN_ROWS = Pattern.compile("\"Plan Rows\"\\s*:\\s*(\\d+)");
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    LivroRepositoryCustomImpl(EntityManager entityManager, JdbcTemplate jdbcTemplate) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Page<ResultadoPesquisaLivroDTO> pesquisarResumo(Specification<Livro> specs, Pageable pageable) {
+        List<ResultadoPesquisaLivroDTO> conteudo = buscarPagina(specs, pageable, pageable.getPageSize());
+
+        // o total só é calculado quando não dá para deduzir pela própria página
+        return PageableExecutionUtils.getPage(conteudo, pageable, () -> contar(specs));
+    }
+
+    /*
+     * Com um total aproximado o PageImpl não serve de juiz: se o total for menor que offset + tamanho
+     * da página, ele é cortado em offset + conteúdo e a página cheia vira a última, com mais livros
+     * pela frente. Então a próxima página é decidida por um registro a mais, como no Slice:
+     * - há próxima: total aproximado, mas no mínimo offset + tamanho da página + 1;
+     * - não há: o total sai exato da própria página, sem consultar o aproximado;
+     * - página vazia depois do fim: aproximado limitado ao offset (sem próxima página).
+     */
+    @Override
+    public Page<ResultadoPesquisaLivroDTO> pesquisarResumoComTotalAproximado(
+            Specification<Livro> specs, Pageable pageable, LongSupplier totalAproximado) {
+        int tamanho = pageable.getPageSize();
+        List<ResultadoPesquisaLivroDTO> conteudo = buscarPagina(specs, pageable, tamanho + 1);
+
+        if (conteudo.size() > tamanho) {
+            long minimo = pageable.getOffset() + tamanho + 1;
+            return new PageImpl<>(conteudo.subList(0, tamanho), pageable, Math.max(totalAproximado.getAsLong(), minimo));
+        }
+        if (conteudo.isEmpty() && pageable.getOffset() > 0) {
+            return new PageImpl<>(conteudo, pageable, Math.min(totalAproximado.getAsLong(), pageable.getOffset()));
+        }
+        return new PageImpl<>(conteudo, pageable, pageable.getOffset() + conteudo.size());
+    }
+
+    @Override
+    public Slice<ResultadoPesquisaLivroDTO> pesquisarResumoSemContagem(Specification<Livro> specs, Pageable pageable) {
+        List<ResultadoPesquisaLivroDTO> conteudo = buscarPagina(specs, pageable, pageable.getPageSize() + 1);
+
+        boolean temProxima = conteudo.size() > pageable.getPageSize();
+        if (temProxima) {
+            conteudo = conteudo.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(conteudo, pageable, temProxima);
+    }
+
+    @Override
+    public List<ResultadoPesquisaLivroDTO> pesquisarResumo(Specification<Livro> specs, Sort sort, int limite) {
+        return entityManager.createQuery(montarConsulta(specs, sort))
+                .setMaxResults(limite)
+                .getResultList()
+                .stream()
+                .map(this::toDTO)
+                .toList();
+    }
+
+    @Override
+    public Optional<ResultadoPesquisaLivroDTO> obterResumoPorId(UUID id) {
+        Specification<Livro> porId = (root, query, cb) -> cb.equal(root.get("id"), id);
+        return pesquisarResumo(porId, Sort.unsorted(), 1).stream().findFirst();
+    }
+
+    @Override
+    public List<ResultadoPesquisaLivroDTO> obterResumosPorIds(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Specification<Livro> porIds = (root, query, cb) -> root.get("id").in(ids);
+        return pesquisarResumo(porIds, Sort.unsorted(), ids.size());
+    }
+
+    @Override
+    public long contar(Specification<Livro> specs) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Livro> root = query.from(Livro.class);
+        query.select(cb.count(root));
+
+        Predicate predicate = specs.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    /*
+     * Pede ao Postgres só o plano da consulta (EXPLAIN, sem ANALYZE) e usa o "Plan Rows"
+     * do nó raiz, que o planner calcula a partir das estatísticas da tabela (pg_statistic).
+     * Custa o mesmo que planejar a query, não importa quantas linhas ela traria.
+     */
+    @Override
+    public long estimarTotal(FiltroPesquisaLivro filtro) {
+        LivroFiltroSql where = LivroFiltroSql.de(filtro);
+        String plano = jdbcTemplate.queryForObject(
+                "explain (format json) select l.id" + LivroFiltroSql.FROM + "where " + where.clausula(),
+                String.class,
+                where.parametros());
+
+        Matcher matcher = PLAN_ROWS.matcher(plano == null ? "" : plano);
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : 0L;
+    }
+
+    /*
+     * Todas as facetas pedidas em uma única passada sobre as linhas filtradas, com GROUPING SETS:
+     *
+     * select l.genero as f0, <ano> as f1, a.nacionalidade as f2,
+     *        grouping(l.genero) as g0, grouping(<ano>) as g1, grouping(a.nacionalidade) as g2, count(*)
+     * from livro l left join autor a on a.id = l.id_autor
+     * where <filtro>
+     * group by grouping sets ((l.genero), (<ano>), (a.nacionalidade))
+     *
+     * Cada linha pertence a um único conjunto: aquele cujo grouping(...) é 0.
+     * Valores nulos (livro sem data ou sem autor) não entram nas contagens.
+     */
+    @Override
+    public FacetasLivroDTO contarFacetas(FiltroPesquisaLivro filtro, Set<FacetaLivro> facetas) {
+        List<FacetaLivro> pedidas = facetas.stream().sorted().toList();
+        if (pedidas.isEmpty()) {
+            return new FacetasLivroDTO(null, null, null);
+        }
+
+        StringBuilder select = new StringBuilder("select ");
+        StringBuilder gruposFaceta = new StringBuilder();
+        for (int i = 0; i < pedidas.size(); i++) {
+            String expressao = pedidas.get(i).expressao();
+            select.append(expressao).append(" as f").append(i).append(", ")
+                    .append("grouping(").append(expressao).append(") as g").append(i).append(", ");
+            gruposFaceta.append(i > 0 ? ", " : "").append("(").append(expressao).append(")");
+        }
+        select.append("count(*) as total");
+
+        LivroFiltroSql where = LivroFiltroSql.de(filtro);
+        String sql = select + LivroFiltroSql.FROM
+                + "where " + where.clausula()
+                + " group by grouping sets (" + gruposFaceta + ")"
+                + " order by total desc";
+
+        Map<FacetaLivro, Map<Object, Long>> contagens = new EnumMap<>(FacetaLivro.class);
+        pedidas.forEach(faceta -> contagens.put(faceta, new LinkedHashMap<>()));
+
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            for (int i = 0; i < pedidas.size(); i++) {
+                if (rs.getInt("g" + i) == 0) {
+                    Object valor = rs.getObject("f" + i);
+                    if (valor != null) {
+                        contagens.get(pedidas.get(i)).put(valor, rs.getLong("total"));
+                    }
+                    return;
+                }
+            }
+        }, where.parametros());
+
+        return new FacetasLivroDTO(
+                converterChaves(contagens.get(FacetaLivro.GENERO), valor -> GeneroLivro.valueOf((String) valor)),
+                converterChaves(contagens.get(FacetaLivro.ANO_PUBLICACAO), valor -> ((Number) valor).intValue()),
+                converterChaves(contagens.get(FacetaLivro.NACIONALIDADE), valor -> (String) valor));
+    }
+
+    private static <T> Map<T, Long> converterChaves(Map<Object, Long> contagem, Function<Object, T> conversor) {
+        if (contagem == null) {
+            return null;
+        }
+        Map<T, Long> convertido = new LinkedHashMap<>();
+        contagem.forEach((valor, total) -> convertido.put(conversor.apply(valor), total));
+        return convertido;
+    }
+
+    private List<ResultadoPesquisaLivroDTO> buscarPagina(Specification<Livro> specs, Pageable pageable, int limite) {
+        TypedQuery<Tuple> query = entityManager.createQuery(montarConsulta(specs, pageable.getSort()));
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(limite);
+        }
+        return query.getResultList().stream().map(this::toDTO).toList();
+    }
+
+    private CriteriaQuery<Tuple> montarConsulta(Specification<Livro> specs, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Livro> root = query.from(Livro.class);
+        Join<Livro, Autor> autor = root.join("autor", JoinType.LEFT);
+
+        query.select(cb.tuple(
+                root.get("id").alias("id"),
+                root.get("isbn").alias("isbn"),
+                root.get("titulo").alias("titulo"),
+                root.get("dataPublicacao").alias("dataPublicacao"),
+                root.get("genero").alias("genero"),
+                root.get("preco").alias("preco"),
+                autor.get("id").alias("idAutor"),
+                autor.get("nome").alias("nomeAutor"),
+                autor.get("dataNascimento").alias("dataNascimentoAutor"),
+                autor.get("nacionalidade").alias("nacionalidadeAutor")));
+
+        Predicate predicate = specs.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        return query;
+    }
+
+    private ResultadoPesquisaLivroDTO toDTO(Tuple tuple) {
+        UUID idAutor = tuple.get("idAutor", UUID.class);
+        AutorDTO autor = idAutor == null ? null : new AutorDTO(
+                idAutor,
+                tuple.get("nomeAutor", String.class),
+                tuple.get("dataNascimentoAutor", LocalDate.class),
+                tuple.get("nacionalidadeAutor", String.class));
+
+        return new ResultadoPesquisaLivroDTO(
+                tuple.get("id", UUID.class),
+                tuple.get("isbn", String.class),
+                tuple.get("titulo", String.class),
+                tuple.get("dataPublicacao", LocalDate.class),
+                tuple.get("genero", GeneroLivro.class),
+                tuple.get("preco", BigDecimal.class),
+                autor);
+    }
+}
@@ -0,0 +1,22 @@
+package br.com.judev.libraryapi.repository.specs;
+
+/*
+ * Contagens que podem ser pedidas junto com a pesquisa de livros (parâmetro "facetas").
+ * Cada faceta tem a expressão SQL usada no agrupamento (aliases de LivroFiltroSql).
+ */
+public enum FacetaLivro {
+
+    GENERO("l.genero"),
+    ANO_PUBLICACAO("cast(extract(year from l.data_publicacao) as integer)"),
+    NACIONALIDADE("a.nacionalidade");
+
+    private final String expressao;
+
+    FacetaLivro(String expressao) {
+        this.expressao = expressao;
+    }
+
+    public String expressao() {
+        return expressao;
+    }
+}
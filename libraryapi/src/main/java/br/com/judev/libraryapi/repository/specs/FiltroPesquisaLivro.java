@@ -0,0 +1,67 @@
+package br.com.judev.libraryapi.repository.specs;
+
+import br.com.judev.libraryapi.model.GeneroLivro;
+import br.com.judev.libraryapi.model.Livro;
+import org.springframework.data.jpa.domain.Specification;
+
+import static br.com.judev.libraryapi.repository.specs.LivroSpecs.*;
+
+/*
+ * Conjunto de filtros da pesquisa de livros (isbn, titulo, nome autor, genero, ano de publicação).
+ *
+ * Depois de normalizado, serve também como chave: duas pesquisas com o mesmo filtro
+ * normalizado trazem o mesmo resultado (ex.: cache do total de registros).
+ */
+public record FiltroPesquisaLivro(
+        String isbn,
+        String titulo,
+        String nomeAutor,
+        GeneroLivro genero,
+        Integer anoPublicacao
+) {
+
+    /*
+     * Remove espaços das pontas, troca texto vazio por null e coloca em maiúsculas
+     * os filtros que já são case-insensitive (titulo e nome do autor).
+     */
+    public FiltroPesquisaLivro normalizado() {
+        return new FiltroPesquisaLivro(
+                limpar(isbn),
+                maiusculo(limpar(titulo)),
+                maiusculo(limpar(nomeAutor)),
+                genero,
+                anoPublicacao);
+    }
+
+    public Specification<Livro> toSpecification() {
+        Specification<Livro> specs = Specification.where((root, query, cb) -> cb.conjunction());
+
+        if (isbn != null && !isbn.isBlank()) {
+            specs = specs.and(isbnEqual(isbn));
+        }
+        if (titulo != null && !titulo.isBlank()) {
+            specs = specs.and(tituloLike(titulo));
+        }
+        if (genero != null) {
+            specs = specs.and(generoEqual(genero));
+        }
+        if (anoPublicacao != null) {
+            specs = specs.and(anoPublicacaoEqual(anoPublicacao));
+        }
+        if (nomeAutor != null && !nomeAutor.isBlank()) {
+            specs = specs.and(nomeAutorLike(nomeAutor));
+        }
+        return specs;
+    }
+
+    private static String limpar(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        return valor.trim();
+    }
+
+    private static String maiusculo(String valor) {
+        return valor == null ? null : valor.toUpperCase();
+    }
+}
@@ -0,0 +1,52 @@
+package br.com.judev.libraryapi.repository.specs;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Versão SQL nativa dos mesmos filtros de LivroSpecs, para as consultas feitas via JDBC
+ * (ex.: EXPLAIN para estimar o total de registros).
+ *
+ * Os aliases esperados são "l" para livro e "a" para autor:
+ * from livro l left join autor a on a.id = l.id_autor where <clausula>
+ *
+ * Um filtro novo em FiltroPesquisaLivro entra aqui também; o LivroFiltroSqlTest confere que os dois
+ * caminhos trazem os mesmos livros.
+ */
+public record LivroFiltroSql(String clausula, Object[] parametros) {
+
+    public static final String FROM = " from livro l left join autor a on a.id = l.id_autor ";
+
+    public static LivroFiltroSql de(FiltroPesquisaLivro filtro) {
+        FiltroPesquisaLivro f = filtro.normalizado();
+        List<String> condicoes = new ArrayList<>();
+        List<Object> parametros = new ArrayList<>();
+
+        condicoes.add("1 = 1");
+        if (f.isbn() != null) {
+            condicoes.add("l.isbn = ?");
+            parametros.add(f.isbn());
+        }
+        if (f.titulo() != null) {
+            condicoes.add("upper(l.titulo) like ?");
+            parametros.add("%" + f.titulo() + "%");
+        }
+        if (f.genero() != null) {
+            condicoes.add("l.genero = ?");
+            parametros.add(f.genero().name());
+        }
+        if (f.anoPublicacao() != null) {
+            LocalDate inicioAno = LivroSpecs.inicioAno(f.anoPublicacao());
+            condicoes.add("l.data_publicacao >= ? and l.data_publicacao < ?");
+            parametros.add(inicioAno);
+            parametros.add(inicioAno.plusYears(1));
+        }
+        if (f.nomeAutor() != null) {
+            condicoes.add("upper(a.nome) like ?");
+            parametros.add("%" + f.nomeAutor() + "%");
+        }
+
+        return new LivroFiltroSql(String.join(" and ", condicoes), parametros.toArray());
+    }
+}
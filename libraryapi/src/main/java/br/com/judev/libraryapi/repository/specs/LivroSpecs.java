@@ -1,12 +1,21 @@
 package br.com.judev.libraryapi.repository.specs;
 
+import br.com.judev.libraryapi.exceptions.CampoInvalidoException;
 import br.com.judev.libraryapi.model.GeneroLivro;
 import br.com.judev.libraryapi.model.Livro;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.time.LocalDate;
+import java.util.UUID;
+
 public class LivroSpecs {
+
+    private static final int ANO_MINIMO = 1;
+    private static final int ANO_MAXIMO = 9999;
+
     /*
      * Filtra livros por ISBN exato.
      * SQL aproximado: where livro.isbn = :isbn
@@ -20,6 +29,8 @@ public class LivroSpecs {
      *
      * SQL aproximado:
      * where upper(livro.titulo) like '%TEXTO%'
+     *
+     * Atendido pelo índice trigram idx_livro_titulo_upper_trgm (db/migration/V2__indices_pesquisa.sql).
      */
     public static Specification<Livro> tituloLike(String titulo){
         // upper(livro.titulo) like (%:param%)
@@ -35,21 +46,33 @@ public class LivroSpecs {
     }
 
     /*
-     * Filtra pelo nome do autor (case-insensitive), fazendo JOIN com a tabela/entidade Autor.
+     * Filtra pelo ano de publicação usando uma faixa de datas semiaberta [01/01/ano, 01/01/ano+1).
      *
-     * root.join("autor", JoinType.INNER) cria um INNER JOIN entre Livro e Autor,
-     * permitindo filtrar por campos do autor.
+     * Comparar to_char(data_publicacao, 'YYYY') com texto obrigava o banco a calcular a função
+     * em todas as linhas (seq scan); com a faixa, o índice idx_livro_data_publicacao é usado.
      *
      * SQL aproximado:
-     * from livro
-     * join autor on autor.id = livro.id_autor
-     * where upper(autor.nome) like '%NOME%'
+     * where livro.data_publicacao >= '2000-01-01' and livro.data_publicacao < '2001-01-01'
      */
     public static Specification<Livro> anoPublicacaoEqual(Integer anoPublicacao){
-        // and to_char(data_publicacao, 'YYYY') = :anoPublicacao
-        return (root, query, cb) ->
-                cb.equal( cb.function("to_char", String.class,
-                        root.get("dataPublicacao"), cb.literal("YYYY")),anoPublicacao.toString());
+        LocalDate inicioAno = inicioAno(anoPublicacao);
+        LocalDate inicioProximoAno = inicioAno.plusYears(1);
+        return (root, query, cb) -> cb.and(
+                cb.greaterThanOrEqualTo(root.<LocalDate>get("dataPublicacao"), inicioAno),
+                cb.lessThan(root.<LocalDate>get("dataPublicacao"), inicioProximoAno));
+    }
+
+    /*
+     * Primeiro dia do ano do filtro, também usado pelo LivroFiltroSql.
+     * Fora de 1..9999 o LocalDate.of lançaria DateTimeException (500) ou o Postgres recusaria a data:
+     * o ano é recusado como campo inválido (422).
+     */
+    static LocalDate inicioAno(Integer anoPublicacao){
+        if (anoPublicacao < ANO_MINIMO || anoPublicacao > ANO_MAXIMO) {
+            throw new CampoInvalidoException("ano-publicacao",
+                    "O ano de publicação deve estar entre " + ANO_MINIMO + " e " + ANO_MAXIMO + ".");
+        }
+        return LocalDate.of(anoPublicacao, 1, 1);
     }
 
     /*
@@ -62,14 +85,43 @@ public class LivroSpecs {
      * from livro
      * join autor on autor.id = livro.id_autor
      * where upper(autor.nome) like '%NOME%'
+     *
+     * Atendido pelo índice trigram idx_autor_nome_upper_trgm (db/migration/V2__indices_pesquisa.sql).
      */
     public static Specification<Livro> nomeAutorLike(String nome){
         return (root, query, cb) -> {
-            Join<Object, Object> joinAutor = root.join("autor", JoinType.INNER);
+            Join<?, ?> joinAutor = joinAutor(root);
             return cb.like( cb.upper(joinAutor.get("nome")), "%" + nome.toUpperCase() + "%" );
 //            return cb.like( cb.upper(root.get("autor").get("nome")), "%" + nome.toUpperCase() + "%" );
         };
     }
+
+    /*
+     * Reaproveita o join com autor se a consulta já tiver um (ex.: a projeção de
+     * LivroRepositoryCustomImpl), evitando juntar a mesma tabela duas vezes.
+     */
+    private static Join<?, ?> joinAutor(Root<Livro> root){
+        return root.getJoins()
+                .stream()
+                .filter(join -> join.getAttribute().getName().equals("autor"))
+                .findFirst()
+                .orElseGet(() -> root.join("autor", JoinType.INNER));
+    }
+
+    /*
+     * Keyset pagination: traz somente os livros depois do último (titulo, id) visto.
+     * Deve ser usado junto com a ordenação "titulo, id" para que o cursor seja estável.
+     *
+     * SQL aproximado:
+     * where (livro.titulo > :titulo) or (livro.titulo = :titulo and livro.id > :id)
+     */
+    public static Specification<Livro> aposCursor(String titulo, UUID id){
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.<String>get("titulo"), titulo),
+                cb.and(
+                        cb.equal(root.get("titulo"), titulo),
+                        cb.greaterThan(root.<UUID>get("id"), id)));
+    }
 }
 
 ///*
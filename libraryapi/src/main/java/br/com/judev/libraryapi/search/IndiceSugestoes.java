@@ -0,0 +1,221 @@
+package br.com.judev.libraryapi.search;
+
+import br.com.judev.libraryapi.events.AutorAlteradoEvent;
+import br.com.judev.libraryapi.events.InvalidacaoPerdidaEvent;
+import br.com.judev.libraryapi.events.LivroAlteradoEvent;
+import br.com.judev.libraryapi.events.TipoAlteracao;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Autocomplete de títulos e nomes de autores (GET /api/v1/sugestoes?prefixo=).
+ *
+ * Uma TrieTopK para títulos e outra para autores. Cada texto entra na trie pelo começo de
+ * cada palavra ("Dom Casmurro" -> "dom casmurro", "casmurro"), então "casm" também acha o livro.
+ * Cada termo entra só com os primeiros TAMANHO_MAXIMO_TERMO caracteres: a trie cresce com
+ * palavras x TAMANHO_MAXIMO_TERMO nós por texto no pior caso (menos, com os começos em comum),
+ * e não com o tamanho do título inteiro a partir de cada palavra.
+ *
+ * Ordem das sugestões:
+ * - títulos: mais curtos primeiro, depois ordem alfabética;
+ * - autores: quem tem mais livros primeiro, depois nome mais curto.
+ *
+ * Carregado no startup e mantido pelos mesmos eventos do IndiceTextoLivros.
+ */
+@Component
+@Slf4j
+public class IndiceSugestoes {
+
+    /*
+     * Profundidade da trie. Prefixo maior que isso é buscado pelo começo e conferido no texto de cada
+     * sugestão; como a trie só guarda as topK do começo, um prefixo longo pode trazer menos sugestões
+     * do que existem (nessa altura do texto quase sempre sobra uma ou nenhuma).
+     */
+    static final int TAMANHO_MAXIMO_TERMO = 16;
+
+    private static final Comparator<Sugestao> ORDEM = Comparator
+            .comparingInt(Sugestao::peso).reversed()
+            .thenComparingInt(sugestao -> sugestao.texto().length())
+            .thenComparing(Sugestao::texto)
+            .thenComparing(Sugestao::id);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int topK;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TrieTopK<UUID, Sugestao> titulos;
+    private final TrieTopK<UUID, Sugestao> autores;
+
+    // necessários para manter o peso dos autores (quantidade de livros)
+    private final Map<UUID, UUID> autorPorLivro = new HashMap<>();
+    private final Map<UUID, String> nomePorAutor = new HashMap<>();
+    private final Map<UUID, Integer> quantidadeLivrosPorAutor = new HashMap<>();
+
+    public IndiceSugestoes(JdbcTemplate jdbcTemplate,
+                           @Value("${libraryapi.sugestoes.top-k:10}") int topK) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.topK = topK;
+        this.titulos = new TrieTopK<>(topK, ORDEM);
+        this.autores = new TrieTopK<>(topK, ORDEM);
+    }
+
+    // também recarrega quando mensagens de invalidação de outras instâncias podem ter se perdido
+    @EventListener({ApplicationReadyEvent.class, InvalidacaoPerdidaEvent.class})
+    public void carregar() {
+        long inicio = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            titulos.limpar();
+            autores.limpar();
+            autorPorLivro.clear();
+            nomePorAutor.clear();
+            quantidadeLivrosPorAutor.clear();
+
+            jdbcTemplate.query("select id, titulo, id_autor from livro", (RowCallbackHandler) rs -> {
+                UUID id = rs.getObject("id", UUID.class);
+                String titulo = rs.getString("titulo");
+                UUID idAutor = rs.getObject("id_autor", UUID.class);
+                titulos.adicionarSemRecalcular(id, new Sugestao(id, titulo, 0), termos(titulo));
+                if (idAutor != null) {
+                    autorPorLivro.put(id, idAutor);
+                    quantidadeLivrosPorAutor.merge(idAutor, 1, Integer::sum);
+                }
+            });
+            jdbcTemplate.query("select id, nome from autor", (RowCallbackHandler) rs -> {
+                UUID id = rs.getObject("id", UUID.class);
+                String nome = rs.getString("nome");
+                nomePorAutor.put(id, nome);
+                autores.adicionarSemRecalcular(id, sugestaoAutor(id, nome), termos(nome));
+            });
+
+            titulos.recalcularTudo();
+            autores.recalcularTudo();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice de sugestões carregado: {} títulos ({} nós), {} autores ({} nós) em {} ms",
+                titulos.tamanho(), titulos.nos(), autores.tamanho(), autores.nos(), System.currentTimeMillis() - inicio);
+    }
+
+    public List<Sugestao> sugerirTitulos(String prefixo, int limite) {
+        return sugerir(titulos, prefixo, limite);
+    }
+
+    public List<Sugestao> sugerirAutores(String prefixo, int limite) {
+        return sugerir(autores, prefixo, limite);
+    }
+
+    private List<Sugestao> sugerir(TrieTopK<UUID, Sugestao> trie, String prefixo, int limite) {
+        String chave = String.join(" ", NormalizadorTexto.tokenizar(prefixo));
+        if (chave.isEmpty() || limite < 1) {
+            return List.of();
+        }
+
+        List<Sugestao> sugestoes;
+        lock.readLock().lock();
+        try {
+            if (chave.length() <= TAMANHO_MAXIMO_TERMO) {
+                return trie.buscar(chave, Math.min(limite, topK));
+            }
+            sugestoes = trie.buscar(chave.substring(0, TAMANHO_MAXIMO_TERMO), topK);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return sugestoes.stream()
+                .filter(sugestao -> comecaPalavraCom(sugestao.texto(), chave))
+                .limit(limite)
+                .toList();
+    }
+
+    // "Dom Casmurro", "casmurro" -> true; "Dom Casmurro", "asmurro" -> false
+    static boolean comecaPalavraCom(String texto, String prefixo) {
+        String normalizado = String.join(" ", NormalizadorTexto.tokenizar(texto));
+        return normalizado.startsWith(prefixo) || normalizado.contains(" " + prefixo);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLivroAlterado(LivroAlteradoEvent evento) {
+        lock.writeLock().lock();
+        try {
+            UUID idAutorAnterior;
+            UUID idAutorAtual = null;
+            if (evento.tipo() == TipoAlteracao.REMOCAO) {
+                titulos.remover(evento.id());
+                idAutorAnterior = autorPorLivro.remove(evento.id());
+            } else {
+                titulos.adicionar(evento.id(), new Sugestao(evento.id(), evento.titulo(), 0), termos(evento.titulo()));
+                idAutorAtual = evento.idAutor();
+                idAutorAnterior = idAutorAtual != null
+                        ? autorPorLivro.put(evento.id(), idAutorAtual)
+                        : autorPorLivro.remove(evento.id());
+            }
+
+            if (idAutorAnterior != null && !idAutorAnterior.equals(idAutorAtual)) {
+                alterarQuantidadeLivros(idAutorAnterior, -1);
+            }
+            if (idAutorAtual != null && !idAutorAtual.equals(idAutorAnterior)) {
+                alterarQuantidadeLivros(idAutorAtual, 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAutorAlterado(AutorAlteradoEvent evento) {
+        lock.writeLock().lock();
+        try {
+            if (evento.tipo() == TipoAlteracao.REMOCAO) {
+                autores.remover(evento.id());
+                nomePorAutor.remove(evento.id());
+                quantidadeLivrosPorAutor.remove(evento.id());
+            } else {
+                nomePorAutor.put(evento.id(), evento.nome());
+                autores.adicionar(evento.id(), sugestaoAutor(evento.id(), evento.nome()), termos(evento.nome()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void alterarQuantidadeLivros(UUID idAutor, int delta) {
+        quantidadeLivrosPorAutor.merge(idAutor, delta, (atual, d) -> atual + d > 0 ? atual + d : null);
+        String nome = nomePorAutor.get(idAutor);
+        if (nome != null) {
+            autores.adicionar(idAutor, sugestaoAutor(idAutor, nome), termos(nome));
+        }
+    }
+
+    private Sugestao sugestaoAutor(UUID id, String nome) {
+        return new Sugestao(id, nome, quantidadeLivrosPorAutor.getOrDefault(id, 0));
+    }
+
+    // "O Cortiço" -> ["o cortico", "cortico"]
+    static List<String> termos(String texto) {
+        List<String> tokens = NormalizadorTexto.tokenizar(texto);
+        Set<String> termos = new LinkedHashSet<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            String termo = String.join(" ", tokens.subList(i, tokens.size()));
+            termos.add(termo.length() > TAMANHO_MAXIMO_TERMO ? termo.substring(0, TAMANHO_MAXIMO_TERMO) : termo);
+        }
+        return new ArrayList<>(termos);
+    }
+}
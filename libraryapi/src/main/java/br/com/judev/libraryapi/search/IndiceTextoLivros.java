@@ -0,0 +1,242 @@
+package br.com.judev.libraryapi.search;
+
+import br.com.judev.libraryapi.events.AutorAlteradoEvent;
+import br.com.judev.libraryapi.events.InvalidacaoPerdidaEvent;
+import br.com.judev.libraryapi.events.LivroAlteradoEvent;
+import br.com.judev.libraryapi.events.TipoAlteracao;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Índice invertido em memória sobre Livro.titulo e Autor.nome.
+ *
+ * - termo -> livros que têm o termo no título
+ * - termo -> autores que têm o termo no nome (e autor -> livros)
+ *
+ * Os termos são normalizados (sem acento, minúsculos) pelo NormalizadorTexto.
+ * O índice é carregado no startup e mantido pelos eventos de LivroService/AutorService,
+ * aplicados só depois do commit. A busca não vai ao banco: devolve os ids em ordem de relevância.
+ */
+@Component
+@Slf4j
+public class IndiceTextoLivros {
+
+    // um termo no título vale mais que o mesmo termo no nome do autor
+    private static final double PESO_TITULO = 2.0;
+    private static final double PESO_AUTOR = 1.0;
+    // o último termo digitado também casa por prefixo ("dom cas" -> "dom casmurro"), valendo menos
+    private static final double FATOR_PREFIXO = 0.5;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final NavigableMap<String, Set<UUID>> livrosPorTermo = new TreeMap<>();
+    private final NavigableMap<String, Set<UUID>> autoresPorTermo = new TreeMap<>();
+    private final Map<UUID, DocumentoLivro> livros = new HashMap<>();
+    private final Map<UUID, List<String>> termosPorAutor = new HashMap<>();
+    private final Map<UUID, Set<UUID>> livrosPorAutor = new HashMap<>();
+
+    public IndiceTextoLivros(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /*
+     * Lê só as colunas indexadas via JDBC (sem entidades no contexto de persistência).
+     */
+    // também recarrega quando mensagens de invalidação de outras instâncias podem ter se perdido
+    @EventListener({ApplicationReadyEvent.class, InvalidacaoPerdidaEvent.class})
+    public void carregar() {
+        long inicio = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            livrosPorTermo.clear();
+            autoresPorTermo.clear();
+            livros.clear();
+            termosPorAutor.clear();
+            livrosPorAutor.clear();
+
+            jdbcTemplate.query("select id, nome from autor", (RowCallbackHandler) rs ->
+                    indexarAutor(rs.getObject("id", UUID.class), rs.getString("nome")));
+            jdbcTemplate.query("select id, titulo, id_autor from livro", (RowCallbackHandler) rs ->
+                    indexarLivro(rs.getObject("id", UUID.class), rs.getString("titulo"),
+                            rs.getObject("id_autor", UUID.class)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice de texto carregado: {} livros, {} termos em {} ms",
+                livros.size(), livrosPorTermo.size() + autoresPorTermo.size(),
+                System.currentTimeMillis() - inicio);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLivroAlterado(LivroAlteradoEvent evento) {
+        lock.writeLock().lock();
+        try {
+            if (evento.tipo() == TipoAlteracao.REMOCAO) {
+                removerLivro(evento.id());
+            } else {
+                indexarLivro(evento.id(), evento.titulo(), evento.idAutor());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAutorAlterado(AutorAlteradoEvent evento) {
+        lock.writeLock().lock();
+        try {
+            if (evento.tipo() == TipoAlteracao.REMOCAO) {
+                removerAutor(evento.id());
+            } else {
+                indexarAutor(evento.id(), evento.nome());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * Todos os termos da consulta precisam aparecer no título ou no nome do autor (AND).
+     * Pontuação do livro = soma, por termo, do melhor casamento (título > autor, exato > prefixo).
+     * Empates são resolvidos pelo título.
+     */
+    public List<UUID> buscar(String consulta, int limite) {
+        List<String> termos = NormalizadorTexto.tokenizar(consulta);
+        if (termos.isEmpty() || limite < 1) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<UUID, Double> pontos = null;
+            for (int i = 0; i < termos.size(); i++) {
+                boolean ultimoTermo = i == termos.size() - 1;
+                Map<UUID, Double> pontosTermo = pontuar(termos.get(i), ultimoTermo);
+
+                if (pontos == null) {
+                    pontos = pontosTermo;
+                } else {
+                    pontos.keySet().retainAll(pontosTermo.keySet());
+                    pontos.replaceAll((id, valor) -> valor + pontosTermo.get(id));
+                }
+                if (pontos.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            Map<UUID, Double> resultado = pontos;
+            return resultado.keySet()
+                    .stream()
+                    .sorted(Comparator.<UUID>comparingDouble(resultado::get).reversed()
+                            .thenComparing(id -> livros.get(id).titulo())
+                            .thenComparing(Comparator.naturalOrder()))
+                    .limit(limite)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<UUID, Double> pontuar(String termo, boolean aceitaPrefixo) {
+        Map<UUID, Double> pontos = new HashMap<>();
+
+        for (UUID idLivro : livrosPorTermo.getOrDefault(termo, Set.of())) {
+            pontos.merge(idLivro, PESO_TITULO, Math::max);
+        }
+        for (UUID idAutor : autoresPorTermo.getOrDefault(termo, Set.of())) {
+            for (UUID idLivro : livrosPorAutor.getOrDefault(idAutor, Set.of())) {
+                pontos.merge(idLivro, PESO_AUTOR, Math::max);
+            }
+        }
+
+        if (aceitaPrefixo) {
+            for (Set<UUID> ids : comPrefixo(livrosPorTermo, termo).values()) {
+                for (UUID idLivro : ids) {
+                    pontos.merge(idLivro, PESO_TITULO * FATOR_PREFIXO, Math::max);
+                }
+            }
+            for (Set<UUID> ids : comPrefixo(autoresPorTermo, termo).values()) {
+                for (UUID idAutor : ids) {
+                    for (UUID idLivro : livrosPorAutor.getOrDefault(idAutor, Set.of())) {
+                        pontos.merge(idLivro, PESO_AUTOR * FATOR_PREFIXO, Math::max);
+                    }
+                }
+            }
+        }
+        return pontos;
+    }
+
+    // termos que começam com o prefixo, sem incluir o próprio prefixo (que já casou como termo exato)
+    private static NavigableMap<String, Set<UUID>> comPrefixo(NavigableMap<String, Set<UUID>> mapa, String prefixo) {
+        return mapa.subMap(prefixo, false, prefixo + Character.MAX_VALUE, false);
+    }
+
+    private void indexarLivro(UUID id, String titulo, UUID idAutor) {
+        removerLivro(id);
+        if (titulo == null) {
+            return;
+        }
+        List<String> termos = NormalizadorTexto.tokenizar(titulo);
+        livros.put(id, new DocumentoLivro(titulo, termos, idAutor));
+        termos.forEach(termo -> livrosPorTermo.computeIfAbsent(termo, t -> new HashSet<>()).add(id));
+        if (idAutor != null) {
+            livrosPorAutor.computeIfAbsent(idAutor, a -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void removerLivro(UUID id) {
+        DocumentoLivro documento = livros.remove(id);
+        if (documento == null) {
+            return;
+        }
+        documento.termos().forEach(termo -> removerDoTermo(livrosPorTermo, termo, id));
+        if (documento.idAutor() != null) {
+            Set<UUID> doAutor = livrosPorAutor.get(documento.idAutor());
+            if (doAutor != null && doAutor.remove(id) && doAutor.isEmpty()) {
+                livrosPorAutor.remove(documento.idAutor());
+            }
+        }
+    }
+
+    private void indexarAutor(UUID id, String nome) {
+        removerAutor(id);
+        List<String> termos = NormalizadorTexto.tokenizar(nome);
+        termosPorAutor.put(id, termos);
+        termos.forEach(termo -> autoresPorTermo.computeIfAbsent(termo, t -> new HashSet<>()).add(id));
+    }
+
+    private void removerAutor(UUID id) {
+        List<String> termos = termosPorAutor.remove(id);
+        if (termos != null) {
+            termos.forEach(termo -> removerDoTermo(autoresPorTermo, termo, id));
+        }
+    }
+
+    private static void removerDoTermo(Map<String, Set<UUID>> mapa, String termo, UUID id) {
+        Set<UUID> ids = mapa.get(termo);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            mapa.remove(termo);
+        }
+    }
+
+    private record DocumentoLivro(String titulo, List<String> termos, UUID idAutor) {
+    }
+}
@@ -0,0 +1,36 @@
+package br.com.judev.libraryapi.search;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/*
+ * Normalização usada pelos índices em memória:
+ * "São Paulo: Contos" -> "sao paulo: contos" -> [sao, paulo, contos]
+ */
+public final class NormalizadorTexto {
+
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    // letras e dígitos de qualquer escrita (\p{Alnum} é só ASCII e cortaria "straße", "Толстой", "村上")
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private NormalizadorTexto() {
+    }
+
+    // remove acentos e coloca em minúsculas
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String semAcentos = ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return semAcentos.toLowerCase(Locale.ROOT);
+    }
+
+    public static List<String> tokenizar(String texto) {
+        return Arrays.stream(SEPARADORES.split(normalizar(texto)))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+}
@@ -0,0 +1,10 @@
+package br.com.judev.libraryapi.search;
+
+import java.util.UUID;
+
+/*
+ * Item sugerido pelo autocomplete (título de livro ou nome de autor).
+ * peso: relevância do item; para autores é a quantidade de livros cadastrados.
+ */
+public record Sugestao(UUID id, String texto, int peso) {
+}
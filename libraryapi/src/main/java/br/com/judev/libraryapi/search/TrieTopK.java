@@ -0,0 +1,268 @@
+package br.com.judev.libraryapi.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Trie de prefixos em que cada nó guarda os k melhores valores da sua subárvore.
+ *
+ * A busca por prefixo só desce pelos caracteres do prefixo e devolve a lista pronta do nó:
+ * o custo depende do tamanho do prefixo, não da quantidade de valores cadastrados.
+ *
+ * Os k melhores de um nó saem dos valores que terminam nele + os k melhores de cada filho,
+ * então adicionar/remover só recalcula os nós do caminho do termo alterado.
+ *
+ * Nós compactos: os filhos ficam em dois arrays ordenados pelo caractere (busca binária), em vez
+ * de um HashMap por nó, e o mapa de valores que terminam no nó só existe nos nós onde algum termo
+ * termina. A maior parte dos nós é caminho intermediário com um único filho.
+ *
+ * Não é thread-safe: quem usa controla o acesso (ver IndiceSugestoes).
+ */
+public class TrieTopK<K, V> {
+
+    private final int k;
+    private final Comparator<? super V> ordem;
+    private final No<K, V> raiz = new No<>();
+    private final Map<K, Registro<V>> registros = new HashMap<>();
+
+    public TrieTopK(int k, Comparator<? super V> ordem) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k deve ser maior que zero.");
+        }
+        this.k = k;
+        this.ordem = ordem;
+    }
+
+    // substitui o valor (e os termos) se a chave já existir
+    public void adicionar(K chave, V valor, Collection<String> termos) {
+        remover(chave);
+        registros.put(chave, new Registro<>(valor, List.copyOf(termos)));
+        for (String termo : termos) {
+            List<No<K, V>> caminho = criarCaminho(termo);
+            caminho.getLast().terminais().put(chave, valor);
+            recalcular(caminho);
+        }
+    }
+
+    public void remover(K chave) {
+        Registro<V> registro = registros.remove(chave);
+        if (registro == null) {
+            return;
+        }
+        for (String termo : registro.termos()) {
+            List<No<K, V>> caminho = buscarCaminho(termo);
+            if (caminho == null) {
+                continue;
+            }
+            caminho.getLast().removerTerminal(chave);
+            podar(termo, caminho);
+            recalcular(caminho);
+        }
+    }
+
+    public List<V> buscar(String prefixo, int limite) {
+        No<K, V> no = raiz;
+        for (int i = 0; i < prefixo.length() && no != null; i++) {
+            no = no.filho(prefixo.charAt(i));
+        }
+        if (no == null) {
+            return List.of();
+        }
+        return no.melhores.stream().limit(limite).map(Map.Entry::getValue).toList();
+    }
+
+    public int tamanho() {
+        return registros.size();
+    }
+
+    public void limpar() {
+        raiz.limpar();
+        registros.clear();
+    }
+
+    // quantidade de nós da árvore, raiz incluída (log da carga e testes)
+    int nos() {
+        return contarNos(raiz);
+    }
+
+    private int contarNos(No<K, V> no) {
+        int total = 1;
+        for (No<K, V> filho : no.filhos) {
+            total += contarNos(filho);
+        }
+        return total;
+    }
+
+    /*
+     * Carga em lote: insere sem recalcular e depois recalcula a árvore inteira uma vez só
+     * (pós-ordem), em vez de recalcular o caminho a cada inserção.
+     */
+    void adicionarSemRecalcular(K chave, V valor, Collection<String> termos) {
+        registros.put(chave, new Registro<>(valor, List.copyOf(termos)));
+        for (String termo : termos) {
+            criarCaminho(termo).getLast().terminais().put(chave, valor);
+        }
+    }
+
+    void recalcularTudo() {
+        recalcularSubarvore(raiz);
+    }
+
+    private void recalcularSubarvore(No<K, V> no) {
+        for (No<K, V> filho : no.filhos) {
+            recalcularSubarvore(filho);
+        }
+        recalcularNo(no);
+    }
+
+    private List<No<K, V>> criarCaminho(String termo) {
+        List<No<K, V>> caminho = new ArrayList<>(termo.length() + 1);
+        No<K, V> no = raiz;
+        caminho.add(no);
+        for (int i = 0; i < termo.length(); i++) {
+            no = no.filhoOuNovo(termo.charAt(i));
+            caminho.add(no);
+        }
+        return caminho;
+    }
+
+    private List<No<K, V>> buscarCaminho(String termo) {
+        List<No<K, V>> caminho = new ArrayList<>(termo.length() + 1);
+        No<K, V> no = raiz;
+        caminho.add(no);
+        for (int i = 0; i < termo.length(); i++) {
+            no = no.filho(termo.charAt(i));
+            if (no == null) {
+                return null;
+            }
+            caminho.add(no);
+        }
+        return caminho;
+    }
+
+    // do fim para o começo, tira os nós que ficaram sem valores e sem filhos
+    private void podar(String termo, List<No<K, V>> caminho) {
+        for (int i = caminho.size() - 1; i > 0; i--) {
+            No<K, V> no = caminho.get(i);
+            if (!no.vazio()) {
+                return;
+            }
+            caminho.get(i - 1).removerFilho(termo.charAt(i - 1));
+            caminho.remove(i);
+        }
+    }
+
+    private void recalcular(List<No<K, V>> caminho) {
+        for (int i = caminho.size() - 1; i >= 0; i--) {
+            recalcularNo(caminho.get(i));
+        }
+    }
+
+    private void recalcularNo(No<K, V> no) {
+        // o mesmo valor pode chegar por mais de um termo (ex.: sufixos do mesmo título)
+        Map<K, V> candidatos = no.terminais != null ? new HashMap<>(no.terminais) : new HashMap<>();
+        for (No<K, V> filho : no.filhos) {
+            for (Map.Entry<K, V> entrada : filho.melhores) {
+                candidatos.putIfAbsent(entrada.getKey(), entrada.getValue());
+            }
+        }
+        no.melhores = candidatos.entrySet()
+                .stream()
+                .sorted(Map.Entry.comparingByValue(ordem))
+                .limit(k)
+                .map(entrada -> Map.entry(entrada.getKey(), entrada.getValue()))
+                .toList();
+    }
+
+    private static class No<K, V> {
+        private static final char[] SEM_CARACTERES = new char[0];
+        private static final No<?, ?>[] SEM_FILHOS = new No<?, ?>[0];
+
+        // caracteres[i] leva a filhos[i]; caracteres em ordem crescente
+        private char[] caracteres = SEM_CARACTERES;
+        private No<K, V>[] filhos = semFilhos();
+        // null enquanto nenhum termo terminar neste nó
+        private Map<K, V> terminais;
+        private List<Map.Entry<K, V>> melhores = List.of();
+
+        private No<K, V> filho(char c) {
+            int i = Arrays.binarySearch(caracteres, c);
+            return i >= 0 ? filhos[i] : null;
+        }
+
+        private No<K, V> filhoOuNovo(char c) {
+            int i = Arrays.binarySearch(caracteres, c);
+            if (i >= 0) {
+                return filhos[i];
+            }
+            int posicao = -i - 1;
+            No<K, V> novo = new No<>();
+
+            char[] novosCaracteres = new char[caracteres.length + 1];
+            No<K, V>[] novosFilhos = Arrays.copyOf(filhos, filhos.length + 1);
+            System.arraycopy(caracteres, 0, novosCaracteres, 0, posicao);
+            System.arraycopy(caracteres, posicao, novosCaracteres, posicao + 1, caracteres.length - posicao);
+            System.arraycopy(filhos, posicao, novosFilhos, posicao + 1, filhos.length - posicao);
+            novosCaracteres[posicao] = c;
+            novosFilhos[posicao] = novo;
+
+            caracteres = novosCaracteres;
+            filhos = novosFilhos;
+            return novo;
+        }
+
+        private void removerFilho(char c) {
+            int i = Arrays.binarySearch(caracteres, c);
+            if (i < 0) {
+                return;
+            }
+            char[] novosCaracteres = new char[caracteres.length - 1];
+            No<K, V>[] novosFilhos = Arrays.copyOf(filhos, filhos.length - 1);
+            System.arraycopy(caracteres, 0, novosCaracteres, 0, i);
+            System.arraycopy(caracteres, i + 1, novosCaracteres, i, caracteres.length - i - 1);
+            System.arraycopy(filhos, i + 1, novosFilhos, i, filhos.length - i - 1);
+            caracteres = novosCaracteres;
+            filhos = novosFilhos;
+        }
+
+        private Map<K, V> terminais() {
+            if (terminais == null) {
+                terminais = new HashMap<>(2);
+            }
+            return terminais;
+        }
+
+        private void removerTerminal(K chave) {
+            if (terminais != null) {
+                terminais.remove(chave);
+                if (terminais.isEmpty()) {
+                    terminais = null;
+                }
+            }
+        }
+
+        private boolean vazio() {
+            return terminais == null && filhos.length == 0;
+        }
+
+        private void limpar() {
+            caracteres = SEM_CARACTERES;
+            filhos = semFilhos();
+            terminais = null;
+            melhores = List.of();
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <K, V> No<K, V>[] semFilhos() {
+            return (No<K, V>[]) SEM_FILHOS;
+        }
+    }
+
+    private record Registro<V>(V valor, List<String> termos) {
+    }
+}
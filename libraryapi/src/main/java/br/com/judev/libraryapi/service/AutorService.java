@@ -1,13 +1,26 @@
 package br.com.judev.libraryapi.service;
 
+import br.com.judev.libraryapi.controller.dto.AutorDTO;
+import br.com.judev.libraryapi.controller.dto.VersaoRecursoDTO;
+import br.com.judev.libraryapi.events.AutorAlteradoEvent;
+import br.com.judev.libraryapi.events.TipoAlteracao;
+import br.com.judev.libraryapi.exceptions.VersaoDivergenteException;
 import br.com.judev.libraryapi.model.Autor;
 import br.com.judev.libraryapi.repository.AutorRepository;
 import br.com.judev.libraryapi.repository.LivroRepository;
+import br.com.judev.libraryapi.validator.AutorValidator;
+import br.com.judev.libraryapi.validator.ViolacaoConstraint;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -15,19 +28,56 @@ import java.util.UUID;
 public class AutorService {
     private final LivroRepository livroRepository;
     private final AutorRepository autorRepository;
+    private final AutorValidator validator;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public AutorService(LivroRepository livroRepository, AutorRepository autorRepository) {
+    // GET /autores/{id} concorrentes pelo mesmo autor: uma consulta em andamento por id
+    private final SingleFlight<UUID, Optional<VersaoRecursoDTO>> leiturasVersao = new SingleFlight<>();
+    private final SingleFlight<UUID, Optional<AutorDTO>> leiturasDetalhe = new SingleFlight<>();
+
+    public AutorService(LivroRepository livroRepository,
+                        AutorRepository autorRepository,
+                        AutorValidator validator,
+                        ApplicationEventPublisher eventPublisher) {
         this.livroRepository = livroRepository;
         this.autorRepository = autorRepository;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
     }
 
+    // @Transactional: a linha do outbox (OutboxMudancas) é gravada no commit desta transação
+    @Transactional
     public Autor salvar(Autor autor){
-        return autorRepository.save(autor);
+        validator.validar(autor);
+        Autor salvo = gravar(autor);
+        eventPublisher.publishEvent(new AutorAlteradoEvent(salvo.getId(), salvo.getNome(), TipoAlteracao.CRIACAO));
+        return salvo;
     }
 
     public Optional<Autor> obterPorId(UUID id){
         return autorRepository.findById(id);
     }
+
+    public Optional<VersaoRecursoDTO> obterVersao(UUID id){
+        return leiturasVersao.executar(id, () -> autorRepository.obterVersao(id));
+    }
+
+    public Optional<AutorDTO> obterDetalhe(UUID id){
+        return leiturasDetalhe.executar(id, () -> autorRepository.findById(id)
+                .map(autor -> new AutorDTO(
+                        autor.getId(),
+                        autor.getNome(),
+                        autor.getDataNascimento(), autor.getNacionalidade())));
+    }
+
+    // quem ler depois do commit não pega carona em uma leitura que começou antes da alteração
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAutorAlterado(AutorAlteradoEvent evento){
+        leiturasVersao.esquecer(evento.id());
+        leiturasDetalhe.esquecer(evento.id());
+    }
+
+    @Transactional
     public void deletar(UUID id) {
         Autor autor = autorRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Autor não encontrado."));
@@ -38,6 +88,7 @@ public class AutorService {
         }
 
         autorRepository.delete(autor);
+        eventPublisher.publishEvent(new AutorAlteradoEvent(id, autor.getNome(), TipoAlteracao.REMOCAO));
     }
 
     public List<Autor> pesquisa(String nome, String nacionalidade){
@@ -56,12 +107,44 @@ public class AutorService {
         return autorRepository.findAll();
     }
 
-    public void atualizar(Autor autor){
-        if(autor.getId() == null){
-            throw new IllegalArgumentException("Para atualizar, é necessário que o autor já esteja salvo na base.");
+    /*
+     * PUT em uma única transação: select pelo id, confere a versão do If-Match (null = não confere)
+     * e update ... where id = ? and versao = ? no flush. Versão divergente -> 412.
+     * Se mudou algo que aparece no resumo do livro, os livros do autor voltam na sincronização
+     * incremental (ver LivroRepository.marcarAlteradosPorAutor).
+     */
+    @Transactional
+    public Optional<Autor> atualizar(UUID id, Long versaoEsperada, Autor dados){
+        Optional<Autor> encontrado = autorRepository.findById(id);
+        if(encontrado.isEmpty()){
+            return encontrado;
+        }
+
+        Autor autor = encontrado.get();
+        if(versaoEsperada != null && !versaoEsperada.equals(autor.getVersao())){
+            throw new VersaoDivergenteException(
+                    "O autor foi alterado por outra requisição (versão atual: " + autor.getVersao() + ").");
         }
-    //    validator.validar(autor);
-        autorRepository.save(autor);
+
+        // valida antes de alterar a entidade gerenciada (a consulta do modo CONSULTA não faz flush dela)
+        dados.setId(id);
+        validator.validar(dados);
+
+        // o que vai embutido em cada livro na sincronização incremental (ResultadoPesquisaLivroDTO.autor)
+        boolean alterouResumo = !Objects.equals(autor.getNome(), dados.getNome())
+                || !Objects.equals(autor.getNacionalidade(), dados.getNacionalidade())
+                || !Objects.equals(autor.getDataNascimento(), dados.getDataNascimento());
+
+        autor.setNome(dados.getNome());
+        autor.setNacionalidade(dados.getNacionalidade());
+        autor.setDataNascimento(dados.getDataNascimento());
+
+        Autor salvo = gravar(autor);
+        if(alterouResumo){
+            livroRepository.marcarAlteradosPorAutor(id, LocalDateTime.now());
+        }
+        eventPublisher.publishEvent(new AutorAlteradoEvent(salvo.getId(), salvo.getNome(), TipoAlteracao.ATUALIZACAO));
+        return Optional.of(salvo);
     }
 
     public List<Autor> pesquisaByExample(String nome, String nacionalidade){
@@ -82,4 +165,13 @@ public class AutorService {
     public boolean possuiLivro(Autor autor){
         return livroRepository.existsByAutor(autor);
     }
+
+    // flush imediato: a violação de uk_autor_nome_nascimento_nacionalidade vira RegistroDuplicadoException
+    private Autor gravar(Autor autor){
+        try {
+            return autorRepository.saveAndFlush(autor);
+        } catch (DataIntegrityViolationException e) {
+            throw ViolacaoConstraint.traduzir(e);
+        }
+    }
 }
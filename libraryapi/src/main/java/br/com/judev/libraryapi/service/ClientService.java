@@ -1,8 +1,13 @@
 package br.com.judev.libraryapi.service;
 
+import br.com.judev.libraryapi.config.CargaTrabalho;
+import br.com.judev.libraryapi.config.TipoCarga;
 import br.com.judev.libraryapi.model.Client;
 import br.com.judev.libraryapi.repository.ClientRepository;
+import br.com.judev.libraryapi.events.ClientAlteradoEvent;
+import br.com.judev.libraryapi.events.TipoAlteracao;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -12,13 +17,19 @@ public class ClientService {
 
     private final ClientRepository repository;
     private final PasswordEncoder encoder;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Client salvar(Client client){
         var senhaCriptografada = encoder.encode(client.getClientSecret());
         client.setClientSecret(senhaCriptografada);
-        return repository.save(client);
+        var tipo = client.getId() == null ? TipoAlteracao.CRIACAO : TipoAlteracao.ATUALIZACAO;
+        Client salvo = repository.save(client);
+        eventPublisher.publishEvent(new ClientAlteradoEvent(salvo.getId(), salvo.getClientId(), tipo));
+        return salvo;
     }
 
+    // /oauth2/token e authorize: pool próprio, como o login
+    @CargaTrabalho(TipoCarga.AUTENTICACAO)
     public Client obterPorClientID(String clientId){
         return repository.findByClientId(clientId);
     }
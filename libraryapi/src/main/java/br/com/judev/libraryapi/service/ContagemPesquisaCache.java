@@ -0,0 +1,51 @@
+package br.com.judev.libraryapi.service;
+
+import br.com.judev.libraryapi.repository.specs.FiltroPesquisaLivro;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/*
+ * Guarda o total da pesquisa de livros por filtro normalizado durante um tempo (TTL).
+ * Usado pela EstrategiaContagem.CACHE: a tela pagina pelo mesmo filtro e só a primeira
+ * página paga o count(*).
+ */
+@Component
+public class ContagemPesquisaCache {
+
+    private static final int LIMITE_ENTRADAS = 10_000;
+
+    private final Map<FiltroPesquisaLivro, Contagem> contagens = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+
+    public ContagemPesquisaCache(
+            @Value("${libraryapi.pesquisa.contagem.cache-ttl:60s}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public long obter(FiltroPesquisaLivro filtro, LongSupplier contar) {
+        FiltroPesquisaLivro chave = filtro.normalizado();
+        long agora = System.nanoTime();
+
+        Contagem contagem = contagens.get(chave);
+        if (contagem != null && contagem.expiraEm() - agora > 0) {
+            return contagem.total();
+        }
+
+        long total = contar.getAsLong();
+        if (contagens.size() >= LIMITE_ENTRADAS) {
+            contagens.values().removeIf(c -> c.expiraEm() - agora <= 0);
+        }
+        if (contagens.size() < LIMITE_ENTRADAS) {
+            contagens.put(chave, new Contagem(total, agora + ttlNanos));
+        }
+        return total;
+    }
+
+    private record Contagem(long total, long expiraEm) {
+    }
+}
@@ -0,0 +1,68 @@
+package br.com.judev.libraryapi.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * CSV no formato da RFC 4180 (separador vírgula, aspas duplas), usado na exportação,
+ * na importação em lote e no COPY do Postgres (format csv, onde campo vazio = null).
+ * Na leitura, um campo entre aspas pode ter quebra de linha: o registro continua na linha
+ * seguinte enquanto houver aspas abertas (ver aspasAbertas).
+ */
+final class Csv {
+
+    private Csv() {
+    }
+
+    // campos com vírgula, aspas ou quebra de linha vão entre aspas, com aspas duplicadas
+    static String escapar(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        String texto = valor.toString();
+        if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0 && texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0) {
+            return texto;
+        }
+        return '"' + texto.replace("\"", "\"\"") + '"';
+    }
+
+    // número ímpar de aspas: o último campo entre aspas continua na próxima linha ("" conta duas vezes)
+    static boolean aspasAbertas(String texto) {
+        int aspas = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) == '"') {
+                aspas++;
+            }
+        }
+        return aspas % 2 != 0;
+    }
+
+    static List<String> separar(String linha) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreAspas = false;
+
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (entreAspas) {
+                if (c != '"') {
+                    campo.append(c);
+                } else if (i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    campo.append('"');
+                    i++;
+                } else {
+                    entreAspas = false;
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        campos.add(campo.toString());
+        return campos;
+    }
+}
@@ -0,0 +1,15 @@
+package br.com.judev.libraryapi.service;
+
+/*
+ * Como a pesquisa paginada obtém o total de registros:
+ * - EXATA: count(*) com os mesmos filtros a cada página (comportamento original)
+ * - CACHE: count(*) exato, reaproveitado por alguns segundos para o mesmo filtro
+ * - ESTIMADA: estimativa do planner do Postgres (EXPLAIN), sem executar o count
+ * - NENHUMA: sem total; a resposta só informa se existe próxima página (Slice)
+ */
+public enum EstrategiaContagem {
+    EXATA,
+    CACHE,
+    ESTIMADA,
+    NENHUMA
+}
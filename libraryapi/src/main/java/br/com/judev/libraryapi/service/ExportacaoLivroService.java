@@ -0,0 +1,125 @@
+package br.com.judev.libraryapi.service;
+
+import br.com.judev.libraryapi.config.CargaTrabalho;
+import br.com.judev.libraryapi.config.TipoCarga;
+import br.com.judev.libraryapi.controller.dto.AutorDTO;
+import br.com.judev.libraryapi.controller.dto.ResultadoPesquisaLivroDTO;
+import br.com.judev.libraryapi.model.GeneroLivro;
+import br.com.judev.libraryapi.repository.specs.FiltroPesquisaLivro;
+import br.com.judev.libraryapi.repository.specs.LivroFiltroSql;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/*
+ * Exportação do catálogo de livros (mesmos filtros da pesquisa) direto para a resposta HTTP.
+ *
+ * - JDBC puro, sem entidades: nada se acumula no contexto de persistência;
+ * - o driver do Postgres só usa cursor (busca de fetchSize em fetchSize linhas) quando a
+ *   conexão está fora do autocommit, por isso o método roda dentro de uma transação read-only;
+ * - cada linha é escrita assim que chega, então a memória usada não depende do total exportado.
+ */
+@Service
+@CargaTrabalho(TipoCarga.LOTE)
+public class ExportacaoLivroService {
+
+    private static final String SELECT = """
+            select l.id, l.isbn, l.titulo, l.data_publicacao, l.genero, l.preco,
+                   a.id as id_autor, a.nome as nome_autor, a.data_nascimento as data_nascimento_autor,
+                   a.nacionalidade as nacionalidade_autor
+            """;
+
+    private static final String CABECALHO_CSV =
+            "id,isbn,titulo,data_publicacao,genero,preco,id_autor,nome_autor,data_nascimento_autor,nacionalidade_autor";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonMapper jsonMapper;
+
+    public ExportacaoLivroService(DataSource dataSource,
+                                  JsonMapper jsonMapper,
+                                  @Value("${libraryapi.exportacao.fetch-size:1000}") int fetchSize) {
+        // JdbcTemplate próprio, para não mudar o fetch size das outras consultas
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Transactional(readOnly = true)
+    public void exportar(FiltroPesquisaLivro filtro, FormatoArquivo formato, OutputStream saida) throws IOException {
+        LivroFiltroSql where = LivroFiltroSql.de(filtro);
+        String sql = SELECT + LivroFiltroSql.FROM + "where " + where.clausula() + " order by l.id";
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        if (formato == FormatoArquivo.CSV) {
+            writer.write(CABECALHO_CSV);
+            writer.write('\n');
+        }
+
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            ResultadoPesquisaLivroDTO livro = toDTO(rs);
+            try {
+                if (formato == FormatoArquivo.CSV) {
+                    escreverCsv(writer, livro);
+                } else {
+                    writer.write(jsonMapper.writeValueAsString(livro));
+                }
+                writer.write('\n');
+            } catch (IOException e) {
+                // cliente desconectou: aborta a consulta em vez de continuar lendo o cursor
+                throw new UncheckedIOException(e);
+            }
+        }, where.parametros());
+
+        writer.flush();
+    }
+
+    private static ResultadoPesquisaLivroDTO toDTO(ResultSet rs) throws SQLException {
+        UUID idAutor = rs.getObject("id_autor", UUID.class);
+        AutorDTO autor = idAutor == null ? null : new AutorDTO(
+                idAutor,
+                rs.getString("nome_autor"),
+                rs.getObject("data_nascimento_autor", LocalDate.class),
+                rs.getString("nacionalidade_autor"));
+
+        String genero = rs.getString("genero");
+        return new ResultadoPesquisaLivroDTO(
+                rs.getObject("id", UUID.class),
+                rs.getString("isbn"),
+                rs.getString("titulo"),
+                rs.getObject("data_publicacao", LocalDate.class),
+                genero == null ? null : GeneroLivro.valueOf(genero),
+                rs.getBigDecimal("preco"),
+                autor);
+    }
+
+    private static void escreverCsv(Writer writer, ResultadoPesquisaLivroDTO livro) throws IOException {
+        AutorDTO autor = livro.autor();
+        writer.write(String.join(",",
+                Csv.escapar(livro.id()),
+                Csv.escapar(livro.isbn()),
+                Csv.escapar(livro.titulo()),
+                Csv.escapar(livro.dataPublicacao()),
+                Csv.escapar(livro.genero()),
+                Csv.escapar(livro.preco() == null ? null : livro.preco().toPlainString()),
+                Csv.escapar(autor == null ? null : autor.id()),
+                Csv.escapar(autor == null ? null : autor.nome()),
+                Csv.escapar(autor == null ? null : autor.dataNascimento()),
+                Csv.escapar(autor == null ? null : autor.nacionalidade())));
+    }
+}
@@ -0,0 +1,41 @@
+package br.com.judev.libraryapi.service;
+
+import br.com.judev.libraryapi.exceptions.CampoInvalidoException;
+import org.springframework.http.MediaType;
+
+/*
+ * Formatos de arquivo do catálogo, usados na exportação (GET /api/v1/livros/exportacao?formato=)
+ * e na importação em lote (POST /api/v1/livros/importacao, pelo Content-Type).
+ */
+public enum FormatoArquivo {
+
+    // um objeto JSON por linha
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final MediaType mediaType;
+    private final String extensao;
+
+    FormatoArquivo(String mediaType, String extensao) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+        this.extensao = extensao;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public String extensao() {
+        return extensao;
+    }
+
+    public static FormatoArquivo de(MediaType contentType) {
+        for (FormatoArquivo formato : values()) {
+            if (formato.mediaType.isCompatibleWith(contentType)) {
+                return formato;
+            }
+        }
+        throw new CampoInvalidoException("Content-Type", "Formato não suportado: " + contentType
+                + ". Use application/x-ndjson ou text/csv.");
+    }
+}
@@ -0,0 +1,399 @@
+package br.com.judev.libraryapi.service;
+
+import br.com.judev.libraryapi.config.CargaTrabalho;
+import br.com.judev.libraryapi.config.TipoCarga;
+import br.com.judev.libraryapi.controller.dto.CadastroLivroDTO;
+import br.com.judev.libraryapi.controller.dto.ErroImportacaoDTO;
+import br.com.judev.libraryapi.controller.dto.ResultadoImportacaoDTO;
+import br.com.judev.libraryapi.events.LivroAlteradoEvent;
+import br.com.judev.libraryapi.events.TipoAlteracao;
+import br.com.judev.libraryapi.exceptions.CampoInvalidoException;
+import br.com.judev.libraryapi.model.GeneroLivro;
+import br.com.judev.libraryapi.model.GeradorUuidV7;
+import br.com.judev.libraryapi.model.Livro;
+import br.com.judev.libraryapi.repository.AutorRepository;
+import br.com.judev.libraryapi.repository.LivroRepository;
+import br.com.judev.libraryapi.validator.LivroValidator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/*
+ * Importação em lote de livros (NDJSON ou CSV), para cargas de catálogo de editoras.
+ *
+ * O arquivo é lido em lotes de "tamanho-lote" linhas. Para cada lote, em uma transação:
+ * - valida os campos de cada linha (mesmas regras de CadastroLivroDTO + regra do preço);
+ * - recusa ISBN repetido dentro do lote e confere os ISBNs do lote inteiro em uma única query
+ *   (where isbn in (...)), que também pega os repetidos de lotes anteriores, já gravados;
+ * - confere os autores do lote inteiro em uma única query (where id in (...));
+ * - grava as linhas válidas com COPY (Postgres) ou, sem COPY, com insert em batch via JDBC.
+ *
+ * Linhas com problema não impedem as outras: voltam no resultado com o número da linha.
+ * Um ISBN gravado por outra requisição entre a consulta e a gravação esbarra na uk_livro_isbn:
+ * a linha dele é recusada e o resto do lote é gravado de novo.
+ */
+@Service
+@Slf4j
+@CargaTrabalho(TipoCarga.LOTE)
+public class ImportacaoLivroService {
+
+    private static final int MAXIMO_ERROS_DETALHADOS = 1_000;
+
+    private static final String COLUNAS_INSERT =
+            "id, isbn, titulo, data_publicacao, genero, preco, id_autor, data_cadastro, data_atualizacao";
+    private static final String INSERT =
+            "insert into livro (" + COLUNAS_INSERT + ") values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String COPY =
+            "copy livro (" + COLUNAS_INSERT + ") from stdin with (format csv)";
+    // detalhe da violação de unicidade: Key (isbn)=(...) already exists (o texto muda com o lc_messages)
+    private static final Pattern ISBN_DUPLICADO = Pattern.compile("\\(isbn\\)=\\((.*)\\)");
+
+    private final LivroRepository livroRepository;
+    private final AutorRepository autorRepository;
+    private final LivroValidator livroValidator;
+    private final Validator validator;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JsonMapper jsonMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int tamanhoLote;
+    private final boolean usarCopy;
+
+    public ImportacaoLivroService(LivroRepository livroRepository,
+                                  AutorRepository autorRepository,
+                                  LivroValidator livroValidator,
+                                  Validator validator,
+                                  JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  JsonMapper jsonMapper,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${libraryapi.importacao.tamanho-lote:1000}") int tamanhoLote,
+                                  @Value("${libraryapi.importacao.copy:true}") boolean usarCopy) {
+        this.livroRepository = livroRepository;
+        this.autorRepository = autorRepository;
+        this.livroValidator = livroValidator;
+        this.validator = validator;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.jsonMapper = jsonMapper;
+        this.eventPublisher = eventPublisher;
+        this.tamanhoLote = tamanhoLote;
+        this.usarCopy = usarCopy;
+    }
+
+    public ResultadoImportacaoDTO importar(InputStream entrada, FormatoArquivo formato) throws IOException {
+        Importacao importacao = new Importacao();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+
+        long numeroLinha = 0;
+        Map<String, Integer> colunas = Map.of();
+        if (formato == FormatoArquivo.CSV) {
+            String cabecalho = reader.readLine();
+            if (cabecalho == null) {
+                return importacao.resultado();
+            }
+            numeroLinha++;
+            colunas = mapearColunas(cabecalho);
+        }
+
+        List<Linha> lote = new ArrayList<>(tamanhoLote);
+        String conteudo;
+        while ((conteudo = reader.readLine()) != null) {
+            numeroLinha++;
+            if (conteudo.isBlank()) {
+                continue;
+            }
+            // erros apontam a linha onde o registro começa
+            long inicioRegistro = numeroLinha;
+            if (formato == FormatoArquivo.CSV) {
+                String continuacao;
+                while (Csv.aspasAbertas(conteudo) && (continuacao = reader.readLine()) != null) {
+                    numeroLinha++;
+                    conteudo = conteudo + "\n" + continuacao;
+                }
+            }
+            importacao.linhasLidas++;
+            try {
+                CadastroLivroDTO dto = formato == FormatoArquivo.CSV ? lerCsv(conteudo, colunas) : lerJson(conteudo);
+                lote.add(new Linha(inicioRegistro, dto));
+            } catch (CampoInvalidoException e) {
+                importacao.rejeitar(inicioRegistro, e.getCampo(), e.getMessage());
+            }
+
+            if (lote.size() >= tamanhoLote) {
+                processarLote(lote, importacao);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            processarLote(lote, importacao);
+        }
+
+        log.info("Importação de livros: {} linhas, {} importadas, {} rejeitadas",
+                importacao.linhasLidas, importacao.importados, importacao.rejeitados);
+        return importacao.resultado();
+    }
+
+    private void processarLote(List<Linha> lote, Importacao importacao) {
+        List<Linha> validas = new ArrayList<>(lote.size());
+        Set<String> isbnsDoLote = new HashSet<>();
+        for (Linha linha : lote) {
+            if (!validarCampos(linha, importacao)) {
+                continue;
+            }
+            if (!isbnsDoLote.add(linha.dto().isbn())) {
+                importacao.rejeitar(linha.numero(), "isbn", "ISBN repetido no arquivo.");
+                continue;
+            }
+            validas.add(linha);
+        }
+
+        // cada tentativa que esbarra na uk_livro_isbn tira do lote a linha do ISBN duplicado
+        while (!validas.isEmpty()) {
+            List<Linha> pendentes = validas;
+            try {
+                ResultadoLote resultado = transactionTemplate.execute(status -> gravarLote(pendentes));
+                importacao.importados += resultado.gravados();
+                resultado.rejeicoes().forEach(erro -> importacao.rejeitar(erro.linha(), erro.campo(), erro.erro()));
+                return;
+            } catch (DuplicateKeyException e) {
+                String isbn = isbnDuplicado(e);
+                validas = pendentes.stream().filter(linha -> !linha.dto().isbn().equals(isbn)).toList();
+                if (validas.size() == pendentes.size()) {
+                    rejeitarLote(pendentes, e, importacao);
+                    return;
+                }
+                pendentes.stream()
+                        .filter(linha -> linha.dto().isbn().equals(isbn))
+                        .forEach(linha -> importacao.rejeitar(linha.numero(), "isbn", "ISBN já cadastrado!"));
+            } catch (DataAccessException e) {
+                rejeitarLote(pendentes, e, importacao);
+                return;
+            }
+        }
+    }
+
+    private static void rejeitarLote(List<Linha> linhas, DataAccessException e, Importacao importacao) {
+        String causa = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        log.warn("Lote de importação não gravado: {}", causa);
+        linhas.forEach(linha -> importacao.rejeitar(linha.numero(), null, "Lote não gravado: " + causa));
+    }
+
+    // ISBN da violação da uk_livro_isbn (COPY ou insert em batch); null para qualquer outra
+    private static String isbnDuplicado(DuplicateKeyException e) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof PSQLException psql) {
+                ServerErrorMessage mensagem = psql.getServerErrorMessage();
+                if (mensagem == null || !"uk_livro_isbn".equals(mensagem.getConstraint()) || mensagem.getDetail() == null) {
+                    return null;
+                }
+                Matcher matcher = ISBN_DUPLICADO.matcher(mensagem.getDetail());
+                return matcher.find() ? matcher.group(1) : null;
+            }
+        }
+        return null;
+    }
+
+    private ResultadoLote gravarLote(List<Linha> linhas) {
+        Set<String> isbnsCadastrados = livroRepository.listarIsbnsCadastrados(
+                linhas.stream().map(linha -> linha.dto().isbn()).toList());
+        Set<UUID> autoresCadastrados = autorRepository.listarIdsCadastrados(
+                linhas.stream().map(linha -> linha.dto().idAutor()).collect(Collectors.toSet()));
+
+        LocalDateTime agora = LocalDateTime.now();
+        List<Livro> livros = new ArrayList<>(linhas.size());
+        List<ErroImportacaoDTO> rejeicoes = new ArrayList<>();
+        for (Linha linha : linhas) {
+            CadastroLivroDTO dto = linha.dto();
+            if (isbnsCadastrados.contains(dto.isbn())) {
+                rejeicoes.add(new ErroImportacaoDTO(linha.numero(), "isbn", "ISBN já cadastrado!"));
+            } else if (!autoresCadastrados.contains(dto.idAutor())) {
+                rejeicoes.add(new ErroImportacaoDTO(linha.numero(), "idAutor",
+                        "Autor não encontrado para o id: " + dto.idAutor()));
+            } else {
+                Livro livro = dto.toEntity();
+                livro.setId(GeradorUuidV7.gerar());
+                livro.setDataCadastro(agora);
+                livro.setDataAtualizacao(agora);
+                livros.add(livro);
+            }
+        }
+        if (livros.isEmpty()) {
+            return new ResultadoLote(0, rejeicoes);
+        }
+
+        boolean copiou = usarCopy && jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!connection.isWrapperFor(PGConnection.class)) {
+                return false;
+            }
+            try {
+                connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY, new StringReader(paraCsv(livros)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return true;
+        });
+        if (!copiou) {
+            jdbcTemplate.batchUpdate(INSERT, livros, livros.size(), (ps, livro) -> {
+                ps.setObject(1, livro.getId());
+                ps.setString(2, livro.getIsbn());
+                ps.setString(3, livro.getTitulo());
+                ps.setObject(4, livro.getDataPublicacao());
+                ps.setString(5, livro.getGenero().name());
+                ps.setBigDecimal(6, livro.getPreco());
+                ps.setObject(7, livro.getAutor().getId());
+                ps.setObject(8, livro.getDataCadastro());
+                ps.setObject(9, livro.getDataAtualizacao());
+            });
+        }
+
+        // índices em memória (texto, sugestões) recebem os livros depois do commit do lote
+        livros.forEach(livro -> eventPublisher.publishEvent(new LivroAlteradoEvent(
+                livro.getId(), livro.getTitulo(), livro.getAutor().getId(), TipoAlteracao.CRIACAO)));
+        return new ResultadoLote(livros.size(), rejeicoes);
+    }
+
+    private boolean validarCampos(Linha linha, Importacao importacao) {
+        Set<ConstraintViolation<CadastroLivroDTO>> violacoes = validator.validate(linha.dto());
+        if (!violacoes.isEmpty()) {
+            ConstraintViolation<CadastroLivroDTO> violacao = violacoes.iterator().next();
+            return importacao.rejeitar(linha.numero(), violacao.getPropertyPath().toString(), violacao.getMessage());
+        }
+        if (linha.dto().genero() == null) {
+            return importacao.rejeitar(linha.numero(), "genero", "campo obrigatorio");
+        }
+        try {
+            livroValidator.validarPreco(linha.dto().toEntity());
+        } catch (CampoInvalidoException e) {
+            return importacao.rejeitar(linha.numero(), e.getCampo(), e.getMessage());
+        }
+        return true;
+    }
+
+    private CadastroLivroDTO lerJson(String conteudo) {
+        try {
+            return jsonMapper.readValue(conteudo, CadastroLivroDTO.class);
+        } catch (JacksonException e) {
+            throw new CampoInvalidoException(null, "JSON inválido: " + e.getOriginalMessage());
+        }
+    }
+
+    // aceita o mesmo cabeçalho gerado pela exportação (colunas a mais são ignoradas)
+    private static Map<String, Integer> mapearColunas(String cabecalho) {
+        List<String> nomes = Csv.separar(cabecalho);
+        Map<String, Integer> colunas = new HashMap<>();
+        for (int i = 0; i < nomes.size(); i++) {
+            colunas.put(nomes.get(i).trim().toLowerCase(), i);
+        }
+        for (String obrigatoria : List.of("isbn", "titulo", "data_publicacao", "genero", "id_autor")) {
+            if (!colunas.containsKey(obrigatoria)) {
+                throw new CampoInvalidoException(obrigatoria, "Coluna obrigatória ausente no cabeçalho do CSV.");
+            }
+        }
+        return colunas;
+    }
+
+    private static CadastroLivroDTO lerCsv(String conteudo, Map<String, Integer> colunas) {
+        List<String> campos = Csv.separar(conteudo);
+        return new CadastroLivroDTO(
+                campo(campos, colunas, "isbn", Function.identity()),
+                campo(campos, colunas, "titulo", Function.identity()),
+                campo(campos, colunas, "data_publicacao", LocalDate::parse),
+                campo(campos, colunas, "genero", GeneroLivro::valueOf),
+                campo(campos, colunas, "preco", BigDecimal::new),
+                campo(campos, colunas, "id_autor", UUID::fromString));
+    }
+
+    private static <T> T campo(List<String> campos, Map<String, Integer> colunas, String nome, Function<String, T> conversor) {
+        Integer indice = colunas.get(nome);
+        if (indice == null || indice >= campos.size() || campos.get(indice).isBlank()) {
+            return null;
+        }
+        try {
+            return conversor.apply(campos.get(indice).trim());
+        } catch (RuntimeException e) {
+            throw new CampoInvalidoException(nome, "Valor inválido: " + campos.get(indice));
+        }
+    }
+
+    private static String paraCsv(List<Livro> livros) {
+        StringBuilder csv = new StringBuilder(livros.size() * 160);
+        for (Livro livro : livros) {
+            csv.append(String.join(",",
+                    Csv.escapar(livro.getId()),
+                    Csv.escapar(livro.getIsbn()),
+                    Csv.escapar(livro.getTitulo()),
+                    Csv.escapar(livro.getDataPublicacao()),
+                    Csv.escapar(livro.getGenero()),
+                    Csv.escapar(livro.getPreco() == null ? null : livro.getPreco().toPlainString()),
+                    Csv.escapar(livro.getAutor().getId()),
+                    Csv.escapar(livro.getDataCadastro()),
+                    Csv.escapar(livro.getDataAtualizacao())));
+            csv.append('\n');
+        }
+        return csv.toString();
+    }
+
+    private record Linha(long numero, CadastroLivroDTO dto) {
+    }
+
+    private record ResultadoLote(int gravados, List<ErroImportacaoDTO> rejeicoes) {
+    }
+
+    // estado de uma importação em andamento
+    private static class Importacao {
+        private final List<ErroImportacaoDTO> erros = new ArrayList<>();
+        private long linhasLidas;
+        private long importados;
+        private long rejeitados;
+
+        // devolve false para poder ser usado direto no retorno das validações
+        private boolean rejeitar(long linha, String campo, String erro) {
+            rejeitados++;
+            if (erros.size() < MAXIMO_ERROS_DETALHADOS) {
+                erros.add(new ErroImportacaoDTO(linha, campo, erro));
+            }
+            return false;
+        }
+
+        private ResultadoImportacaoDTO resultado() {
+            return new ResultadoImportacaoDTO(linhasLidas, importados, rejeitados, List.copyOf(erros));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package br.com.judev.libraryapi.service;
+
+import br.com.judev.libraryapi.controller.dto.AutorDTO;
+import br.com.judev.libraryapi.controller.dto.ResultadoPesquisaLivroDTO;
+import br.com.judev.libraryapi.controller.dto.VersaoRecursoDTO;
+import br.com.judev.libraryapi.events.AutorAlteradoEvent;
+import br.com.judev.libraryapi.events.InvalidacaoPerdidaEvent;
+import br.com.judev.libraryapi.events.LivroAlteradoEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/*
+ * Cache em memória do detalhe do livro (GET /api/v1/livros/{id}), junto com a versão usada no ETag.
+ *
+ * - Caffeine: despejo W-TinyLFU (admite um livro novo só se ele for mais acessado que o que sairia),
+ *   limitado pelo tamanho aproximado em bytes (weigher) e com TTL;
+ * - invalidado depois do commit quando o livro muda (LivroService / importação) ou quando o autor muda,
+ *   já que o detalhe inclui os dados do autor; alterações feitas em outras instâncias chegam pelos
+ *   mesmos eventos, via NOTIFY (OuvinteInvalidacao);
+ * - o TTL é a rede de segurança se uma invalidação vinda de outra instância se perder;
+ * - hit/miss/despejos em /actuator/metrics (cache.gets, cache.evictions, ... com cache=livros.detalhe).
+ */
+@Component
+public class LivroDetalheCache {
+
+    /*
+     * Objetos fixos de uma entrada (record, UUIDs, datas, BigDecimal, AutorDTO e o nó do cache);
+     * o resto do peso vem dos textos, 1 byte por caractere (strings compactas em Latin-1).
+     */
+    private static final int BYTES_FIXOS_ENTRADA = 480;
+
+    private final Cache<UUID, Entrada> detalhes;
+    // id do autor -> System.nanoTime() da última alteração; só importa para cargas em andamento
+    private final Cache<UUID, Long> alteracoesAutor;
+
+    public LivroDetalheCache(
+            @Value("${libraryapi.cache.livros.tamanho-maximo:32MB}") DataSize tamanhoMaximo,
+            @Value("${libraryapi.cache.livros.ttl:10m}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.detalhes = Caffeine.newBuilder()
+                .maximumWeight(tamanhoMaximo.toBytes())
+                .weigher((UUID id, Entrada entrada) -> peso(entrada))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.alteracoesAutor = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, detalhes, "livros.detalhe");
+    }
+
+    /*
+     * Livro inexistente (Optional vazio) não fica em cache.
+     * Misses concorrentes do mesmo id já são agrupados pelo Caffeine: só a primeira thread executa
+     * a carga e as demais esperam o mesmo resultado (o mesmo papel do SingleFlight nos autores).
+     * Um invalidate durante a carga espera ela terminar e então remove a entrada.
+     *
+     * A alteração de autor não tem essa garantia (ver onAutorAlterado): se o autor do livro mudou depois
+     * do início da carga, ela pode ter lido o autor antigo, então a entrada sai e o livro é carregado de novo.
+     */
+    public Optional<Entrada> obter(UUID id, Function<UUID, Optional<Entrada>> carregar) {
+        while (true) {
+            long inicio = System.nanoTime();
+            boolean[] carregou = {false};
+            Entrada entrada = detalhes.get(id, chave -> {
+                carregou[0] = true;
+                return carregar.apply(chave).orElse(null);
+            });
+            if (entrada == null || !carregou[0] || !autorAlteradoDesde(entrada, inicio)) {
+                return Optional.ofNullable(entrada);
+            }
+            detalhes.asMap().remove(id, entrada);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLivroAlterado(LivroAlteradoEvent evento) {
+        detalhes.invalidate(evento.id());
+    }
+
+    /*
+     * Não há índice autor -> livros: percorre as entradas (alteração de autor é rara e o cache é limitado).
+     * A varredura não vê uma carga ainda em andamento; o horário da alteração, gravado antes dela,
+     * é o que o obter confere quando a carga termina.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAutorAlterado(AutorAlteradoEvent evento) {
+        alteracoesAutor.put(evento.id(), System.nanoTime());
+        detalhes.asMap().values().removeIf(entrada -> {
+            AutorDTO autor = entrada.livro().autor();
+            return autor != null && evento.id().equals(autor.id());
+        });
+    }
+
+    private boolean autorAlteradoDesde(Entrada entrada, long inicio) {
+        AutorDTO autor = entrada.livro().autor();
+        Long alteracao = autor == null ? null : alteracoesAutor.getIfPresent(autor.id());
+        return alteracao != null && alteracao - inicio >= 0;
+    }
+
+    @EventListener(InvalidacaoPerdidaEvent.class)
+    public void onInvalidacaoPerdida() {
+        detalhes.invalidateAll();
+    }
+
+    private static int peso(Entrada entrada) {
+        ResultadoPesquisaLivroDTO livro = entrada.livro();
+        int caracteres = tamanho(livro.isbn()) + tamanho(livro.titulo());
+        if (livro.autor() != null) {
+            caracteres += tamanho(livro.autor().nome()) + tamanho(livro.autor().nacionalidade());
+        }
+        return BYTES_FIXOS_ENTRADA + caracteres;
+    }
+
+    private static int tamanho(String texto) {
+        return texto == null ? 0 : texto.length();
+    }
+
+    public record Entrada(VersaoRecursoDTO versao, ResultadoPesquisaLivroDTO livro) {
+    }
+}
@@ -1,40 +1,77 @@
 package br.com.judev.libraryapi.service;
 
+import br.com.judev.libraryapi.controller.dto.FacetasLivroDTO;
+import br.com.judev.libraryapi.controller.dto.ResultadoPesquisaLivroDTO;
+import br.com.judev.libraryapi.events.LivroAlteradoEvent;
+import br.com.judev.libraryapi.events.TipoAlteracao;
+import br.com.judev.libraryapi.exceptions.CampoInvalidoException;
+import br.com.judev.libraryapi.exceptions.VersaoDivergenteException;
 import br.com.judev.libraryapi.model.Autor;
-import br.com.judev.libraryapi.model.GeneroLivro;
 import br.com.judev.libraryapi.model.Livro;
 import br.com.judev.libraryapi.repository.AutorRepository;
+import br.com.judev.libraryapi.repository.LivroRemocaoRepository;
 import br.com.judev.libraryapi.repository.LivroRepository;
+import br.com.judev.libraryapi.repository.specs.FacetaLivro;
+import br.com.judev.libraryapi.repository.specs.FiltroPesquisaLivro;
+import br.com.judev.libraryapi.search.IndiceTextoLivros;
 import br.com.judev.libraryapi.validator.LivroValidator;
-import org.springframework.data.domain.Page;
+import br.com.judev.libraryapi.validator.ViolacaoConstraint;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import static br.com.judev.libraryapi.repository.specs.LivroSpecs.*;
+import static br.com.judev.libraryapi.repository.specs.LivroSpecs.aposCursor;
 
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class LivroService {
 
     private final LivroRepository livroRepository;
     private final AutorRepository autorRepository;
+    private final LivroRemocaoRepository remocaoRepository;
     private final LivroValidator livroValidator;
+    private final ContagemPesquisaCache contagemCache;
+    private final LivroDetalheCache detalheCache;
+    private final IndiceTextoLivros indiceTexto;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final Sort ORDENACAO_CURSOR = Sort.by("titulo", "id");
 
     public LivroService(LivroRepository livroRepository,
                         AutorRepository autorRepository,
-                        LivroValidator livroValidator) {
+                        LivroRemocaoRepository remocaoRepository,
+                        LivroValidator livroValidator,
+                        ContagemPesquisaCache contagemCache,
+                        LivroDetalheCache detalheCache,
+                        IndiceTextoLivros indiceTexto,
+                        ApplicationEventPublisher eventPublisher) {
         this.livroRepository = livroRepository;
         this.autorRepository = autorRepository;
+        this.remocaoRepository = remocaoRepository;
         this.livroValidator = livroValidator;
+        this.contagemCache = contagemCache;
+        this.detalheCache = detalheCache;
+        this.indiceTexto = indiceTexto;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
     public Livro salvar(Livro livro) {
-        // valida ISBN duplicado e regra do preço (>=2020)
+        // regra do preço (>=2020); o ISBN duplicado só é consultado antes no modo CONSULTA
         livroValidator.validar(livro);
 
         if (livro.getAutor() == null || livro.getAutor().getId() == null) {
@@ -46,7 +83,9 @@ public class LivroService {
                 .orElseThrow(() -> new IllegalArgumentException("Autor não encontrado para o id: " + idAutor));
 
         livro.setAutor(autor);
-        return livroRepository.save(livro);
+        Livro salvo = gravar(livro);
+        publicarAlteracao(salvo, TipoAlteracao.CRIACAO);
+        return salvo;
     }
 
     @Transactional(readOnly = true)
@@ -54,54 +93,183 @@ public class LivroService {
         return livroRepository.findById(id);
     }
 
+    /*
+     * Detalhe do livro (já com o autor) e a versão para o ETag, pelo LivroDetalheCache.
+     * Sem @Transactional: o acerto no cache não abre transação nem pega conexão. No miss são
+     * duas consultas pela pk, a versão antes do resumo (ver GenericController.respostaCondicional).
+     */
+    public Optional<LivroDetalheCache.Entrada> obterDetalhe(UUID id) {
+        return detalheCache.obter(id, chave -> livroRepository.obterVersao(chave)
+                .flatMap(versao -> livroRepository.obterResumoPorId(chave)
+                        .map(livro -> new LivroDetalheCache.Entrada(versao, livro))));
+    }
+
+    // o tombstone vai na mesma transação: a sincronização incremental (SincronizacaoLivroService) informa a remoção
     @Transactional
     public void deletar(Livro livro) {
         livroRepository.delete(livro);
+        remocaoRepository.registrar(livro.getId(), LocalDateTime.now());
+        publicarAlteracao(livro, TipoAlteracao.REMOCAO);
     }
 
-    // isbn, titulo, nome autor, genero, ano de publicação
+    /*
+     * isbn, titulo, nome autor, genero, ano de publicação.
+     * facetas (opcional): contagens por gênero / ano de publicação / nacionalidade do autor para o
+     * mesmo filtro, em uma única query agrupada (ver LivroRepositoryCustomImpl). Página e facetas saem
+     * da mesma transação read-only: uma conexão emprestada, não duas.
+     */
     @Transactional(readOnly = true)
-    public Page<Livro> pesquisa(
-            String isbn,
-            String titulo,
-            String nomeAutor,
-            GeneroLivro genero,
-            Integer anoPublicacao,
+    public PesquisaLivros pesquisa(
+            FiltroPesquisaLivro filtro,
             Integer pagina,
+            Integer tamanhoPagina,
+            EstrategiaContagem contagem,
+            Set<FacetaLivro> facetas
+    ) {
+        FiltroPesquisaLivro filtroNormalizado = filtro.normalizado();
+        Specification<Livro> specs = filtroNormalizado.toSpecification();
+
+        Pageable pageRequest = PageRequest.of(
+                pagina != null ? pagina : 0,
+                tamanhoPagina != null ? tamanhoPagina : 10
+        );
+
+        // os totais aproximados só são consultados quando a própria página não dá o total exato
+        AtomicReference<EstrategiaContagem> aplicada = new AtomicReference<>(EstrategiaContagem.EXATA);
+        Slice<ResultadoPesquisaLivroDTO> resultado = switch (contagem != null ? contagem : EstrategiaContagem.EXATA) {
+            case EXATA -> livroRepository.pesquisarResumo(specs, pageRequest);
+            case CACHE -> livroRepository.pesquisarResumoComTotalAproximado(specs, pageRequest, () -> {
+                aplicada.set(EstrategiaContagem.CACHE);
+                return contagemCache.obter(filtroNormalizado, () -> {
+                    aplicada.set(EstrategiaContagem.EXATA);
+                    return livroRepository.contar(specs);
+                });
+            });
+            case ESTIMADA -> livroRepository.pesquisarResumoComTotalAproximado(specs, pageRequest, () -> {
+                aplicada.set(EstrategiaContagem.ESTIMADA);
+                return livroRepository.estimarTotal(filtroNormalizado);
+            });
+            case NENHUMA -> {
+                aplicada.set(EstrategiaContagem.NENHUMA);
+                yield livroRepository.pesquisarResumoSemContagem(specs, pageRequest);
+            }
+        };
+
+        FacetasLivroDTO contagensFacetas = facetas == null || facetas.isEmpty()
+                ? null
+                : livroRepository.contarFacetas(filtroNormalizado, facetas);
+        return new PesquisaLivros(resultado, contagensFacetas, aplicada.get());
+    }
+
+    /*
+     * Mesma pesquisa, mas paginada por cursor (keyset) em vez de OFFSET:
+     * - ordena por (titulo, id) e continua a partir do último par visto;
+     * - busca tamanhoPagina + 1 registros só para saber se existe próxima página;
+     * - não executa count(*).
+     * O custo de cada página é o mesmo, seja a primeira ou a de número 5.000.
+     */
+    @Transactional(readOnly = true)
+    public PaginaCursor<ResultadoPesquisaLivroDTO> pesquisaPorCursor(
+            FiltroPesquisaLivro filtro,
+            String cursor,
             Integer tamanhoPagina
     ) {
-        Specification<Livro> specs = Specification.where((root, query, cb) -> cb.conjunction());
+        int tamanho = tamanhoPagina != null ? tamanhoPagina : 10;
+        if (tamanho < 1) {
+            throw new CampoInvalidoException("tamanho-pagina", "O tamanho da página deve ser maior que zero.");
+        }
 
-        if (isbn != null && !isbn.isBlank()) {
-            specs = specs.and(isbnEqual(isbn));
+        Specification<Livro> specs = filtro.normalizado().toSpecification();
+        if (cursor != null && !cursor.isBlank()) {
+            var posicao = PaginaCursor.Cursor.decodificar(cursor);
+            specs = specs.and(aposCursor(posicao.chave(), posicao.id()));
         }
-        if (titulo != null && !titulo.isBlank()) {
-            specs = specs.and(tituloLike(titulo));
+
+        List<ResultadoPesquisaLivroDTO> livros =
+                livroRepository.pesquisarResumo(specs, ORDENACAO_CURSOR, tamanho + 1);
+
+        if (livros.size() <= tamanho) {
+            return new PaginaCursor<>(livros, null);
         }
-        if (genero != null) {
-            specs = specs.and(generoEqual(genero));
+
+        List<ResultadoPesquisaLivroDTO> pagina = livros.subList(0, tamanho);
+        ResultadoPesquisaLivroDTO ultimo = pagina.get(tamanho - 1);
+        String proximo = new PaginaCursor.Cursor(ultimo.titulo(), ultimo.id()).codificar();
+        return new PaginaCursor<>(pagina, proximo);
+    }
+
+    /*
+     * PUT em uma única transação, com no máximo dois statements:
+     * - select do livro pelo id (o novo autor entra só como referência, sem select; ver fk_livro_autor);
+     * - confere a versão do If-Match (versaoEsperada null = não confere) -> 412 se divergir;
+     * - update ... where id = ? and versao = ? no flush. Se outra requisição gravou entre o select
+     *   e o update, nenhuma linha é alterada e o Hibernate lança ObjectOptimisticLockingFailureException (412).
+     */
+    @Transactional
+    public Optional<Livro> atualizar(UUID id, Long versaoEsperada, Livro dados) {
+        Optional<Livro> encontrado = livroRepository.findById(id);
+        if (encontrado.isEmpty()) {
+            return encontrado;
         }
-        if (anoPublicacao != null) {
-            specs = specs.and(anoPublicacaoEqual(anoPublicacao));
+
+        Livro livro = encontrado.get();
+        if (versaoEsperada != null && !versaoEsperada.equals(livro.getVersao())) {
+            throw new VersaoDivergenteException(
+                    "O livro foi alterado por outra requisição (versão atual: " + livro.getVersao() + ").");
         }
-        if (nomeAutor != null && !nomeAutor.isBlank()) {
-            specs = specs.and(nomeAutorLike(nomeAutor));
+
+        // valida os dados recebidos antes de alterar a entidade gerenciada: a consulta de ISBN
+        // (modo CONSULTA) não dispara o flush de um livro já modificado
+        dados.setId(id);
+        livroValidator.validar(dados);
+
+        livro.setDataPublicacao(dados.getDataPublicacao());
+        livro.setIsbn(dados.getIsbn());
+        livro.setPreco(dados.getPreco());
+        livro.setGenero(dados.getGenero());
+        livro.setTitulo(dados.getTitulo());
+        livro.setAutor(autorRepository.getReferenceById(dados.getAutor().getId()));
+
+        Livro salvo = gravar(livro);
+        publicarAlteracao(salvo, TipoAlteracao.ATUALIZACAO);
+        return Optional.of(salvo);
+    }
+
+    /*
+     * Busca textual (q=) no índice em memória: o índice devolve os ids já ranqueados
+     * e o banco só é consultado para montar os DTOs, por chave primária.
+     */
+    @Transactional(readOnly = true)
+    public List<ResultadoPesquisaLivroDTO> buscaTextual(String consulta, Integer limite) {
+        int tamanho = limite != null ? limite : 10;
+        if (tamanho < 1) {
+            throw new CampoInvalidoException("tamanho-pagina", "O tamanho da página deve ser maior que zero.");
         }
 
-        Pageable pageRequest = PageRequest.of(
-                pagina != null ? pagina : 0,
-                tamanhoPagina != null ? tamanhoPagina : 10
-        );
+        List<UUID> ids = indiceTexto.buscar(consulta, tamanho);
+        Map<UUID, Integer> posicao = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            posicao.put(ids.get(i), i);
+        }
 
-        return livroRepository.findAll(specs, pageRequest);
+        return livroRepository.obterResumosPorIds(ids)
+                .stream()
+                .sorted(Comparator.comparing(livro -> posicao.get(livro.id())))
+                .toList();
     }
 
-    @Transactional
-    public void atualizar(Livro livro) {
-        if (livro.getId() == null) {
-            throw new IllegalArgumentException("Para atualizar, é necessário que o livro já esteja salvo na base.");
+    // flush imediato: a violação de uk_livro_isbn / fk_livro_autor aparece aqui, e não no commit, e vira RegistroDuplicadoException
+    private Livro gravar(Livro livro) {
+        try {
+            return livroRepository.saveAndFlush(livro);
+        } catch (DataIntegrityViolationException e) {
+            throw ViolacaoConstraint.traduzir(e);
         }
-        livroValidator.validar(livro);
-        livroRepository.save(livro);
+    }
+
+    // o índice textual (e quem mais escutar) só aplica a alteração depois do commit
+    private void publicarAlteracao(Livro livro, TipoAlteracao tipo) {
+        UUID idAutor = livro.getAutor() != null ? livro.getAutor().getId() : null;
+        eventPublisher.publishEvent(new LivroAlteradoEvent(livro.getId(), livro.getTitulo(), idAutor, tipo));
     }
 }
\ No newline at end of file
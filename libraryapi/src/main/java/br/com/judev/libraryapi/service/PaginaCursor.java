@@ -0,0 +1,54 @@
+package br.com.judev.libraryapi.service;
+
+import br.com.judev.libraryapi.exceptions.CampoInvalidoException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/*
+ * Página de uma pesquisa por cursor (keyset pagination).
+ *
+ * Em vez de "pagina N" (OFFSET), o cliente devolve o cursor "proximo" da resposta anterior,
+ * e a consulta continua a partir da última (chave de ordenação, id) vista.
+ * Não existe count(*): quando "proximo" vem nulo, não há mais registros.
+ */
+public record PaginaCursor<T>(List<T> conteudo, String proximo) {
+
+    public <R> PaginaCursor<R> map(Function<? super T, ? extends R> conversor) {
+        List<R> convertidos = conteudo.stream().<R>map(conversor).toList();
+        return new PaginaCursor<>(convertidos, proximo);
+    }
+
+    /*
+     * Posição do cursor: valor da chave de ordenação + id do último registro da página.
+     * Vai para o cliente como um token opaco (Base64 URL-safe de "id:chave").
+     * O id vem primeiro porque tem tamanho fixo, então a chave pode conter qualquer caractere.
+     */
+    public record Cursor(String chave, UUID id) {
+
+        private static final int TAMANHO_UUID = 36;
+
+        public String codificar() {
+            String valor = id + ":" + chave;
+            return Base64.getUrlEncoder()
+                    .withoutPadding()
+                    .encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Cursor decodificar(String token) {
+            try {
+                String valor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                if (valor.length() <= TAMANHO_UUID || valor.charAt(TAMANHO_UUID) != ':') {
+                    throw new IllegalArgumentException(token);
+                }
+                UUID id = UUID.fromString(valor.substring(0, TAMANHO_UUID));
+                return new Cursor(valor.substring(TAMANHO_UUID + 1), id);
+            } catch (IllegalArgumentException e) {
+                throw new CampoInvalidoException("cursor", "Cursor inválido.");
+            }
+        }
+    }
+}
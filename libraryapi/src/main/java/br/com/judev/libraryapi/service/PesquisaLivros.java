@@ -0,0 +1,18 @@
+package br.com.judev.libraryapi.service;
+
+import br.com.judev.libraryapi.controller.dto.FacetasLivroDTO;
+import br.com.judev.libraryapi.controller.dto.ResultadoPesquisaLivroDTO;
+import org.springframework.data.domain.Slice;
+
+/*
+ * Resultado da pesquisa paginada de livros.
+ * - facetas: null quando não foram pedidas;
+ * - contagem: a estratégia que de fato deu o total, que pode não ser a pedida: sem próxima página
+ *   o total sai exato da própria página, e no CACHE vencido o count(*) é refeito (nos dois casos, EXATA).
+ */
+public record PesquisaLivros(
+        Slice<ResultadoPesquisaLivroDTO> resultado,
+        FacetasLivroDTO facetas,
+        EstrategiaContagem contagem
+) {
+}
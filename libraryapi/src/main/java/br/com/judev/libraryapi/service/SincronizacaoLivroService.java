@@ -0,0 +1,161 @@
+package br.com.judev.libraryapi.service;
+
+import br.com.judev.libraryapi.config.CargaTrabalho;
+import br.com.judev.libraryapi.config.TipoCarga;
+import br.com.judev.libraryapi.controller.dto.AlteracoesLivrosDTO;
+import br.com.judev.libraryapi.controller.dto.MarcaAlteracaoDTO;
+import br.com.judev.libraryapi.controller.dto.ResultadoPesquisaLivroDTO;
+import br.com.judev.libraryapi.exceptions.CampoInvalidoException;
+import br.com.judev.libraryapi.exceptions.CursorExpiradoException;
+import br.com.judev.libraryapi.repository.LivroRemocaoRepository;
+import br.com.judev.libraryapi.repository.LivroRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+ * Sincronização incremental para clientes offline (GET /api/v1/livros/alteracoes):
+ * em vez de baixar o catálogo inteiro, o cliente pede só o que mudou desde a última sincronização.
+ *
+ * - alterados: livros com data_atualizacao > desde; removidos: tombstones de livro_remocao;
+ * - as duas listas são lidas em keyset (data, id), cada uma pelo seu índice, e intercaladas na
+ *   mesma ordem, com um único cursor;
+ * - "sincronizadoAte" fica uma margem atrás do relógio: data_atualizacao é preenchida antes do commit,
+ *   então uma transação ainda aberta pode gravar uma data que já ficou para trás. A margem cobre
+ *   transações de até esse tempo (a importação em lote é a mais longa);
+ * - tombstones ficam pela retenção configurada; desde mais antigo que isso -> 410 (sincronização completa).
+ */
+@Service
+@Slf4j
+public class SincronizacaoLivroService {
+
+    // primeira página: (data, id) > (desde, maior uuid) equivale a data > desde
+    private static final UUID ID_MAXIMO = new UUID(-1L, -1L);
+
+    // mesma ordem do uuid no Postgres (bytes sem sinal); UUID.compareTo compara com sinal
+    private static final Comparator<MarcaAlteracaoDTO> ORDEM = Comparator
+            .comparing(MarcaAlteracaoDTO::data)
+            .thenComparing(MarcaAlteracaoDTO::id, (a, b) -> {
+                int msb = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+                return msb != 0 ? msb : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+            });
+
+    private final LivroRepository livroRepository;
+    private final LivroRemocaoRepository remocaoRepository;
+    private final Duration margem;
+    private final Duration retencaoRemocoes;
+
+    public SincronizacaoLivroService(LivroRepository livroRepository,
+                                     LivroRemocaoRepository remocaoRepository,
+                                     @Value("${libraryapi.alteracoes.margem:1m}") Duration margem,
+                                     @Value("${libraryapi.alteracoes.retencao-remocoes:90d}") Duration retencaoRemocoes) {
+        this.livroRepository = livroRepository;
+        this.remocaoRepository = remocaoRepository;
+        this.margem = margem;
+        this.retencaoRemocoes = retencaoRemocoes;
+    }
+
+    /*
+     * desde null: sincronização completa (todos os livros; tombstones não interessam).
+     * cursor: continuação de uma página anterior; o desde é ignorado.
+     */
+    @Transactional(readOnly = true)
+    public AlteracoesLivrosDTO alteracoes(LocalDateTime desde, String cursor, Integer tamanhoPagina) {
+        int tamanho = tamanhoPagina != null ? tamanhoPagina : 100;
+        if (tamanho < 1) {
+            throw new CampoInvalidoException("tamanho-pagina", "O tamanho da página deve ser maior que zero.");
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        LocalDateTime ate = agora.minus(margem);
+
+        MarcaAlteracaoDTO inicio;
+        if (cursor != null && !cursor.isBlank()) {
+            PaginaCursor.Cursor posicao = PaginaCursor.Cursor.decodificar(cursor);
+            inicio = new MarcaAlteracaoDTO(posicao.id(), lerData(posicao.chave()));
+        } else if (desde != null) {
+            if (desde.isBefore(agora.minus(retencaoRemocoes))) {
+                throw new CursorExpiradoException("Remoções anteriores a " + agora.minus(retencaoRemocoes)
+                        + " não estão mais disponíveis. Faça a sincronização completa (sem desde).");
+            }
+            inicio = new MarcaAlteracaoDTO(ID_MAXIMO, desde);
+        } else {
+            inicio = new MarcaAlteracaoDTO(ID_MAXIMO, LocalDateTime.of(1970, 1, 1, 0, 0));
+        }
+
+        Limit limite = Limit.of(tamanho + 1);
+        List<MarcaAlteracaoDTO> alterados =
+                livroRepository.listarAlteracoes(inicio.data(), inicio.id(), ate, limite);
+        List<MarcaAlteracaoDTO> removidos = desde == null && (cursor == null || cursor.isBlank())
+                ? List.of()
+                : remocaoRepository.listarRemocoes(inicio.data(), inicio.id(), ate, limite);
+
+        // intercala as duas listas (já ordenadas) e corta na página
+        List<MarcaAlteracaoDTO> marcas = new ArrayList<>(alterados.size() + removidos.size());
+        marcas.addAll(alterados);
+        marcas.addAll(removidos);
+        marcas.sort(ORDEM);
+
+        String proximo = null;
+        if (marcas.size() > tamanho) {
+            marcas = marcas.subList(0, tamanho);
+            MarcaAlteracaoDTO ultima = marcas.getLast();
+            proximo = new PaginaCursor.Cursor(ultima.data().toString(), ultima.id()).codificar();
+        }
+
+        Set<MarcaAlteracaoDTO> naPagina = new HashSet<>(marcas);
+        List<UUID> idsRemovidos = removidos.stream()
+                .filter(naPagina::contains)
+                .map(MarcaAlteracaoDTO::id)
+                .toList();
+        List<UUID> idsAlterados = alterados.stream()
+                .filter(naPagina::contains)
+                .map(MarcaAlteracaoDTO::id)
+                .toList();
+
+        // resumos pela pk, de volta na ordem das marcas
+        Map<UUID, ResultadoPesquisaLivroDTO> resumos = livroRepository.obterResumosPorIds(idsAlterados)
+                .stream()
+                .collect(Collectors.toMap(ResultadoPesquisaLivroDTO::id, Function.identity()));
+        List<ResultadoPesquisaLivroDTO> livros = idsAlterados.stream()
+                .map(resumos::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        return new AlteracoesLivrosDTO(livros, idsRemovidos, proximo, ate);
+    }
+
+    @Scheduled(fixedDelayString = "${libraryapi.alteracoes.limpeza-intervalo:1d}")
+    @Transactional
+    @CargaTrabalho(TipoCarga.AGENDADA)
+    public void limparRemocoes() {
+        int removidas = remocaoRepository.removerAnterioresA(LocalDateTime.now().minus(retencaoRemocoes));
+        if (removidas > 0) {
+            log.info("{} tombstones de livros removidos (retenção de {})", removidas, retencaoRemocoes);
+        }
+    }
+
+    private static LocalDateTime lerData(String chave) {
+        try {
+            return LocalDateTime.parse(chave);
+        } catch (RuntimeException e) {
+            throw new CampoInvalidoException("cursor", "Cursor inválido.");
+        }
+    }
+}
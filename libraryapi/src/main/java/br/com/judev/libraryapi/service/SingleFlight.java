@@ -0,0 +1,60 @@
+package br.com.judev.libraryapi.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/*
+ * Junta leituras concorrentes da mesma chave em uma só: a primeira thread executa a carga e
+ * as que chegam enquanto ela está em andamento recebem o mesmo resultado (ou a mesma exceção).
+ * Não guarda nada depois que a carga termina; a próxima chamada carrega de novo.
+ *
+ * Evita que uma rajada de requisições pelo mesmo registro (ex.: logo depois de uma alteração)
+ * ocupe várias conexões do pool com a mesma consulta.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> emAndamento = new ConcurrentHashMap<>();
+
+    public V executar(K chave, Supplier<V> carregar) {
+        CompletableFuture<V> nova = new CompletableFuture<>();
+        CompletableFuture<V> existente = emAndamento.putIfAbsent(chave, nova);
+        if (existente != null) {
+            return aguardar(existente);
+        }
+
+        try {
+            V valor = carregar.get();
+            nova.complete(valor);
+            return valor;
+        } catch (RuntimeException | Error e) {
+            nova.completeExceptionally(e);
+            throw e;
+        } finally {
+            emAndamento.remove(chave, nova);
+        }
+    }
+
+    /*
+     * Depois de uma alteração: a carga em andamento pode ter lido o dado antigo, então
+     * quem chegar a partir de agora começa outra (quem já está esperando recebe a antiga).
+     */
+    public void esquecer(K chave) {
+        emAndamento.remove(chave);
+    }
+
+    private static <V> V aguardar(CompletableFuture<V> carga) {
+        try {
+            return carga.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error erro) {
+                throw erro;
+            }
+            throw e;
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package br.com.judev.libraryapi.service;
 
+import br.com.judev.libraryapi.config.CargaTrabalho;
+import br.com.judev.libraryapi.config.TipoCarga;
 import br.com.judev.libraryapi.model.Usuario;
 import br.com.judev.libraryapi.repository.UsuarioRepository;
+import br.com.judev.libraryapi.events.UsuarioAlteradoEvent;
+import br.com.judev.libraryapi.events.TipoAlteracao;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -12,17 +17,23 @@ public class UsuarioService {
 
     private final UsuarioRepository repository;
     private final PasswordEncoder encoder;
+    private final ApplicationEventPublisher eventPublisher;
 
     public void salvar(Usuario usuario){
         var senha = usuario.getSenha();
         usuario.setSenha(encoder.encode(senha));
+        var tipo = usuario.getId() == null ? TipoAlteracao.CRIACAO : TipoAlteracao.ATUALIZACAO;
         repository.save(usuario);
+        eventPublisher.publishEvent(new UsuarioAlteradoEvent(usuario.getId(), usuario.getLogin(), tipo));
     }
 
+    // login e token: pool próprio, não espera atrás de lotes ou do catálogo
+    @CargaTrabalho(TipoCarga.AUTENTICACAO)
     public Usuario obterPorLogin(String login){
         return repository.findByLogin(login);
     }
 
+    @CargaTrabalho(TipoCarga.AUTENTICACAO)
     public Usuario obterPorEmail(String email){
         return repository.findByEmail(email);
     }
@@ -3,6 +3,7 @@ package br.com.judev.libraryapi.validator;
 import br.com.judev.libraryapi.exceptions.RegistroDuplicadoException;
 import br.com.judev.libraryapi.model.Autor;
 import br.com.judev.libraryapi.repository.AutorRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.Optional;
@@ -11,13 +12,17 @@ import java.util.Optional;
 public class AutorValidator {
 
     private final AutorRepository autorRepository;
+    private final ModoUnicidade modoUnicidade;
 
-    public AutorValidator(AutorRepository autorRepository) {
+    public AutorValidator(AutorRepository autorRepository,
+                          @Value("${libraryapi.unicidade.modo:CONSTRAINT}") ModoUnicidade modoUnicidade) {
         this.autorRepository = autorRepository;
+        this.modoUnicidade = modoUnicidade;
     }
 
     public void validar(Autor autor){
-        if(existeAutorCadastrado(autor)){
+        // no modo CONSTRAINT a duplicidade é detectada na gravação (uk_autor_nome_nascimento_nacionalidade)
+        if(modoUnicidade == ModoUnicidade.CONSULTA && existeAutorCadastrado(autor)){
             throw new RegistroDuplicadoException("Autor já cadastrado!");
         }
     }
@@ -29,6 +34,9 @@ public class AutorValidator {
         if(autor.getId() == null){
             return autorEncontrado.isPresent() ;
         }
-        return !autor.getId().equals(autorEncontrado.get().getId()) && autorEncontrado.isPresent();
+        return autorEncontrado
+                .map(Autor::getId)
+                .stream()
+                .anyMatch(id -> !id.equals(autor.getId()));
     }
 }
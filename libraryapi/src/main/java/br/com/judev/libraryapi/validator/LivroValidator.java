@@ -4,6 +4,7 @@ import br.com.judev.libraryapi.exceptions.CampoInvalidoException;
 import br.com.judev.libraryapi.exceptions.RegistroDuplicadoException;
 import br.com.judev.libraryapi.model.Livro;
 import br.com.judev.libraryapi.repository.LivroRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.Optional;
@@ -14,16 +15,25 @@ public class LivroValidator{
     private static final int ANO_EXIGENCIA_PRECO = 2020;
 
     private final LivroRepository repository;
+    private final ModoUnicidade modoUnicidade;
 
-    public LivroValidator(LivroRepository repository) {
+    public LivroValidator(LivroRepository repository,
+                          @Value("${libraryapi.unicidade.modo:CONSTRAINT}") ModoUnicidade modoUnicidade) {
         this.repository = repository;
+        this.modoUnicidade = modoUnicidade;
     }
 
     public void validar(Livro livro){
-        if(existeLivroComIsbn(livro)){
+        // no modo CONSTRAINT o ISBN duplicado é detectado na gravação (uk_livro_isbn)
+        if(modoUnicidade == ModoUnicidade.CONSULTA && existeLivroComIsbn(livro)){
             throw new RegistroDuplicadoException("ISBN já cadastrado!");
         }
 
+        validarPreco(livro);
+    }
+
+    // regra do preço isolada: a importação em lote valida o ISBN do lote inteiro de uma vez
+    public void validarPreco(Livro livro){
         if(isPrecoObrigatorioNulo(livro)){
             throw new CampoInvalidoException("preco", "Para livros com ano de publicação a partir de 2020, o preço é obrigatório.");
         }
@@ -0,0 +1,13 @@
+package br.com.judev.libraryapi.validator;
+
+/*
+ * Como a unicidade (ISBN do livro, nome + nascimento + nacionalidade do autor) é garantida:
+ * - CONSTRAINT: só pelas unique constraints do banco; a gravação é um único statement e a
+ *   violação vira RegistroDuplicadoException (ver ViolacaoConstraint). Correto com inserts concorrentes;
+ * - CONSULTA: consulta antes de gravar (comportamento antigo). Uma ida a mais ao banco por escrita,
+ *   e duas requisições simultâneas podem passar pela consulta; a constraint continua como rede de segurança.
+ */
+public enum ModoUnicidade {
+    CONSTRAINT,
+    CONSULTA
+}
@@ -0,0 +1,40 @@
+package br.com.judev.libraryapi.validator;
+
+import br.com.judev.libraryapi.exceptions.CampoInvalidoException;
+import br.com.judev.libraryapi.exceptions.RegistroDuplicadoException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/*
+ * Traduz a violação de uma constraint (pelo nome, definido nas migrations) para a mesma
+ * exceção que os validators davam na consulta prévia.
+ */
+public final class ViolacaoConstraint {
+
+    private static final Map<String, Supplier<RuntimeException>> EXCECOES = Map.of(
+            "uk_livro_isbn", () -> new RegistroDuplicadoException("ISBN já cadastrado!"),
+            "uk_autor_nome_nascimento_nacionalidade", () -> new RegistroDuplicadoException("Autor já cadastrado!"),
+            // PUT de livro associa o autor só pela referência, sem select: o id inexistente aparece aqui
+            "fk_livro_autor", () -> new CampoInvalidoException("idAutor", "Autor não encontrado."));
+
+    private ViolacaoConstraint() {
+    }
+
+    // exceção de negócio para as constraints conhecidas; qualquer outra violação segue como veio
+    public static RuntimeException traduzir(DataIntegrityViolationException e) {
+        Supplier<RuntimeException> excecao = EXCECOES.get(nomeConstraint(e));
+        return excecao != null ? excecao.get() : e;
+    }
+
+    private static String nomeConstraint(Throwable e) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof ConstraintViolationException violacao && violacao.getConstraintName() != null) {
+                return violacao.getConstraintName().toLowerCase();
+            }
+        }
+        return null;
+    }
+}
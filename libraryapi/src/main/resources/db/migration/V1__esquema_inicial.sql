@@ -0,0 +1,50 @@
+-- Esquema inicial (o mesmo de comandos-sql), com nomes fixos nas constraints.
+-- Bancos que já existiam (criados pelo ddl-auto) são marcados nesta versão pelo
+-- baseline-on-migrate e seguem a partir da V2.
+
+create table usuario (
+    id uuid not null,
+    login varchar(20) not null,
+    senha varchar(300) not null,
+    email varchar(150) not null,
+    roles varchar[] not null default '{}',
+    constraint pk_usuario primary key (id),
+    constraint uk_usuario_login unique (login)
+);
+
+create table autor (
+    id uuid not null,
+    nome varchar(100) not null,
+    data_nascimento date not null,
+    nacionalidade varchar(50) not null,
+    data_cadastro timestamp,
+    data_atualizacao timestamp,
+    id_usuario uuid,
+    constraint pk_autor primary key (id),
+    constraint fk_autor_usuario foreign key (id_usuario) references usuario (id) on delete set null
+);
+
+create table livro (
+    id uuid not null,
+    isbn varchar(20) not null,
+    titulo varchar(150) not null,
+    data_publicacao date not null,
+    genero varchar(30) not null,
+    preco numeric(18, 2),
+    data_cadastro timestamp,
+    data_atualizacao timestamp,
+    id_autor uuid not null,
+    constraint pk_livro primary key (id),
+    constraint uk_livro_isbn unique (isbn),
+    constraint fk_livro_autor foreign key (id_autor) references autor (id),
+    constraint chk_genero check (genero in ('FICCAO', 'FANTASIA', 'MISTERIO', 'ROMANCE', 'BIOGRAFIA', 'CIENCIA'))
+);
+
+create table client (
+    id uuid not null,
+    client_id varchar(150) not null,
+    client_secret varchar(400) not null,
+    redirect_uri varchar(200) not null,
+    scope varchar(50),
+    constraint pk_client primary key (id)
+);
@@ -0,0 +1,19 @@
+-- Índices usados pela pesquisa de livros (LivroSpecs).
+
+-- pg_trgm permite que like '%texto%' use índice (GIN de trigramas)
+create extension if not exists pg_trgm;
+
+-- tituloLike: upper(titulo) like '%TEXTO%'
+create index if not exists idx_livro_titulo_upper_trgm on livro using gin (upper(titulo) gin_trgm_ops);
+
+-- nomeAutorLike: upper(autor.nome) like '%NOME%'
+create index if not exists idx_autor_nome_upper_trgm on autor using gin (upper(nome) gin_trgm_ops);
+
+-- anoPublicacaoEqual: data_publicacao >= :inicio and data_publicacao < :fim
+create index if not exists idx_livro_data_publicacao on livro (data_publicacao);
+
+-- join livro -> autor (filtro por nome do autor)
+create index if not exists idx_livro_id_autor on livro (id_autor);
+
+-- pesquisa por cursor: order by titulo, id
+create index if not exists idx_livro_titulo_id on livro (titulo, id);
@@ -0,0 +1,19 @@
+-- Índices para as consultas dos repositórios que ainda faziam seq scan.
+
+-- UsuarioRepository.findByEmail
+create index if not exists idx_usuario_email on usuario (email);
+
+-- ClientRepository.findByClientId (usado a cada autenticação de client OAuth2)
+create index if not exists idx_client_client_id on client (client_id);
+
+-- AutorRepository.findByNomeAndDataNascimentoAndNacionalidade e findByNome: atendidos pelo índice
+-- da uk_autor_nome_nascimento_nacionalidade (V4)
+
+-- AutorRepository.findByNacionalidade
+create index if not exists idx_autor_nacionalidade on autor (nacionalidade);
+
+-- autor -> usuario: delete de usuario (on delete set null) e autores do usuário logado
+create index if not exists idx_autor_id_usuario on autor (id_usuario);
+
+-- LivroRepository.findByIsbn / existsByIsbn: atendidos pelo índice da uk_livro_isbn (V1, ou V4 nos
+-- bancos marcados pelo baseline)
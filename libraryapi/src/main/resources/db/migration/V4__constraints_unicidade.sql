@@ -0,0 +1,34 @@
+-- Unicidade garantida pelo banco (libraryapi.unicidade.modo=CONSTRAINT): os services mapeiam a violação
+-- para RegistroDuplicadoException pelo nome da constraint, então os nomes abaixo precisam ser estes.
+
+-- livro.isbn: bancos criados pela V1 já têm uk_livro_isbn. Nos marcados pelo baseline (ddl-auto)
+-- a constraint pode não existir ou ter o nome gerado pelo Hibernate (uk + hash).
+do $$
+declare
+    existente text;
+begin
+    select c.conname into existente
+    from pg_constraint c
+    where c.conrelid = 'livro'::regclass
+      and c.contype = 'u'
+      and c.conkey = array[(select attnum from pg_attribute where attrelid = 'livro'::regclass and attname = 'isbn')];
+
+    if existente is null then
+        alter table livro add constraint uk_livro_isbn unique (isbn);
+    elsif existente <> 'uk_livro_isbn' then
+        execute format('alter table livro rename constraint %I to uk_livro_isbn', existente);
+    end if;
+end
+$$;
+
+-- autor: mesmo critério do AutorValidator (nome + data de nascimento + nacionalidade).
+-- Autores duplicados precisam ser resolvidos antes; a migration para em vez de ignorar a regra.
+do $$
+begin
+    if exists (select 1 from autor group by nome, data_nascimento, nacionalidade having count(*) > 1) then
+        raise exception 'Existem autores duplicados (nome, data_nascimento, nacionalidade); resolva antes de aplicar a V4.';
+    end if;
+end
+$$;
+
+alter table autor add constraint uk_autor_nome_nascimento_nacionalidade unique (nome, data_nascimento, nacionalidade);
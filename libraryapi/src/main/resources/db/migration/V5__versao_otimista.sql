@@ -0,0 +1,5 @@
+-- Controle de concorrência otimista (@Version): o update só acontece se a versão lida
+-- ainda for a do banco (update ... where id = ? and versao = ?). Linhas existentes começam na 0.
+-- A importação em lote (COPY / insert via JDBC) não informa a coluna e também usa o default.
+alter table livro add column versao bigint not null default 0;
+alter table autor add column versao bigint not null default 0;
@@ -0,0 +1,29 @@
+-- Outbox das alterações de livro e autor, gravado na mesma transação da alteração.
+--
+-- sequencia: ordem de gravação (identity). Não serve de cursor para quem consome: uma transação
+--            que pegou a sequência 10 pode fazer commit depois da que pegou a 11.
+-- posicao:   atribuída pelo relay (RelayMudancas) ao publicar, em ordem de commit; é o cursor do
+--            feed GET /api/v1/mudancas?desde=<posicao>. null = ainda não publicado.
+create table outbox_mudanca (
+    sequencia bigint generated always as identity,
+    entidade varchar(10) not null,
+    tipo varchar(15) not null,
+    id_registro uuid not null,
+    -- estado do registro no momento da alteração (null na remoção)
+    dados jsonb,
+    data_criacao timestamp not null default now(),
+    posicao bigint,
+    data_publicacao timestamp,
+    constraint pk_outbox_mudanca primary key (sequencia),
+    constraint uk_outbox_mudanca_posicao unique (posicao),
+    constraint chk_outbox_mudanca_entidade check (entidade in ('LIVRO', 'AUTOR')),
+    constraint chk_outbox_mudanca_tipo check (tipo in ('CRIACAO', 'ATUALIZACAO', 'REMOCAO'))
+);
+
+create sequence outbox_mudanca_posicao;
+
+-- o relay busca só as pendentes, em ordem de gravação
+create index idx_outbox_mudanca_pendente on outbox_mudanca (sequencia) where posicao is null;
+
+-- limpeza das publicadas mais antigas que a retenção
+create index idx_outbox_mudanca_data_publicacao on outbox_mudanca (data_publicacao) where posicao is not null;
@@ -0,0 +1,16 @@
+-- Sincronização incremental (GET /api/v1/livros/alteracoes?desde=): livros por data_atualizacao
+-- e os removidos por data_remocao, ambos em keyset (data, id).
+
+-- linhas antigas sem data de atualização (anteriores à auditoria) entram como alteradas no cadastro
+update livro set data_atualizacao = coalesce(data_cadastro, localtimestamp) where data_atualizacao is null;
+
+create index idx_livro_data_atualizacao_id on livro (data_atualizacao, id);
+
+-- tombstones: o livro removido some da tabela livro, mas o cliente offline precisa saber que ele saiu
+create table livro_remocao (
+    id uuid not null,
+    data_remocao timestamp not null,
+    constraint pk_livro_remocao primary key (id)
+);
+
+create index idx_livro_remocao_data_remocao_id on livro_remocao (data_remocao, id);
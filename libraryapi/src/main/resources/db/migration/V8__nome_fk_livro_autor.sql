@@ -0,0 +1,22 @@
+-- livro.id_autor -> autor: o LivroService traduz a violação pelo nome fk_livro_autor (autor inexistente
+-- no PUT vira 422). Bancos criados pela V1 já têm esse nome; nos marcados pelo baseline a FK tem o nome
+-- do comandos-sql (livro_id_autor_fkey) ou o gerado pelo Hibernate (FK + hash), ou nem existe.
+do $$
+declare
+    existente text;
+begin
+    select c.conname into existente
+    from pg_constraint c
+    where c.conrelid = 'livro'::regclass
+      and c.contype = 'f'
+      and c.confrelid = 'autor'::regclass
+      and c.conkey = array[(select attnum from pg_attribute where attrelid = 'livro'::regclass and attname = 'id_autor')];
+
+    if existente is null then
+        -- not valid: livros órfãos antigos não impedem a migration; as novas gravações já são verificadas
+        alter table livro add constraint fk_livro_autor foreign key (id_autor) references autor (id) not valid;
+    elsif existente <> 'fk_livro_autor' then
+        execute format('alter table livro rename constraint %I to fk_livro_autor', existente);
+    end if;
+end
+$$;
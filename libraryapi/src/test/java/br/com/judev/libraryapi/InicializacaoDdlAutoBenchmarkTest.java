@@ -0,0 +1,70 @@
+package br.com.judev.libraryapi;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.metrics.StartupStep;
+
+import java.time.Duration;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Custo do ddl-auto no startup: sobe a aplicação com spring.jpa.hibernate.ddl-auto=update (o que havia
+ * antes das migrations) e com none (o atual), alternando, e compara o menor tempo de cada um.
+ *
+ * O tempo medido é o da criação do bean entityManagerFactory (é ali que o Hibernate lê os metadados do
+ * banco e compara com as entidades), tirado do BufferingApplicationStartup; o startup inteiro varia
+ * demais com o resto do contexto. O esquema já vem do Flyway, então o update não deveria ter o que alterar.
+ *
+ * Sobe o contexto várias vezes: a classe tem @Tag("benchmark") e roda com mvn test -Pbenchmark.
+ */
+@Tag("benchmark")
+class InicializacaoDdlAutoBenchmarkTest {
+
+    private static final int EXECUCOES = 3;
+
+    @Test
+    void semDdlAutoInicializaMaisRapidoTest(){
+        Duration update = Duration.ofDays(1);
+        Duration none = Duration.ofDays(1);
+        for (int i = 0; i < EXECUCOES; i++) {
+            update = menor(update, tempoEntityManagerFactory("update"));
+            none = menor(none, tempoEntityManagerFactory("none"));
+        }
+
+        assertTrue(none.compareTo(update) < 0,
+                "entityManagerFactory: ddl-auto=none " + none.toMillis() + " ms | update " + update.toMillis() + " ms");
+    }
+
+    private static Duration tempoEntityManagerFactory(String ddlAuto){
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(10_000);
+        try (ConfigurableApplicationContext ignored = new SpringApplicationBuilder(LibraryapiApplication.class)
+                .applicationStartup(startup)
+                .properties("spring.jpa.hibernate.ddl-auto=" + ddlAuto, "server.port=0")
+                .run()) {
+            return startup.getBufferedTimeline().getEvents().stream()
+                    .filter(evento -> evento.getStartupStep().getName().equals("spring.beans.instantiate"))
+                    .filter(evento -> beanName(evento).equals("entityManagerFactory"))
+                    .map(StartupTimeline.TimelineEvent::getDuration)
+                    .findFirst()
+                    .orElseThrow();
+        }
+    }
+
+    private static String beanName(StartupTimeline.TimelineEvent evento){
+        return StreamSupport.stream(evento.getStartupStep().getTags().spliterator(), false)
+                .filter(tag -> tag.getKey().equals("beanName"))
+                .map(StartupStep.Tag::getValue)
+                .findFirst()
+                .orElse("");
+    }
+
+    private static Duration menor(Duration a, Duration b){
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
@@ -0,0 +1,53 @@
+package br.com.judev.libraryapi;
+
+import br.com.judev.libraryapi.model.Autor;
+import br.com.judev.libraryapi.model.GeneroLivro;
+import br.com.judev.libraryapi.model.Livro;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Massa de dados dos testes que gravam no banco compartilhado.
+ *
+ * O marcador é único por execução e entra no nome, título e ISBN do que o teste cadastra, para
+ * filtrar as próprias linhas no meio das que já existem. Autores e livros saem com valores padrão
+ * e sem gravar: quem chama salva pelo repositório (e remove, quando não há rollback).
+ */
+public final class MassaTeste {
+
+    private MassaTeste(){
+    }
+
+    public static String marcador(String prefixo){
+        return prefixo + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    }
+
+    public static Autor autor(String nome){
+        return autor(nome, "Brasileira");
+    }
+
+    public static Autor autor(String nome, String nacionalidade){
+        Autor autor = new Autor();
+        autor.setNome(nome);
+        autor.setNacionalidade(nacionalidade);
+        autor.setDataNascimento(LocalDate.of(1960, 1, 1));
+        return autor;
+    }
+
+    public static Livro livro(String isbn, String titulo, Autor autor){
+        return livro(isbn, titulo, GeneroLivro.FICCAO, LocalDate.of(2000, 6, 1), autor);
+    }
+
+    public static Livro livro(String isbn, String titulo, GeneroLivro genero, LocalDate dataPublicacao, Autor autor){
+        Livro livro = new Livro();
+        livro.setIsbn(isbn);
+        livro.setTitulo(titulo);
+        livro.setDataPublicacao(dataPublicacao);
+        livro.setGenero(genero);
+        livro.setPreco(BigDecimal.TEN);
+        livro.setAutor(autor);
+        return livro;
+    }
+}
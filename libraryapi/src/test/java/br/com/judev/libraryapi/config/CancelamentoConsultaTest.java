@@ -0,0 +1,159 @@
+package br.com.judev.libraryapi.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cancelamento das consultas de uma requisição: cancelar(), chamado de outra thread, manda
+ * Statement.cancel() para o statement em execução e recusa os seguintes; fora de uma requisição
+ * cancelável o statement só executa. Também quais handlers o CancelamentoConsultaFilter deixa de fora.
+ */
+class CancelamentoConsultaTest {
+
+    @Test
+    void semCancelamentoSoExecutaTest() throws Exception {
+        assertEquals("ok", rastrear(statement(new CountDownLatch(1), new AtomicInteger()), () -> "ok"));
+        assertFalse(CancelamentoConsulta.canceladaNaThreadAtual());
+    }
+
+    @Test
+    void cancelarInterrompeStatementEmExecucaoTest() throws Exception {
+        CancelamentoConsulta cancelamento = new CancelamentoConsulta();
+        CountDownLatch cancelado = new CountDownLatch(1);
+        AtomicInteger cancelamentos = new AtomicInteger();
+        Statement statement = statement(cancelado, cancelamentos);
+        CountDownLatch executando = new CountDownLatch(1);
+
+        // a consulta "roda" até o driver receber o cancel, como o PostgreSQL com o pedido de cancelamento
+        CompletableFuture<Object> requisicao = CompletableFuture.supplyAsync(() -> {
+            try {
+                return CancelamentoConsulta.executar(cancelamento, () -> rastrear(statement, () -> {
+                    executando.countDown();
+                    assertTrue(cancelado.await(10, TimeUnit.SECONDS), "cancel não chegou ao statement");
+                    throw new SQLException("canceling statement due to user request", CancelamentoConsulta.SQLSTATE_CANCELADA);
+                }));
+            } catch (Exception e) {
+                return e;
+            }
+        });
+
+        assertTrue(executando.await(10, TimeUnit.SECONDS));
+        cancelamento.cancelar();
+
+        SQLException erro = assertInstanceOf(SQLException.class, requisicao.get(10, TimeUnit.SECONDS));
+        assertEquals(CancelamentoConsulta.SQLSTATE_CANCELADA, erro.getSQLState());
+        assertEquals(1, cancelamentos.get());
+        assertTrue(cancelamento.isCancelada());
+    }
+
+    @Test
+    void statementDepoisDoCancelamentoNemExecutaTest() throws Exception {
+        CancelamentoConsulta cancelamento = new CancelamentoConsulta();
+        AtomicInteger execucoes = new AtomicInteger();
+        AtomicInteger cancelamentos = new AtomicInteger();
+        cancelamento.cancelar();
+
+        SQLException erro = assertThrows(SQLException.class, () -> CancelamentoConsulta.executar(cancelamento, () -> {
+            assertTrue(CancelamentoConsulta.canceladaNaThreadAtual());
+            return rastrear(statement(new CountDownLatch(1), cancelamentos), execucoes::incrementAndGet);
+        }));
+
+        assertEquals(CancelamentoConsulta.SQLSTATE_CANCELADA, erro.getSQLState());
+        assertEquals(0, execucoes.get());
+        assertEquals(0, cancelamentos.get());
+        assertFalse(CancelamentoConsulta.canceladaNaThreadAtual());
+    }
+
+    // statement que terminou não recebe cancel
+    @Test
+    void cancelarDepoisDoStatementNaoCancelaNadaTest() throws Exception {
+        CancelamentoConsulta cancelamento = new CancelamentoConsulta();
+        AtomicInteger cancelamentos = new AtomicInteger();
+        Statement statement = statement(new CountDownLatch(1), cancelamentos);
+
+        CancelamentoConsulta.executar(cancelamento, () -> rastrear(statement, () -> 1));
+        cancelamento.cancelar();
+
+        assertEquals(0, cancelamentos.get());
+    }
+
+    @Test
+    void handlersAssincronosFicamDeForaTest() throws NoSuchMethodException {
+        assertFalse(CancelamentoConsultaFilter.assincrono(handler("lista")));
+        assertFalse(CancelamentoConsultaFilter.assincrono(handler("entidade")));
+        assertTrue(CancelamentoConsultaFilter.assincrono(handler("exportacao")));
+        assertTrue(CancelamentoConsultaFilter.assincrono(handler("feed")));
+        assertTrue(CancelamentoConsultaFilter.assincrono(handler("futuro")));
+    }
+
+    // o execute* real só lança SQLException ou unchecked
+    private static Object rastrear(Statement statement, CancelamentoConsulta.Execucao execucao) throws Exception {
+        try {
+            return CancelamentoConsulta.rastrear(statement, execucao);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static HandlerMethod handler(String nome) throws NoSuchMethodException {
+        return new HandlerMethod(new Handlers(), Handlers.class.getMethod(nome));
+    }
+
+    // só cancel, contado e avisado pelo latch
+    private static Statement statement(CountDownLatch cancelado, AtomicInteger cancelamentos) {
+        return (Statement) Proxy.newProxyInstance(CancelamentoConsultaTest.class.getClassLoader(),
+                new Class<?>[]{Statement.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "cancel" -> {
+                        cancelamentos.incrementAndGet();
+                        cancelado.countDown();
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    static class Handlers {
+
+        public List<String> lista() {
+            return List.of();
+        }
+
+        public ResponseEntity<String> entidade() {
+            return ResponseEntity.ok("");
+        }
+
+        public ResponseEntity<StreamingResponseBody> exportacao() {
+            return ResponseEntity.ok(saida -> { });
+        }
+
+        public DeferredResult<String> feed() {
+            return new DeferredResult<>();
+        }
+
+        public CompletableFuture<String> futuro() {
+            return CompletableFuture.completedFuture("");
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package br.com.judev.libraryapi.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Regra de ajuste do GerenciadorPools: cresce com fila e banco com folga, encolhe com folga
+ * ou banco saturado, sempre dentro dos limites do pool.
+ */
+class GerenciadorPoolsTest {
+
+    private static final Duration ALVO = Duration.ofMillis(20);
+
+    @Test
+    void cresceComFilaEBancoComFolgaTest() {
+        var janela = new GerenciadorPools.Janela(Duration.ofMillis(150), 0, 10, 6);
+        assertEquals(12, GerenciadorPools.novoTamanho(10, 5, 20, janela, false, ALVO));
+    }
+
+    @Test
+    void cresceComTimeoutMesmoComEsperaMediaBaixaTest() {
+        var janela = new GerenciadorPools.Janela(Duration.ofMillis(5), 3, 4, 2);
+        assertEquals(5, GerenciadorPools.novoTamanho(4, 2, 6, janela, false, ALVO));
+    }
+
+    @Test
+    void naoPassaDoMaximoTest() {
+        var janela = new GerenciadorPools.Janela(Duration.ofSeconds(1), 0, 20, 30);
+        assertEquals(20, GerenciadorPools.novoTamanho(19, 5, 20, janela, false, ALVO));
+    }
+
+    @Test
+    void encolheComBancoSaturadoMesmoComFilaTest() {
+        var janela = new GerenciadorPools.Janela(Duration.ofMillis(500), 2, 10, 8);
+        assertEquals(9, GerenciadorPools.novoTamanho(10, 5, 20, janela, true, ALVO));
+    }
+
+    @Test
+    void encolheComConexoesSobrandoTest() {
+        var janela = new GerenciadorPools.Janela(Duration.ofMillis(1), 0, 2, 0);
+        assertEquals(9, GerenciadorPools.novoTamanho(10, 5, 20, janela, false, ALVO));
+    }
+
+    @Test
+    void naoEncolheAbaixoDoMinimoTest() {
+        var janela = new GerenciadorPools.Janela(Duration.ZERO, 0, 0, 0);
+        assertEquals(5, GerenciadorPools.novoTamanho(5, 5, 20, janela, false, ALVO));
+    }
+
+    @Test
+    void mantemQuandoEstaEquilibradoTest() {
+        var janela = new GerenciadorPools.Janela(Duration.ofMillis(10), 0, 8, 0);
+        assertEquals(10, GerenciadorPools.novoTamanho(10, 5, 20, janela, false, ALVO));
+    }
+}
@@ -0,0 +1,117 @@
+package br.com.judev.libraryapi.config;
+
+import br.com.judev.libraryapi.mudancas.RelayMudancas;
+import br.com.judev.libraryapi.service.UsuarioService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Isolamento dos pools por carga: com todas as conexões do pool de lotes presas (como numa exportação
+ * longa), a busca de usuário do login (@CargaTrabalho(AUTENTICACAO)) e o relay do outbox
+ * (@CargaTrabalho(AGENDADA)) continuam respondendo na hora, cada um pelo seu pool
+ * (hikaricp.connections.acquire com a tag do pool).
+ */
+@SpringBootTest
+class PoolsCargaTrabalhoTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    UsuarioService usuarioService;
+
+    @Autowired
+    RelayMudancas relay;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${libraryapi.pools.lote.tamanho}")
+    int tamanhoLote;
+
+    @Test
+    void loteSaturadoNaoAtrasaAutenticacao() throws Exception {
+        comLoteSaturado(() -> assertRespondeNaHora("library-db-auth-pool",
+                () -> usuarioService.obterPorLogin("login-inexistente-" + System.nanoTime())));
+    }
+
+    @Test
+    void loteSaturadoNaoAtrasaRelay() throws Exception {
+        comLoteSaturado(() -> assertRespondeNaHora("library-db-jobs-pool", relay::publicar));
+    }
+
+    private void comLoteSaturado(Runnable verificacao) throws InterruptedException {
+        CountDownLatch ocupadas = new CountDownLatch(tamanhoLote);
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(tamanhoLote);
+        try {
+            for (int i = 0; i < tamanhoLote; i++) {
+                executor.submit(() -> ocuparConexaoDeLote(ocupadas, liberar));
+            }
+            assertTrue(ocupadas.await(30, TimeUnit.SECONDS), "pool de lotes não ficou saturado");
+
+            verificacao.run();
+        } finally {
+            liberar.countDown();
+            executor.shutdown();
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private void assertRespondeNaHora(String pool, Runnable chamada) {
+        long aquisicoesAntes = aquisicoes(pool);
+        long inicio = System.nanoTime();
+        chamada.run();
+        long duracaoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+
+        assertTrue(duracaoMs < 1000, String.format("esperou %d ms com o pool de lotes saturado (%s)",
+                duracaoMs, espera("library-db-batch-pool")));
+        assertTrue(aquisicoes(pool) > aquisicoesAntes, "a chamada não usou o " + pool + " (" + espera(pool) + ")");
+    }
+
+    private void ocuparConexaoDeLote(CountDownLatch ocupadas, CountDownLatch liberar) {
+        TipoCarga anterior = RoteamentoDataSource.usarCarga(TipoCarga.LOTE);
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                // o LazyConnectionDataSourceProxy só pega a conexão real no primeiro statement
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("select 1");
+                }
+                ocupadas.countDown();
+                try {
+                    liberar.await(60, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            });
+        } finally {
+            RoteamentoDataSource.usarCarga(anterior);
+        }
+    }
+
+    private long aquisicoes(String pool) {
+        Timer timer = meterRegistry.find("hikaricp.connections.acquire").tag("pool", pool).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private String espera(String pool) {
+        Timer timer = meterRegistry.find("hikaricp.connections.acquire").tag("pool", pool).timer();
+        return timer == null ? pool + ": sem métrica"
+                : String.format("%s: %d aquisições, espera máxima %.2f ms", pool, timer.count(), timer.max(TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,102 @@
+package br.com.judev.libraryapi.config;
+
+import br.com.judev.libraryapi.exceptions.PrazoExcedidoException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Conversão do prazo da requisição em query timeout: arredonda para cima em segundos,
+ * não aumenta um timeout menor já definido e recusa o statement com o prazo esgotado.
+ * A espera por conexão do pool fica limitada ao que resta do prazo.
+ */
+class PrazoRequisicaoTest {
+
+    @AfterEach
+    void limpar() {
+        PrazoRequisicao.restaurar(null);
+    }
+
+    @Test
+    void semPrazoNaoMexeNoTimeoutTest() throws Exception {
+        int[] timeout = {0};
+        PrazoRequisicao.aplicar(statement(timeout));
+        assertEquals(0, timeout[0]);
+        assertNull(PrazoRequisicao.restante());
+    }
+
+    @Test
+    void arredondaParaCimaEmSegundosTest() throws Exception {
+        int[] timeout = {0};
+        PrazoRequisicao.iniciar(Duration.ofMillis(2500));
+        PrazoRequisicao.aplicar(statement(timeout));
+        assertEquals(3, timeout[0]);
+    }
+
+    @Test
+    void mantemTimeoutMenorJaDefinidoTest() throws Exception {
+        int[] timeout = {1};
+        PrazoRequisicao.iniciar(Duration.ofSeconds(30));
+        PrazoRequisicao.aplicar(statement(timeout));
+        assertEquals(1, timeout[0]);
+    }
+
+    @Test
+    void prazoEsgotadoRecusaStatementTest() throws Exception {
+        int[] timeout = {0};
+        PrazoRequisicao.iniciar(Duration.ofMillis(1));
+        Thread.sleep(5);
+        assertThrows(PrazoExcedidoException.class, () -> PrazoRequisicao.aplicar(statement(timeout)));
+        assertEquals(0, timeout[0]);
+    }
+
+    @Test
+    void esperaConexaoLimitadaPeloPrazoTest() {
+        assertEquals(100_000, PrazoRequisicao.esperaConexaoMs(100_000));
+
+        PrazoRequisicao.iniciar(Duration.ofSeconds(5));
+        long espera = PrazoRequisicao.esperaConexaoMs(100_000);
+        assertTrue(espera > 0 && espera <= 5_000, String.valueOf(espera));
+        assertEquals(250, PrazoRequisicao.esperaConexaoMs(250));
+    }
+
+    @Test
+    void prazoEsgotadoRecusaEsperaPorConexaoTest() throws Exception {
+        PrazoRequisicao.iniciar(Duration.ofMillis(1));
+        Thread.sleep(5);
+        assertThrows(PrazoExcedidoException.class, () -> PrazoRequisicao.esperaConexaoMs(100_000));
+    }
+
+    @Test
+    void restauraPrazoAnteriorTest() {
+        PrazoRequisicao.Limite anterior = PrazoRequisicao.iniciar(Duration.ofSeconds(10));
+        PrazoRequisicao.Limite externo = PrazoRequisicao.iniciar(Duration.ofSeconds(1));
+        assertNull(anterior);
+
+        PrazoRequisicao.restaurar(externo);
+        assertEquals(10, PrazoRequisicao.restante().toSeconds() + 1);
+        PrazoRequisicao.restaurar(anterior);
+        assertNull(PrazoRequisicao.restante());
+    }
+
+    // só get/setQueryTimeout, guardados em timeout[0]
+    private static Statement statement(int[] timeout) {
+        return (Statement) Proxy.newProxyInstance(PrazoRequisicaoTest.class.getClassLoader(),
+                new Class<?>[]{Statement.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getQueryTimeout" -> timeout[0];
+                    case "setQueryTimeout" -> {
+                        timeout[0] = (Integer) args[0];
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
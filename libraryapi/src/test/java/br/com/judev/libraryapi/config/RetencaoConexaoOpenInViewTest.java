@@ -0,0 +1,254 @@
+package br.com.judev.libraryapi.config;
+
+import br.com.judev.libraryapi.MassaTeste;
+import br.com.judev.libraryapi.model.Autor;
+import br.com.judev.libraryapi.model.Livro;
+import br.com.judev.libraryapi.repository.AutorRepository;
+import br.com.judev.libraryapi.repository.LivroRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Retenção de conexão do pool do catálogo (library-db-pool) com spring.jpa.open-in-view ligado e desligado.
+ *
+ * Cada classe @Nested sobe o contexto com um valor da propriedade e chama, pelo MockMvc, a pesquisa
+ * paginada (GET /api/v1/livros, Slice com o autor da projeção) e o detalhe de cada livro cadastrado
+ * (GET /api/v1/livros/{id}, miss no LivroDetalheCache). O ClienteLento segura cada requisição por
+ * ESCRITA_MS depois de a resposta ser escrita, como um cliente lento lendo o corpo.
+ *
+ * Com open-in-view o EntityManager fica aberto até o fim da requisição, e a conexão junto (o
+ * HibernateJpaVendorAdapter só a devolve quando o EntityManager fecha): o tempo total com a conexão
+ * emprestada (hikaricp.connections.usage) passa de REQUISICOES x ESCRITA_MS. Sem ele a conexão volta
+ * no fim de cada transação e o total fica bem abaixo disso.
+ *
+ * Vazão (benchmark, mvn test -Pbenchmark): CLIENTES threads fazem a pesquisa ao mesmo tempo contra
+ * o library-db-pool reduzido a TAMANHO_POOL conexões. Com open-in-view cada conexão fica presa
+ * durante a escrita lenta e as requisições fazem fila no pool; sem ele as escritas correm em paralelo.
+ * ComOpenInView roda antes (@Order) e guarda as requisições/s; SemOpenInView mede e compara.
+ *
+ * Os filtros ficam de fora (addFilters = false); a autenticação vai direto no SecurityContextHolder.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@Import(RetencaoConexaoOpenInViewTest.ClienteLento.class)
+@TestPropertySource(properties = "libraryapi.pools.catalogo.tamanho=" + RetencaoConexaoOpenInViewTest.TAMANHO_POOL)
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+class RetencaoConexaoOpenInViewTest {
+
+    static final int TAMANHO_POOL = 2;
+    private static final int QUANTIDADE_LIVROS = 10;
+    // a pesquisa e o detalhe de cada livro
+    private static final int REQUISICOES = QUANTIDADE_LIVROS + 1;
+    private static final long ESCRITA_MS = 50;
+    // clientes simultâneos: bem mais que as conexões do pool
+    private static final int CLIENTES = 4 * TAMANHO_POOL;
+    private static final int PESQUISAS_POR_CLIENTE = 20;
+
+    // medido em ComOpenInView, comparado em SemOpenInView
+    private static double vazaoComOpenInView;
+
+    @Nested
+    @Order(1)
+    @TestPropertySource(properties = "spring.jpa.open-in-view=true")
+    class ComOpenInView extends Cenario {
+
+        @Test
+        void conexaoRetidaDuranteAEscritaTest() throws Exception {
+            double retencaoMs = retencaoTotalMs();
+
+            assertTrue(retencaoMs >= REQUISICOES * ESCRITA_MS,
+                    "com open-in-view a conexão deveria ficar presa até o fim da requisição: " + retencaoMs + " ms");
+        }
+
+        @Test
+        @Tag("benchmark")
+        void vazaoComPoolPequenoTest() throws Exception {
+            vazaoComOpenInView = requisicoesPorSegundo();
+
+            assertTrue(vazaoComOpenInView > 0);
+        }
+    }
+
+    @Nested
+    @Order(2)
+    @TestPropertySource(properties = "spring.jpa.open-in-view=false")
+    class SemOpenInView extends Cenario {
+
+        @Test
+        void conexaoLiberadaAntesDaEscritaTest() throws Exception {
+            double retencaoMs = retencaoTotalMs();
+
+            assertTrue(retencaoMs < REQUISICOES * ESCRITA_MS / 2.0,
+                    "sem open-in-view a conexão deveria voltar antes da escrita da resposta: " + retencaoMs + " ms");
+        }
+
+        @Test
+        @Tag("benchmark")
+        void vazaoMaiorQueComOpenInViewTest() throws Exception {
+            double vazao = requisicoesPorSegundo();
+
+            assumeTrue(vazaoComOpenInView > 0, "depende da medição de ComOpenInView na mesma execução");
+            assertTrue(vazao > vazaoComOpenInView, String.format(
+                    "requisições/s com %d conexões e %d clientes: sem open-in-view %.1f | com open-in-view %.1f",
+                    TAMANHO_POOL, CLIENTES, vazao, vazaoComOpenInView));
+        }
+    }
+
+    /*
+     * Campos e ciclo de vida ficam na instância @Nested, que recebe o contexto com a propriedade dela;
+     * a instância externa seria injetada pelo contexto sem o @TestPropertySource.
+     */
+    abstract static class Cenario {
+
+        @Autowired
+        MockMvc mockMvc;
+
+        @Autowired
+        MeterRegistry meterRegistry;
+
+        @Autowired
+        AutorRepository autorRepository;
+
+        @Autowired
+        LivroRepository livroRepository;
+
+        String marcador;
+        Autor autor;
+        List<Livro> livros;
+
+        @BeforeEach
+        void cadastrarLivros(){
+            marcador = MassaTeste.marcador("OSIV");
+            autor = autorRepository.save(MassaTeste.autor("Autor " + marcador));
+
+            livros = new ArrayList<>();
+            for (int i = 0; i < QUANTIDADE_LIVROS; i++) {
+                livros.add(livroRepository.save(MassaTeste.livro(marcador + "-" + i, "Livro " + marcador + " " + i, autor)));
+            }
+
+            SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                    "gerente", null, AuthorityUtils.createAuthorityList("ROLE_GERENTE")));
+        }
+
+        @AfterEach
+        void removerLivros(){
+            SecurityContextHolder.clearContext();
+            livroRepository.deleteAll(livros);
+            autorRepository.delete(autor);
+        }
+
+        // tempo com a conexão emprestada somado nas REQUISICOES, todas com o autor no corpo
+        double retencaoTotalMs() throws Exception {
+            Timer uso = meterRegistry.get("hikaricp.connections.usage").tag("pool", "library-db-pool").timer();
+            double antesMs = uso.totalTime(TimeUnit.MILLISECONDS);
+
+            pesquisar();
+
+            for (Livro livro : livros) {
+                mockMvc.perform(get("/api/v1/livros/{id}", livro.getId()))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.autor.nome").value(autor.getNome()));
+            }
+
+            return uso.totalTime(TimeUnit.MILLISECONDS) - antesMs;
+        }
+
+        /*
+         * Só a pesquisa: o detalhe sai do LivroDetalheCache depois do primeiro acesso e não pega conexão.
+         * O SecurityContextHolder é por thread: cada cliente recebe a autenticação do teste.
+         */
+        double requisicoesPorSegundo() throws Exception {
+            Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+            List<Callable<Void>> clientes = new ArrayList<>();
+            for (int i = 0; i < CLIENTES; i++) {
+                clientes.add(() -> {
+                    SecurityContextHolder.getContext().setAuthentication(autenticacao);
+                    try {
+                        for (int j = 0; j < PESQUISAS_POR_CLIENTE; j++) {
+                            pesquisar();
+                        }
+                    } finally {
+                        SecurityContextHolder.clearContext();
+                    }
+                    return null;
+                });
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(CLIENTES);
+            try {
+                long inicio = System.nanoTime();
+                for (Future<Void> cliente : executor.invokeAll(clientes)) {
+                    cliente.get();
+                }
+                long nanos = System.nanoTime() - inicio;
+                return CLIENTES * PESQUISAS_POR_CLIENTE * 1_000_000_000.0 / nanos;
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        void pesquisar() throws Exception {
+            mockMvc.perform(get("/api/v1/livros")
+                            .param("titulo", marcador)
+                            .param("tamanho-pagina", String.valueOf(QUANTIDADE_LIVROS)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content.length()").value(QUANTIDADE_LIVROS))
+                    .andExpect(jsonPath("$.content[0].autor.nome").value(autor.getNome()));
+        }
+    }
+
+    // postHandle: o corpo já foi escrito, mas o OpenEntityManagerInViewInterceptor ainda não fechou o EntityManager
+    @TestConfiguration
+    static class ClienteLento implements WebMvcConfigurer {
+
+        @Override
+        public void addInterceptors(InterceptorRegistry registry) {
+            registry.addInterceptor(new HandlerInterceptor() {
+                @Override
+                public void postHandle(HttpServletRequest request, HttpServletResponse response,
+                                       Object handler, ModelAndView modelAndView) throws Exception {
+                    Thread.sleep(ESCRITA_MS);
+                }
+            });
+        }
+    }
+}
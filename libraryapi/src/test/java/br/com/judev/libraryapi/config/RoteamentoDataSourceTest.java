@@ -0,0 +1,83 @@
+package br.com.judev.libraryapi.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Roteamento primário/réplica com dois bancos locais no lugar de uma réplica de verdade.
+ * A "réplica" é uma cópia do banco da aplicação (os loaders do startup leem livros em read-only):
+ *
+ *   createdb -T library library_replica
+ *
+ * O monitor roda uma vez no startup e depois só de hora em hora, para o teste controlar o atraso.
+ */
+@SpringBootTest(properties = {
+        "libraryapi.replica.url=jdbc:postgresql://localhost:5432/library_replica",
+        "libraryapi.replica.verificacao-intervalo=1h"
+})
+class RoteamentoDataSourceTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MonitorReplica monitor;
+
+    @AfterEach
+    void restaurar() {
+        monitor.registrar(Duration.ZERO);
+        RoteamentoDataSource.liberarLeitura();
+    }
+
+    @Test
+    void transacaoReadOnlyVaiParaReplica() {
+        assertEquals("library_replica", banco(true));
+    }
+
+    @Test
+    void transacaoDeEscritaVaiParaPrimario() {
+        assertEquals("library", banco(false));
+    }
+
+    @Test
+    void semTransacaoVaiParaPrimario() {
+        assertEquals("library", jdbcTemplate.queryForObject("select current_database()", String.class));
+    }
+
+    @Test
+    void leituraDasPropriasEscritasVaiParaPrimario() {
+        RoteamentoDataSource.lerDoPrimario();
+        assertEquals("library", banco(true));
+
+        RoteamentoDataSource.liberarLeitura();
+        assertEquals("library_replica", banco(true));
+    }
+
+    @Test
+    void replicaAtrasadaSaiDoRoteamento() {
+        monitor.registrar(Duration.ofMinutes(1));
+        assertEquals("library", banco(true));
+
+        monitor.registrar(Duration.ZERO);
+        assertEquals("library_replica", banco(true));
+    }
+
+    private String banco(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+                jdbcTemplate.queryForObject("select current_database()", String.class));
+    }
+}
@@ -0,0 +1,85 @@
+package br.com.judev.libraryapi.config;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Asserções sobre quantos statements SQL um bloco executa, para os testes @SpringBootTest
+ * (conta pelo ContagemStatementsDataSource do contexto; libraryapi.sql.contagem.habilitada=true).
+ *
+ * <pre>
+ * Livro livro = VerificacaoStatements.exatamente(1, () -> livroRepository.findById(id).orElseThrow());
+ * VerificacaoStatements.noMaximo(2, () -> service.pesquisa(...));
+ * </pre>
+ *
+ * Só conta a thread do teste; com @Transactional no teste, o que fica para o flush do commit não entra.
+ */
+public final class VerificacaoStatements {
+
+    private VerificacaoStatements() {
+    }
+
+    public static <T> T exatamente(int esperado, Supplier<T> bloco) {
+        ContadorStatements.Contagem contagem = ContadorStatements.iniciar();
+        T resultado;
+        try {
+            resultado = bloco.get();
+        } finally {
+            contagem.close();
+        }
+        assertEquals(esperado, contagem.total(), () -> mensagem("Statements executados", contagem));
+        return resultado;
+    }
+
+    public static void exatamente(int esperado, Runnable bloco) {
+        exatamente(esperado, () -> {
+            bloco.run();
+            return null;
+        });
+    }
+
+    public static <T> T noMaximo(int maximo, Supplier<T> bloco) {
+        ContadorStatements.Contagem contagem = ContadorStatements.iniciar();
+        T resultado;
+        try {
+            resultado = bloco.get();
+        } finally {
+            contagem.close();
+        }
+        assertTrue(contagem.total() <= maximo,
+                () -> mensagem("Mais de " + maximo + " statements: " + contagem.total(), contagem));
+        return resultado;
+    }
+
+    public static void noMaximo(int maximo, Runnable bloco) {
+        noMaximo(maximo, () -> {
+            bloco.run();
+            return null;
+        });
+    }
+
+    // falha se algum SQL se repetir "repeticoes" vezes ou mais no bloco (N+1)
+    public static <T> T semRepeticao(int repeticoes, Supplier<T> bloco) {
+        ContadorStatements.Contagem contagem = ContadorStatements.iniciar();
+        T resultado;
+        try {
+            resultado = bloco.get();
+        } finally {
+            contagem.close();
+        }
+        assertTrue(contagem.repetidos(repeticoes).isEmpty(),
+                () -> mensagem("Statements repetidos (provável N+1)", contagem));
+        return resultado;
+    }
+
+    private static String mensagem(String titulo, ContadorStatements.Contagem contagem) {
+        StringBuilder texto = new StringBuilder(titulo).append(':');
+        for (Map.Entry<String, Integer> entrada : contagem.porSql().entrySet()) {
+            texto.append("\n  ").append(entrada.getValue()).append("x ").append(entrada.getKey());
+        }
+        return texto.toString();
+    }
+}
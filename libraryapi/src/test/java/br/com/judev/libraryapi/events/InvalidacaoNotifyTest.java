@@ -0,0 +1,100 @@
+package br.com.judev.libraryapi.events;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * PublicadorInvalidacao: as mensagens de uma transação chegam a quem faz LISTEN só depois
+ * do commit, em um único envio; rollback não envia nada.
+ * Usa UsuarioAlteradoEvent (nenhum cache local reage a ele) e uma conexão própria no LISTEN,
+ * como a de outra instância.
+ */
+@SpringBootTest
+class InvalidacaoNotifyTest {
+
+    @Value("${spring.datasource.url}")
+    String url;
+    @Value("${spring.datasource.username}")
+    String username;
+    @Value("${spring.datasource.password}")
+    String password;
+    @Value("${libraryapi.invalidacao.canal}")
+    String canal;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    Connection ouvinte;
+
+    @BeforeEach
+    void escutar() throws Exception {
+        ouvinte = DriverManager.getConnection(url, username, password);
+        try (Statement statement = ouvinte.createStatement()) {
+            statement.execute("listen " + canal);
+        }
+    }
+
+    @AfterEach
+    void fechar() throws Exception {
+        ouvinte.close();
+    }
+
+    @Test
+    void entregaDepoisDoCommitTest() throws Exception {
+        UUID primeiro = UUID.randomUUID();
+        UUID segundo = UUID.randomUUID();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new UsuarioAlteradoEvent(primeiro, "login1", TipoAlteracao.CRIACAO));
+            eventPublisher.publishEvent(new UsuarioAlteradoEvent(segundo, "login2", TipoAlteracao.ATUALIZACAO));
+        });
+
+        List<MensagemInvalidacao> recebidas = receber(2_000);
+        assertEquals(2, recebidas.size());
+        assertEquals(new UsuarioAlteradoEvent(primeiro, "login1", TipoAlteracao.CRIACAO), recebidas.get(0).paraEvento());
+        assertEquals(new UsuarioAlteradoEvent(segundo, "login2", TipoAlteracao.ATUALIZACAO), recebidas.get(1).paraEvento());
+        assertEquals(PublicadorInvalidacao.ORIGEM, recebidas.get(0).origem());
+    }
+
+    @Test
+    void rollbackNaoEntregaTest() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new UsuarioAlteradoEvent(UUID.randomUUID(), "login", TipoAlteracao.CRIACAO));
+            status.setRollbackOnly();
+        });
+
+        assertTrue(receber(1_000).isEmpty());
+    }
+
+    private List<MensagemInvalidacao> receber(int esperaMs) throws Exception {
+        List<MensagemInvalidacao> mensagens = new ArrayList<>();
+        PGNotification[] notificacoes = ouvinte.unwrap(PGConnection.class).getNotifications(esperaMs);
+        if (notificacoes != null) {
+            for (PGNotification notificacao : notificacoes) {
+                mensagens.add(MensagemInvalidacao.decodificar(notificacao.getParameter()));
+            }
+        }
+        return mensagens;
+    }
+}
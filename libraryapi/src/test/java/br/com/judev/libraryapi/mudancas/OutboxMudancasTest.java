@@ -0,0 +1,198 @@
+package br.com.judev.libraryapi.mudancas;
+
+import br.com.judev.libraryapi.MassaTeste;
+import br.com.judev.libraryapi.controller.dto.MudancaDTO;
+import br.com.judev.libraryapi.controller.dto.PaginaMudancasDTO;
+import br.com.judev.libraryapi.exceptions.CursorExpiradoException;
+import br.com.judev.libraryapi.model.Autor;
+import br.com.judev.libraryapi.service.AutorService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Outbox de mudanças (OutboxMudancas), publicação no feed (RelayMudancas) e cursor do feed (FeedMudancas).
+ *
+ * Sem @Transactional: o que está sendo testado é o commit. O relay agendado das instâncias de
+ * contexto em cache continua rodando a cada segundo, então o teste espera as posições em vez de
+ * contar com a própria chamada ao relay; no fim, remove as linhas do outbox e os autores que gravou.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+class OutboxMudancasTest {
+
+    private static final Duration ESPERA_PUBLICACAO = Duration.ofSeconds(10);
+
+    @Autowired
+    AutorService autorService;
+
+    @Autowired
+    RelayMudancas relay;
+
+    @Autowired
+    FeedMudancas feed;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    String marcador;
+    List<UUID> registros;
+
+    @BeforeEach
+    void preparar(){
+        marcador = MassaTeste.marcador("OUT");
+        registros = new ArrayList<>();
+    }
+
+    // pelo jdbc: a remoção pelo AutorService gravaria outra linha no outbox
+    @AfterEach
+    void remover(){
+        SecurityContextHolder.clearContext();
+        for (UUID id : registros) {
+            jdbcTemplate.update("delete from outbox_mudanca where id_registro = ?", id);
+            jdbcTemplate.update("delete from autor where id = ?", id);
+        }
+    }
+
+    @Test
+    void commitGravaALinhaDoOutboxTest(){
+        UUID id = salvarAutor(false);
+
+        assertEquals(1, linhasNoOutbox(id));
+        String dados = jdbcTemplate.queryForObject(
+                "select dados->>'nome' from outbox_mudanca where id_registro = ?", String.class, id);
+        assertEquals("Autor " + marcador + " 0", dados);
+    }
+
+    @Test
+    void rollbackNaoGravaALinhaDoOutboxTest(){
+        UUID id = salvarAutor(true);
+
+        assertEquals(0, linhasNoOutbox(id));
+        assertEquals(0L, jdbcTemplate.queryForObject("select count(*) from autor where id = ?", Long.class, id));
+    }
+
+    /*
+     * Duas rodadas do relay: o que foi commitado depois da primeira publicação entra sempre
+     * depois dela no feed, e o feed devolve tudo em ordem de posição.
+     */
+    @Test
+    void posicaoCresceEntreRodadasDoRelayTest() throws InterruptedException {
+        UUID primeiro = salvarAutor(false);
+        UUID segundo = salvarAutor(false);
+        relay.publicar();
+        long posicaoPrimeiro = aguardarPosicao(primeiro);
+        long posicaoSegundo = aguardarPosicao(segundo);
+
+        UUID terceiro = salvarAutor(false);
+        relay.publicar();
+        long posicaoTerceiro = aguardarPosicao(terceiro);
+
+        assertTrue(posicaoTerceiro > Math.max(posicaoPrimeiro, posicaoSegundo),
+                "posições: " + posicaoPrimeiro + ", " + posicaoSegundo + " -> " + posicaoTerceiro);
+
+        // o cursor precisa existir no outbox: a posição publicada imediatamente anterior (a sequence tem buracos)
+        Long anterior = jdbcTemplate.queryForObject("select max(posicao) from outbox_mudanca where posicao < ?",
+                Long.class, Math.min(posicaoPrimeiro, posicaoSegundo));
+        PaginaMudancasDTO pagina = (PaginaMudancasDTO) feed.acompanhar(anterior == null ? 0 : anterior, 1000, Duration.ZERO).getResult();
+        List<Long> posicoes = pagina.mudancas().stream().map(MudancaDTO::posicao).toList();
+        assertEquals(posicoes.stream().sorted().toList(), posicoes);
+        assertTrue(posicoes.containsAll(List.of(posicaoPrimeiro, posicaoSegundo, posicaoTerceiro)));
+    }
+
+    // fora da retenção (7 dias): sai do outbox, menos a última publicada, que é o cursor de quem está em dia
+    @Test
+    void limpezaMantemAUltimaPublicadaTest(){
+        UUID antiga = publicada(8);
+        UUID recente = publicada(0);
+
+        relay.limpar();
+
+        assertEquals(0, linhasNoOutbox(antiga));
+        assertEquals(1, linhasNoOutbox(recente));
+
+        UUID ultimaAntiga = publicada(8);
+        relay.limpar();
+
+        assertEquals(1, linhasNoOutbox(ultimaAntiga));
+    }
+
+    // posição tirada da sequence e sem linha: como uma removida pela retenção
+    @Test
+    void cursorExpiradoTest() throws Exception {
+        long expirada = jdbcTemplate.queryForObject("select nextval('outbox_mudanca_posicao')", Long.class);
+
+        assertThrows(CursorExpiradoException.class, () -> feed.acompanhar(expirada, 10, Duration.ZERO));
+
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                "operador", null, AuthorityUtils.createAuthorityList("ROLE_OPERADOR")));
+        mockMvc.perform(get("/api/v1/mudancas").param("desde", String.valueOf(expirada)).param("espera", "0"))
+                .andExpect(status().isGone());
+    }
+
+    private UUID salvarAutor(boolean rollback){
+        Autor autor = MassaTeste.autor("Autor " + marcador + " " + registros.size());
+        UUID id = transactionTemplate.execute(status -> {
+            UUID salvo = autorService.salvar(autor).getId();
+            if (rollback) {
+                status.setRollbackOnly();
+            }
+            return salvo;
+        });
+        registros.add(id);
+        return id;
+    }
+
+    private UUID publicada(int diasAtras){
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("""
+                insert into outbox_mudanca (entidade, tipo, id_registro, posicao, data_publicacao)
+                values ('AUTOR', 'REMOCAO', ?, nextval('outbox_mudanca_posicao'), localtimestamp - make_interval(days => ?))
+                """, id, diasAtras);
+        registros.add(id);
+        return id;
+    }
+
+    private int linhasNoOutbox(UUID id){
+        return jdbcTemplate.queryForObject("select count(*) from outbox_mudanca where id_registro = ?", Integer.class, id);
+    }
+
+    private long aguardarPosicao(UUID id) throws InterruptedException {
+        long limite = System.nanoTime() + ESPERA_PUBLICACAO.toNanos();
+        while (System.nanoTime() < limite) {
+            List<Long> posicao = jdbcTemplate.queryForList(
+                    "select posicao from outbox_mudanca where id_registro = ? and posicao is not null", Long.class, id);
+            if (!posicao.isEmpty()) {
+                return posicao.getFirst();
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("mudança de " + id + " não publicada em " + ESPERA_PUBLICACAO);
+    }
+}
@@ -26,7 +26,7 @@ public class AutorRepositoryTest {
     @Test
     public void salvarTest(){
         Autor autor = new Autor();
-        autor.setNome("José");
+        autor.setNome("José " + sufixo());
         autor.setNacionalidade("Brasileira");
         autor.setDataNascimento(LocalDate.of(1951, 1, 31));
 
@@ -80,12 +80,12 @@ public class AutorRepositoryTest {
     @Test
     void salvarAutorComLivrosTest(){
         Autor autor = new Autor();
-        autor.setNome("Antonio");
+        autor.setNome("Antonio " + sufixo());
         autor.setNacionalidade("Americana");
         autor.setDataNascimento(LocalDate.of(1970, 8, 5));
 
         Livro livro = new Livro();
-        livro.setIsbn("20847-84874");
+        livro.setIsbn("20847-" + sufixo());
         livro.setPreco(BigDecimal.valueOf(204));
         livro.setGenero(GeneroLivro.MISTERIO);
         livro.setTitulo("O roubo da casa assombrada");
@@ -93,7 +93,7 @@ public class AutorRepositoryTest {
         livro.setAutor(autor);
 
         Livro livro2 = new Livro();
-        livro2.setIsbn("99999-84874");
+        livro2.setIsbn("99999-" + sufixo());
         livro2.setPreco(BigDecimal.valueOf(650));
         livro2.setGenero(GeneroLivro.MISTERIO);
         livro2.setTitulo("O roubo da casa assombrada");
@@ -122,4 +122,8 @@ public class AutorRepositoryTest {
         autor.getLivros().forEach(System.out::println);
     }
 
-}
\ No newline at end of file
+    // nome e isbn têm unique constraint: dados únicos por execução, para o teste rodar de novo no mesmo banco
+    private static String sufixo(){
+        return UUID.randomUUID().toString().substring(0, 8);
+    }
+}
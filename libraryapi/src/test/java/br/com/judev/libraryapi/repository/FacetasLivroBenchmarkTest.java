@@ -0,0 +1,129 @@
+package br.com.judev.libraryapi.repository;
+
+import br.com.judev.libraryapi.MassaTeste;
+import br.com.judev.libraryapi.controller.dto.FacetasLivroDTO;
+import br.com.judev.libraryapi.model.Autor;
+import br.com.judev.libraryapi.model.GeneroLivro;
+import br.com.judev.libraryapi.repository.specs.FacetaLivro;
+import br.com.judev.libraryapi.repository.specs.FiltroPesquisaLivro;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Facetas da pesquisa de livros: confere as contagens e compara o custo de calcular
+ * as três facetas (uma query com GROUPING SETS) com o da pesquisa paginada comum (select + count).
+ *
+ * A comparação de custo é @Tag("benchmark"): fora da execução padrão, roda com mvn test -Pbenchmark.
+ */
+@SpringBootTest
+@Transactional
+class FacetasLivroBenchmarkTest {
+
+    private static final int QUANTIDADE_LIVROS = 600;
+    private static final int AQUECIMENTO = 5;
+    private static final int EXECUCOES = 30;
+    // as facetas agrupam todas as linhas do filtro, a pesquisa só lê uma página; acima disso é regressão
+    private static final int RAZAO_MAXIMA = 5;
+
+    @Autowired
+    LivroRepository livroRepository;
+
+    @Autowired
+    AutorRepository autorRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    String marcador;
+
+    @BeforeEach
+    void cadastrarLivros(){
+        marcador = MassaTeste.marcador("FACETA");
+        String[] nacionalidades = {"Brasileira", "Portuguesa", "Angolana"};
+
+        Autor[] autores = new Autor[nacionalidades.length];
+        for (int i = 0; i < autores.length; i++) {
+            autores[i] = autorRepository.save(MassaTeste.autor("Autor " + marcador + " " + i, nacionalidades[i]));
+        }
+
+        GeneroLivro[] generos = GeneroLivro.values();
+        for (int i = 0; i < QUANTIDADE_LIVROS; i++) {
+            livroRepository.save(MassaTeste.livro(marcador + "-" + i, "Livro " + marcador + " " + i,
+                    generos[i % generos.length], LocalDate.of(2000 + i % 4, 6, 1), autores[i % autores.length]));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void facetasConferemComOTotalTest(){
+        var filtro = new FiltroPesquisaLivro(null, marcador, null, null, null).normalizado();
+
+        FacetasLivroDTO facetas = livroRepository.contarFacetas(filtro, EnumSet.allOf(FacetaLivro.class));
+
+        assertEquals(QUANTIDADE_LIVROS, somar(facetas.generos()));
+        assertEquals(QUANTIDADE_LIVROS, somar(facetas.anosPublicacao()));
+        assertEquals(QUANTIDADE_LIVROS, somar(facetas.nacionalidades()));
+        assertEquals(QUANTIDADE_LIVROS / 4, facetas.anosPublicacao().get(2001));
+        assertEquals(QUANTIDADE_LIVROS / 3, facetas.nacionalidades().get("Portuguesa"));
+    }
+
+    @Test
+    void somenteFacetasPedidasTest(){
+        var filtro = new FiltroPesquisaLivro(null, marcador, null, GeneroLivro.ROMANCE, null).normalizado();
+
+        FacetasLivroDTO facetas = livroRepository.contarFacetas(filtro, EnumSet.of(FacetaLivro.NACIONALIDADE));
+
+        assertNull(facetas.generos());
+        assertNull(facetas.anosPublicacao());
+        assertEquals(QUANTIDADE_LIVROS / GeneroLivro.values().length, somar(facetas.nacionalidades()));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void custoDasFacetasComparadoComPesquisaTest(){
+        var filtro = new FiltroPesquisaLivro(null, marcador, null, null, null).normalizado();
+        var specs = filtro.toSpecification();
+        var facetas = EnumSet.allOf(FacetaLivro.class);
+
+        for (int i = 0; i < AQUECIMENTO; i++) {
+            livroRepository.pesquisarResumo(specs, PageRequest.of(0, 20));
+            livroRepository.contarFacetas(filtro, facetas);
+        }
+
+        long inicio = System.nanoTime();
+        for (int i = 0; i < EXECUCOES; i++) {
+            livroRepository.pesquisarResumo(specs, PageRequest.of(0, 20));
+            entityManager.clear();
+        }
+        long pesquisa = (System.nanoTime() - inicio) / EXECUCOES;
+
+        inicio = System.nanoTime();
+        for (int i = 0; i < EXECUCOES; i++) {
+            livroRepository.contarFacetas(filtro, facetas);
+        }
+        long facetasNanos = (System.nanoTime() - inicio) / EXECUCOES;
+
+        assertTrue(facetasNanos <= pesquisa * RAZAO_MAXIMA, String.format(
+                "facetas (3 em 1 query): %.3f ms | pesquisa (select + count): %.3f ms | razão: %.2fx, máximo %dx",
+                facetasNanos / 1_000_000.0, pesquisa / 1_000_000.0, (double) facetasNanos / pesquisa, RAZAO_MAXIMA));
+    }
+
+    private static long somar(Map<?, Long> contagem){
+        return contagem.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
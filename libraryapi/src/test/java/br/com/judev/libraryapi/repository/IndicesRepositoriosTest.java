@@ -0,0 +1,135 @@
+package br.com.judev.libraryapi.repository;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Índices da migration V3 (db/migration/V3__indices_repositorios.sql) e o da
+ * uk_autor_nome_nascimento_nacionalidade (V4), que atende a consulta por nome/nascimento/nacionalidade.
+ *
+ * Para cada consulta de repositório, com enable_seqscan = off o plano não pode ter "Seq Scan"
+ * (existe índice que atende). Isso não diz nada sobre o tempo: com as poucas linhas do banco de teste
+ * o seq scan é o mais rápido.
+ *
+ * A latência fica em latenciaComESemIndiceTest (@Tag("benchmark"), roda com mvn test -Pbenchmark):
+ * insere LINHAS_LATENCIA linhas em cada tabela e compara o tempo de execução (explain analyze) com o
+ * índice e depois de removê-lo. O tempo de startup com e sem ddl-auto: update está em
+ * InicializacaoDdlAutoBenchmarkTest. Inserções e drops acontecem na transação do teste, desfeita no final.
+ */
+@SpringBootTest
+@Transactional
+class IndicesRepositoriosTest {
+
+    private static final Pattern TEMPO_EXECUCAO = Pattern.compile("\"Execution Time\"\\s*:\\s*([0-9.]+)");
+    private static final int EXECUCOES = 20;
+    private static final int LINHAS_LATENCIA = 50_000;
+
+    private static final String USUARIO_POR_EMAIL = "select * from usuario where email = 'gerente@teste.com'";
+    private static final String CLIENT_POR_CLIENT_ID = "select * from client where client_id = 'client-production'";
+    private static final String AUTOR_POR_NOME_NASCIMENTO_NACIONALIDADE = """
+            select * from autor
+            where nome = 'Maria' and data_nascimento = date '1950-01-01' and nacionalidade = 'Brasileira'
+            """;
+    private static final String AUTOR_POR_NACIONALIDADE = "select * from autor where nacionalidade = 'Brasileira'";
+    private static final String AUTOR_POR_ID_USUARIO =
+            "select * from autor where id_usuario = '00000000-0000-0000-0000-000000000001'";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void usuarioFindByEmailTest(){
+        assertUsaIndice(USUARIO_POR_EMAIL);
+    }
+
+    @Test
+    void clientFindByClientIdTest(){
+        assertUsaIndice(CLIENT_POR_CLIENT_ID);
+    }
+
+    @Test
+    void autorFindByNomeAndDataNascimentoAndNacionalidadeTest(){
+        assertUsaIndice(AUTOR_POR_NOME_NASCIMENTO_NACIONALIDADE);
+    }
+
+    @Test
+    void autorFindByNacionalidadeTest(){
+        assertUsaIndice(AUTOR_POR_NACIONALIDADE);
+    }
+
+    @Test
+    void autorPorIdUsuarioTest(){
+        assertUsaIndice(AUTOR_POR_ID_USUARIO);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void latenciaComESemIndiceTest(){
+        // valores distintos das consultas: cada uma continua achando no máximo as linhas originais
+        jdbcTemplate.update("""
+                insert into usuario (id, login, senha, email)
+                select gen_random_uuid(), 'bench' || i, 'x', 'bench' || i || '@teste.com'
+                from generate_series(1, ?) i
+                """, LINHAS_LATENCIA);
+        jdbcTemplate.update("""
+                insert into client (id, client_id, client_secret, redirect_uri)
+                select gen_random_uuid(), 'bench-' || i, 'x', 'http://localhost'
+                from generate_series(1, ?) i
+                """, LINHAS_LATENCIA);
+        jdbcTemplate.update("""
+                insert into autor (id, nome, data_nascimento, nacionalidade)
+                select gen_random_uuid(), 'Bench ' || i, date '1950-01-01', 'Bench ' || (i % 200)
+                from generate_series(1, ?) i
+                """, LINHAS_LATENCIA);
+        jdbcTemplate.execute("analyze usuario, client, autor");
+
+        assertMaisRapidoComIndice(USUARIO_POR_EMAIL, "drop index idx_usuario_email");
+        assertMaisRapidoComIndice(CLIENT_POR_CLIENT_ID, "drop index idx_client_client_id");
+        // antes do composto: sem ele, a consulta por nome/nascimento/nacionalidade ainda usaria este
+        assertMaisRapidoComIndice(AUTOR_POR_NACIONALIDADE, "drop index idx_autor_nacionalidade");
+        assertMaisRapidoComIndice(AUTOR_POR_ID_USUARIO, "drop index idx_autor_id_usuario");
+        // índice de constraint não pode ser removido com drop index
+        assertMaisRapidoComIndice(AUTOR_POR_NOME_NASCIMENTO_NACIONALIDADE,
+                "alter table autor drop constraint uk_autor_nome_nascimento_nacionalidade");
+    }
+
+    private void assertUsaIndice(String sql){
+        jdbcTemplate.execute("set local enable_seqscan = off");
+        List<String> plano = jdbcTemplate.queryForList("explain " + sql, String.class);
+        jdbcTemplate.execute("set local enable_seqscan = on");
+        assertFalse(plano.stream().anyMatch(linha -> linha.contains("Seq Scan")),
+                "Plano com seq scan para: " + sql + "\n" + String.join("\n", plano));
+    }
+
+    private void assertMaisRapidoComIndice(String sql, String remocaoIndice){
+        double comIndice = tempoMedio(sql);
+        jdbcTemplate.execute(remocaoIndice);
+        double semIndice = tempoMedio(sql);
+
+        assertTrue(comIndice < semIndice, String.format("%s: %.3f ms com índice | %.3f ms sem índice",
+                remocaoIndice, comIndice, semIndice));
+    }
+
+    private double tempoMedio(String sql){
+        double total = 0;
+        for (int i = 0; i < EXECUCOES; i++) {
+            String plano = jdbcTemplate.queryForObject("explain (analyze, format json) " + sql, String.class);
+            Matcher matcher = TEMPO_EXECUCAO.matcher(plano);
+            if (matcher.find()) {
+                total += Double.parseDouble(matcher.group(1));
+            }
+        }
+        return total / EXECUCOES;
+    }
+}
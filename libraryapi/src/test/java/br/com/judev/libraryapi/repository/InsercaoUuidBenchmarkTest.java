@@ -0,0 +1,158 @@
+package br.com.judev.libraryapi.repository;
+
+import br.com.judev.libraryapi.MassaTeste;
+import br.com.judev.libraryapi.model.Autor;
+import br.com.judev.libraryapi.model.GeradorUuidV7;
+import br.com.judev.libraryapi.model.Livro;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara a inserção com chave primária UUID v4 (aleatória) e UUID v7 (ordenada pelo tempo).
+ *
+ * Com v4 as inserções caem em folhas aleatórias do índice da pk (page splits espalhados, folhas com
+ * espaço livre); com v7 vão sempre para a última folha, que o Postgres divide deixando as anteriores cheias.
+ *
+ * - tamanho do índice: cada estratégia grava em uma tabela temporária própria (uuid pk + texto), via JDBC;
+ * - linhas/s: livros gravados pela entidade (persist, com o hibernate.jdbc.batch_size e o order_inserts
+ *   da aplicação), o v4 atribuído antes do persist e o v7 pelo GeradorUuidV7. As duas estratégias se
+ *   alternam por RODADAS e vale a melhor de cada uma; cada rodada é desfeita no fim.
+ *
+ * Gravam centenas de milhares de linhas: as comparações têm @Tag("benchmark") e ficam fora da execução
+ * padrão (mvn test -Pbenchmark).
+ */
+@SpringBootTest
+class InsercaoUuidBenchmarkTest {
+
+    private static final int QUANTIDADE = 200_000;
+    private static final int TAMANHO_BATCH = 1_000;
+
+    private static final int QUANTIDADE_ENTIDADES = 50_000;
+    // mesmo valor de hibernate.jdbc.batch_size: flush + clear a cada batch, o contexto não cresce
+    private static final int TAMANHO_BATCH_HIBERNATE = 50;
+    private static final int RODADAS = 3;
+    // ruído entre rodadas; "não é mais lento" com essa margem
+    private static final double TOLERANCIA = 0.05;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Test
+    void uuidV7EhCrescenteTest(){
+        UUID anterior = GeradorUuidV7.gerar();
+        for (int i = 0; i < 100_000; i++) {
+            UUID atual = GeradorUuidV7.gerar();
+            assertEquals(7, atual.version());
+            assertEquals(2, atual.variant());
+            // o Postgres compara uuid byte a byte, sem sinal
+            assertTrue(comparar(anterior, atual) < 0, anterior + " >= " + atual);
+            anterior = atual;
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void insercaoV4ComparadaComV7Test(){
+        Resultado v4 = emTransacaoDesfeita(() -> inserir("bench_uuid_v4", UUID::randomUUID));
+        Resultado v7 = emTransacaoDesfeita(() -> inserir("bench_uuid_v7", GeradorUuidV7::gerar));
+
+        assertEquals(QUANTIDADE, v4.linhas());
+        assertEquals(QUANTIDADE, v7.linhas());
+        assertTrue(v7.tamanhoIndiceKb() < v4.tamanhoIndiceKb(),
+                "índice da pk: v7 " + v7.tamanhoIndiceKb() + " KB, v4 " + v4.tamanhoIndiceKb() + " KB");
+    }
+
+    @Test
+    @Tag("benchmark")
+    void insercaoPelaEntidadeV7NaoEhMaisLentaTest(){
+        double v4 = 0;
+        double v7 = 0;
+        for (int rodada = 0; rodada < RODADAS; rodada++) {
+            v4 = Math.max(v4, emTransacaoDesfeita(() -> linhasPorSegundo(UUID::randomUUID)));
+            // id null: o GeradorUuidV7 gera no persist
+            v7 = Math.max(v7, emTransacaoDesfeita(() -> linhasPorSegundo(() -> null)));
+        }
+
+        assertTrue(v7 >= v4 * (1 - TOLERANCIA),
+                String.format("livros/s pela entidade: v7 %.0f | v4 %.0f", v7, v4));
+    }
+
+    private double linhasPorSegundo(Supplier<UUID> idAtribuido){
+        String marcador = MassaTeste.marcador("U");
+        Autor autor = MassaTeste.autor("Autor " + marcador);
+        entityManager.persist(autor);
+        entityManager.flush();
+
+        long inicio = System.nanoTime();
+        for (int i = 0; i < QUANTIDADE_ENTIDADES; i++) {
+            Livro livro = MassaTeste.livro(marcador + "-" + i, "Livro " + marcador + " " + i, autor);
+            livro.setId(idAtribuido.get());
+            entityManager.persist(livro);
+            if ((i + 1) % TAMANHO_BATCH_HIBERNATE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        long nanos = System.nanoTime() - inicio;
+        entityManager.clear();
+
+        assertEquals(QUANTIDADE_ENTIDADES, jdbcTemplate.queryForObject(
+                "select count(*) from livro where id_autor = ?", Long.class, autor.getId()));
+        return QUANTIDADE_ENTIDADES * 1_000_000_000.0 / nanos;
+    }
+
+    // nada fica gravado: as tabelas temporárias são "on commit drop" e os livros saem no rollback
+    private <T> T emTransacaoDesfeita(Supplier<T> acao){
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return acao.get();
+        });
+    }
+
+    private Resultado inserir(String tabela, Supplier<UUID> gerador){
+        jdbcTemplate.execute("create temp table " + tabela + " (id uuid primary key, texto varchar(150)) on commit drop");
+
+        List<Object[]> batch = new ArrayList<>(TAMANHO_BATCH);
+        for (int i = 0; i < QUANTIDADE; i++) {
+            batch.add(new Object[]{gerador.get(), "Livro " + i});
+            if (batch.size() == TAMANHO_BATCH) {
+                jdbcTemplate.batchUpdate("insert into " + tabela + " (id, texto) values (?, ?)", batch);
+                batch.clear();
+            }
+        }
+
+        long linhas = jdbcTemplate.queryForObject("select count(*) from " + tabela, Long.class);
+        long tamanhoIndice = jdbcTemplate.queryForObject(
+                "select pg_relation_size(indexrelid) from pg_index where indrelid = ?::regclass and indisprimary",
+                Long.class, tabela);
+        return new Resultado(linhas, tamanhoIndice / 1024);
+    }
+
+    private static int comparar(UUID a, UUID b){
+        int msb = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return msb != 0 ? msb : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    private record Resultado(long linhas, long tamanhoIndiceKb) {
+    }
+}
@@ -0,0 +1,150 @@
+package br.com.judev.libraryapi.repository;
+
+import br.com.judev.libraryapi.MassaTeste;
+import br.com.judev.libraryapi.exceptions.CampoInvalidoException;
+import br.com.judev.libraryapi.model.Autor;
+import br.com.judev.libraryapi.model.GeneroLivro;
+import br.com.judev.libraryapi.model.Livro;
+import br.com.judev.libraryapi.repository.specs.FiltroPesquisaLivro;
+import br.com.judev.libraryapi.repository.specs.LivroFiltroSql;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * LivroFiltroSql (estimativa do total, facetas, exportação) tem que trazer os mesmos livros que
+ * LivroSpecs (pesquisa) para o mesmo FiltroPesquisaLivro.
+ *
+ * Cada filtro roda pelos dois caminhos e os ids, restritos aos livros cadastrados aqui, são
+ * comparados entre si e com o resultado esperado (para não passar com os dois vazios).
+ */
+@SpringBootTest
+@Transactional
+class LivroFiltroSqlTest {
+
+    @Autowired
+    LivroRepository livroRepository;
+
+    @Autowired
+    AutorRepository autorRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManager entityManager;
+
+    String marcador;
+    List<Livro> livros;
+
+    @BeforeEach
+    void cadastrarLivros(){
+        marcador = MassaTeste.marcador("FSQL");
+        Autor machado = autor("Machado " + marcador);
+        Autor saramago = autor("Saramago " + marcador);
+
+        livros = new ArrayList<>();
+        livros.add(livro("Casa " + marcador, GeneroLivro.ROMANCE, LocalDate.of(2000, 1, 1), machado));
+        livros.add(livro("A casa " + marcador, GeneroLivro.FICCAO, LocalDate.of(2001, 6, 1), saramago));
+        livros.add(livro("Rua " + marcador, GeneroLivro.ROMANCE, LocalDate.of(2001, 1, 1), saramago));
+        // último dia do ano anterior: fora do filtro por ano 2000
+        livros.add(livro("Casario " + marcador, GeneroLivro.ROMANCE, LocalDate.of(1999, 12, 31), machado));
+        entityManager.flush();
+    }
+
+    @Test
+    void semFiltroTest(){
+        assertMesmosLivros(new FiltroPesquisaLivro(null, null, null, null, null), 0, 1, 2, 3);
+    }
+
+    @Test
+    void tituloTest(){
+        assertMesmosLivros(new FiltroPesquisaLivro(null, "  casa ", null, null, null), 0, 1, 3);
+    }
+
+    @Test
+    void nomeAutorTest(){
+        assertMesmosLivros(new FiltroPesquisaLivro(null, null, "saramago", null, null), 1, 2);
+    }
+
+    @Test
+    void generoTest(){
+        assertMesmosLivros(new FiltroPesquisaLivro(null, null, null, GeneroLivro.ROMANCE, null), 0, 2, 3);
+    }
+
+    @Test
+    void anoPublicacaoTest(){
+        assertMesmosLivros(new FiltroPesquisaLivro(null, null, null, null, 2000), 0);
+    }
+
+    @Test
+    void isbnTest(){
+        assertMesmosLivros(new FiltroPesquisaLivro(" " + livros.get(2).getIsbn(), null, null, null, null), 2);
+    }
+
+    @Test
+    void filtrosCombinadosTest(){
+        assertMesmosLivros(new FiltroPesquisaLivro(null, "CASA", "machado", GeneroLivro.ROMANCE, 2000), 0);
+    }
+
+    // fora de 1..9999: 422 pelo campo, e não DateTimeException (500)
+    @Test
+    void anoPublicacaoForaDaFaixaTest(){
+        for (int ano : new int[]{0, -5, 10_000, Integer.MAX_VALUE}) {
+            var filtro = new FiltroPesquisaLivro(null, null, null, null, ano);
+
+            CampoInvalidoException specs = assertThrows(CampoInvalidoException.class, filtro::toSpecification);
+            CampoInvalidoException sql = assertThrows(CampoInvalidoException.class, () -> LivroFiltroSql.de(filtro));
+
+            assertEquals("ano-publicacao", specs.getCampo());
+            assertEquals("ano-publicacao", sql.getCampo());
+        }
+    }
+
+    // o filtro passa pelo normalizado() nos dois caminhos, como no LivroService
+    private void assertMesmosLivros(FiltroPesquisaLivro filtro, int... esperados){
+        Set<UUID> cadastrados = livros.stream().map(Livro::getId).collect(Collectors.toSet());
+
+        Set<UUID> pelaSpecification = livroRepository.findAll(filtro.normalizado().toSpecification()).stream()
+                .map(Livro::getId)
+                .filter(cadastrados::contains)
+                .collect(Collectors.toSet());
+
+        LivroFiltroSql where = LivroFiltroSql.de(filtro);
+        Set<UUID> peloSql = jdbcTemplate.queryForList(
+                        "select l.id" + LivroFiltroSql.FROM + "where " + where.clausula(), UUID.class, where.parametros())
+                .stream()
+                .filter(cadastrados::contains)
+                .collect(Collectors.toSet());
+
+        Set<UUID> esperado = new HashSet<>();
+        for (int indice : esperados) {
+            esperado.add(livros.get(indice).getId());
+        }
+        assertEquals(esperado, pelaSpecification, "LivroSpecs");
+        assertEquals(pelaSpecification, peloSql, "LivroFiltroSql diverge de LivroSpecs para " + filtro);
+    }
+
+    private Autor autor(String nome){
+        return autorRepository.save(MassaTeste.autor(nome));
+    }
+
+    private Livro livro(String titulo, GeneroLivro genero, LocalDate dataPublicacao, Autor autor){
+        return livroRepository.save(MassaTeste.livro(marcador + "-" + livros.size(), titulo, genero, dataPublicacao, autor));
+    }
+}
@@ -0,0 +1,95 @@
+package br.com.judev.libraryapi.repository;
+
+import br.com.judev.libraryapi.MassaTeste;
+import br.com.judev.libraryapi.model.Autor;
+import br.com.judev.libraryapi.repository.specs.LivroSpecs;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * A pesquisa de livros deve custar sempre o mesmo número de statements por página
+ * (1 select + 1 count), independente de quantos livros/autores vêm na página.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class LivroRepositoryProjecaoTest {
+
+    @Autowired
+    LivroRepository livroRepository;
+
+    @Autowired
+    AutorRepository autorRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    String marcador;
+
+    @BeforeEach
+    void cadastrarLivros(){
+        marcador = MassaTeste.marcador("PROJ");
+
+        // um autor por livro: no caminho antigo seria 1 select de autor por linha
+        for (int i = 0; i < 30; i++) {
+            Autor autor = autorRepository.save(MassaTeste.autor("Autor " + marcador + " " + i));
+            livroRepository.save(MassaTeste.livro(marcador + "-" + i, "Livro " + marcador + " " + i, autor));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void statementsPorPaginaNaoDependemDoTamanhoTest(){
+        var specs = LivroSpecs.tituloLike(marcador);
+
+        long paginaDe10 = contarStatements(() -> livroRepository.pesquisarResumo(specs, PageRequest.of(0, 10)));
+        long paginaDe25 = contarStatements(() -> livroRepository.pesquisarResumo(specs, PageRequest.of(0, 25)));
+
+        assertEquals(2, paginaDe10);
+        assertEquals(2, paginaDe25);
+    }
+
+    @Test
+    void statementsComFiltroPorAutorTest(){
+        var specs = LivroSpecs.nomeAutorLike(marcador);
+
+        long statements = contarStatements(() -> livroRepository.pesquisarResumo(specs, PageRequest.of(0, 20)));
+
+        assertEquals(2, statements);
+    }
+
+    @Test
+    void detalheEmUmaQueryTest(){
+        UUID id = livroRepository.pesquisarResumo(LivroSpecs.tituloLike(marcador), PageRequest.of(0, 1))
+                .getContent().get(0).id();
+        entityManager.clear();
+
+        long statements = contarStatements(() ->
+                assertNotNull(livroRepository.obterResumoPorId(id).orElseThrow().autor().nome()));
+
+        assertEquals(1, statements);
+    }
+
+    private long contarStatements(Runnable acao){
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        acao.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
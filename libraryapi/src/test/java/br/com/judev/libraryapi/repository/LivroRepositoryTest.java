@@ -1,8 +1,12 @@
 package br.com.judev.libraryapi.repository;
 
+import br.com.judev.libraryapi.config.ContadorStatements;
+import br.com.judev.libraryapi.config.VerificacaoStatements;
+import br.com.judev.libraryapi.controller.dto.ResultadoPesquisaLivroDTO;
 import br.com.judev.libraryapi.model.Autor;
 import br.com.judev.libraryapi.model.GeneroLivro;
 import br.com.judev.libraryapi.model.Livro;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -14,6 +18,8 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 @SpringBootTest
 class LivroRepositoryTest {
 
@@ -23,10 +29,13 @@ class LivroRepositoryTest {
     @Autowired
     AutorRepository autorRepository;
 
+    @Autowired
+    EntityManager entityManager;
+
     @Test
     void salvarTest(){
         Livro livro = new Livro();
-        livro.setIsbn("90887-84874");
+        livro.setIsbn("90887-" + sufixo());
         livro.setPreco(BigDecimal.valueOf(100));
         livro.setGenero(GeneroLivro.CIENCIA);
         livro.setTitulo("Ciencias");
@@ -44,14 +53,14 @@ class LivroRepositoryTest {
     @Test
     void salvarAutorELivroTest(){
         Livro livro = new Livro();
-        livro.setIsbn("90887-84874");
+        livro.setIsbn("90887-" + sufixo());
         livro.setPreco(BigDecimal.valueOf(100));
         livro.setGenero(GeneroLivro.FICCAO);
         livro.setTitulo("Terceiro Livro");
         livro.setDataPublicacao(LocalDate.of(1980, 1, 2));
 
         Autor autor = new Autor();
-        autor.setNome("José");
+        autor.setNome("José " + sufixo());
         autor.setNacionalidade("Brasileira");
         autor.setDataNascimento(LocalDate.of(1951, 1, 31));
 
@@ -65,14 +74,14 @@ class LivroRepositoryTest {
     @Test
     void salvarCascadeTest(){
         Livro livro = new Livro();
-        livro.setIsbn("90887-84874");
+        livro.setIsbn("90887-" + sufixo());
         livro.setPreco(BigDecimal.valueOf(100));
         livro.setGenero(GeneroLivro.FICCAO);
         livro.setTitulo("Outro Livro");
         livro.setDataPublicacao(LocalDate.of(1980, 1, 2));
 
         Autor autor = new Autor();
-        autor.setNome("João");
+        autor.setNome("João " + sufixo());
         autor.setNacionalidade("Brasileira");
         autor.setDataNascimento(LocalDate.of(1951, 1, 31));
 
@@ -186,4 +195,56 @@ class LivroRepositoryTest {
     void updateDataPublicacaoTest(){
         livroRepository.updateDataPublicacao(LocalDate.of(2000,1,1));
     }
+
+    @Test
+    void buscarPorIdExecutaUmStatement(){
+        UUID id = UUID.fromString("daed83b3-65fd-49eb-9400-cbc0af13059d");
+        // autor é LAZY: só o select do livro
+        VerificacaoStatements.exatamente(1, () -> livroRepository.findById(id));
+    }
+
+    /*
+     * O caso clássico de N+1: a pesquisa traz os livros e o toDTO carrega o autor de cada um
+     * (Livro.autor é LAZY), um select por autor. A contagem precisa enxergar esses lazy loads.
+     */
+    @Test
+    @Transactional
+    void contagemEnxergaLazyLoadDoAutorNoToDTO(){
+        String titulo = "N+1 " + UUID.randomUUID();
+        for (int i = 0; i < 3; i++) {
+            Autor autor = new Autor();
+            autor.setNome("Autor N+1 " + UUID.randomUUID());
+            autor.setNacionalidade("Brasileira");
+            autor.setDataNascimento(LocalDate.of(1950 + i, 1, 1));
+            autorRepository.save(autor);
+
+            Livro livro = new Livro();
+            livro.setIsbn("N1-" + (System.nanoTime() % 1_000_000_000L));
+            livro.setTitulo(titulo);
+            livro.setGenero(GeneroLivro.FICCAO);
+            livro.setPreco(BigDecimal.TEN);
+            livro.setDataPublicacao(LocalDate.of(2000, 1, 1));
+            livro.setAutor(autor);
+            livroRepository.save(livro);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        try (ContadorStatements.Contagem contagem = ContadorStatements.iniciar()) {
+            List<ResultadoPesquisaLivroDTO> resultado = livroRepository.findByTitulo(titulo)
+                    .stream()
+                    .map(ResultadoPesquisaLivroDTO::toDTO)
+                    .toList();
+
+            assertEquals(3, resultado.size());
+            // 1 pesquisa + 1 select de autor por livro
+            assertEquals(4, contagem.total(), () -> contagem.porSql().toString());
+            assertEquals(1, contagem.repetidos(3).size(), () -> contagem.porSql().toString());
+        }
+    }
+
+    // isbn e autor (nome + nascimento + nacionalidade) têm unique constraint: dados únicos por execução
+    private static String sufixo(){
+        return UUID.randomUUID().toString().substring(0, 8);
+    }
 }
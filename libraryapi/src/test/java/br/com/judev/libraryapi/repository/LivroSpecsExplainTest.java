@@ -0,0 +1,94 @@
+package br.com.judev.libraryapi.repository;
+
+import br.com.judev.libraryapi.config.ContadorStatements;
+import br.com.judev.libraryapi.model.Livro;
+import br.com.judev.libraryapi.repository.specs.FiltroPesquisaLivro;
+import br.com.judev.libraryapi.repository.specs.LivroSpecs;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Garante que o SQL que o Hibernate gera a partir de LivroSpecs (o mesmo da pesquisa) tem um índice
+ * que atende cada filtro.
+ *
+ * - o SQL é capturado pelo ContadorStatements ao executar a pesquisa de verdade; com
+ *   hibernate.criteria.value_handling_mode=inline os valores do filtro vêm no texto, e só
+ *   limit/offset ficam como parâmetro;
+ * - com poucas linhas o Postgres sempre prefere seq scan, então o EXPLAIN roda com enable_seqscan
+ *   desligado (set local, numa transação desfeita no fim): se ainda assim vier "Seq Scan", o predicado
+ *   gerado não pode ser atendido por nenhum índice. Não diz qual plano sai com as estatísticas reais.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline")
+class LivroSpecsExplainTest {
+
+    private static final Sort ORDENACAO_CURSOR = Sort.by("titulo", "id");
+    private static final String LIMITE = "11";
+
+    @Autowired
+    LivroRepository livroRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    void tituloLikeUsaIndiceTest(){
+        assertSemSeqScan(filtro(null, "casa", null), Sort.unsorted());
+    }
+
+    @Test
+    void nomeAutorLikeUsaIndiceTest(){
+        assertSemSeqScan(filtro(null, null, "jose"), Sort.unsorted());
+    }
+
+    @Test
+    void anoPublicacaoUsaIndiceTest(){
+        assertSemSeqScan(filtro(2000, null, null), Sort.unsorted());
+    }
+
+    @Test
+    void pesquisaPorCursorUsaIndiceTest(){
+        assertSemSeqScan(LivroSpecs.aposCursor("M", new UUID(0, 0)), ORDENACAO_CURSOR);
+    }
+
+    private static Specification<Livro> filtro(Integer ano, String titulo, String nomeAutor){
+        return new FiltroPesquisaLivro(null, titulo, nomeAutor, null, ano).toSpecification();
+    }
+
+    private void assertSemSeqScan(Specification<Livro> specs, Sort sort){
+        String sql = sqlGerado(specs, sort);
+        List<String> plano = explain(sql);
+        assertFalse(plano.stream().anyMatch(linha -> linha.contains("Seq Scan")),
+                () -> "Plano com seq scan para:\n" + sql + "\n" + String.join("\n", plano));
+    }
+
+    // o SQL que a pesquisa executou; os parâmetros que sobram são limit/offset
+    private String sqlGerado(Specification<Livro> specs, Sort sort){
+        try (ContadorStatements.Contagem contagem = ContadorStatements.iniciar()) {
+            livroRepository.pesquisarResumo(specs, sort, Integer.parseInt(LIMITE));
+            assertEquals(1, contagem.total(), () -> contagem.porSql().toString());
+            return contagem.porSql().keySet().iterator().next().replace("?", LIMITE);
+        }
+    }
+
+    private List<String> explain(String sql){
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            jdbcTemplate.execute("set local enable_seqscan = off");
+            return jdbcTemplate.queryForList("explain " + sql, String.class);
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package br.com.judev.libraryapi.search;
+
+import br.com.judev.libraryapi.events.LivroAlteradoEvent;
+import br.com.judev.libraryapi.events.TipoAlteracao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sugestões de títulos sem banco: o índice é alimentado só pelos eventos.
+ */
+class IndiceSugestoesTest {
+
+    IndiceSugestoes indice;
+    UUID memorias;
+    UUID casmurro;
+
+    @BeforeEach
+    void cadastrar(){
+        indice = new IndiceSugestoes(null, 10);
+        memorias = titulo("Memórias Póstumas de Brás Cubas");
+        casmurro = titulo("Dom Casmurro");
+    }
+
+    @Test
+    void termosComecamEmCadaPalavraTest(){
+        assertEquals(List.of("dom casmurro", "casmurro"), IndiceSugestoes.termos("Dom Casmurro"));
+        assertTrue(IndiceSugestoes.termos("Memórias Póstumas de Brás Cubas").stream()
+                .allMatch(termo -> termo.length() <= IndiceSugestoes.TAMANHO_MAXIMO_TERMO));
+    }
+
+    @Test
+    void prefixoNoMeioDoTituloTest(){
+        assertEquals(List.of(casmurro), ids(indice.sugerirTitulos("casm", 10)));
+        assertEquals(List.of(memorias), ids(indice.sugerirTitulos("Bras", 10)));
+        assertEquals(List.of(), ids(indice.sugerirTitulos("asmurro", 10)));
+    }
+
+    // mais longo que a profundidade da trie: conferido no texto da sugestão
+    @Test
+    void prefixoMaiorQueOTermoIndexadoTest(){
+        assertEquals(List.of(memorias), ids(indice.sugerirTitulos("postumas de bras cubas", 10)));
+        assertEquals(List.of(), ids(indice.sugerirTitulos("postumas de bras cubaz", 10)));
+    }
+
+    @Test
+    void remocaoTest(){
+        indice.onLivroAlterado(new LivroAlteradoEvent(casmurro, "Dom Casmurro", null, TipoAlteracao.REMOCAO));
+
+        assertEquals(List.of(), ids(indice.sugerirTitulos("dom", 10)));
+    }
+
+    private UUID titulo(String titulo){
+        UUID id = UUID.randomUUID();
+        indice.onLivroAlterado(new LivroAlteradoEvent(id, titulo, null, TipoAlteracao.CRIACAO));
+        return id;
+    }
+
+    private static List<UUID> ids(List<Sugestao> sugestoes){
+        return sugestoes.stream().map(Sugestao::id).toList();
+    }
+}
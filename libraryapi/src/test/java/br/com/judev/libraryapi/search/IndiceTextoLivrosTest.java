@@ -0,0 +1,114 @@
+package br.com.judev.libraryapi.search;
+
+import br.com.judev.libraryapi.events.AutorAlteradoEvent;
+import br.com.judev.libraryapi.events.LivroAlteradoEvent;
+import br.com.judev.libraryapi.events.TipoAlteracao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Índice de texto sem banco: autores e livros entram só pelos eventos.
+ */
+class IndiceTextoLivrosTest {
+
+    IndiceTextoLivros indice;
+    UUID machado;
+    UUID casaVelha;
+
+    @BeforeEach
+    void cadastrar(){
+        indice = new IndiceTextoLivros(null);
+        machado = autor("Machado de Assis");
+        casaVelha = livro("Casa Velha", machado);
+    }
+
+    @Test
+    void tokenizacaoTest(){
+        assertEquals(List.of("sao", "paulo", "contos"), NormalizadorTexto.tokenizar("São Paulo: Contos"));
+        assertEquals(List.of("die", "straße", "1984"), NormalizadorTexto.tokenizar("Die Straße, 1984"));
+        // o breve do й é uma marca e sai com os acentos
+        assertEquals(List.of("лев", "толстои"), NormalizadorTexto.tokenizar("Лев Толстой"));
+        assertEquals(List.of("村上春樹", "1q84"), NormalizadorTexto.tokenizar("村上春樹 — 1Q84"));
+        assertEquals(List.of(), NormalizadorTexto.tokenizar(" -- "));
+        assertEquals(List.of(), NormalizadorTexto.tokenizar(null));
+    }
+
+    @Test
+    void buscaEmOutrasEscritasTest(){
+        UUID guerraEPaz = livro("Война и мир", autor("Лев Толстой"));
+        UUID straße = livro("Die Straße", null);
+
+        assertEquals(List.of(guerraEPaz), indice.buscar("толстой", 10));
+        assertEquals(List.of(guerraEPaz), indice.buscar("ВОЙНА", 10));
+        assertEquals(List.of(straße), indice.buscar("straße", 10));
+    }
+
+    // título exato (2) > autor exato (1) = título por prefixo (1), empate pelo título
+    @Test
+    void rankingTest(){
+        UUID memorias = livro("Memórias", autor("Casa Nova"));
+        UUID casamento = livro("Casamento", autor("Outro Autor"));
+
+        assertEquals(List.of(casaVelha, casamento, memorias), indice.buscar("casa", 10));
+        assertEquals(List.of(casaVelha), indice.buscar("casa", 1));
+    }
+
+    @Test
+    void todosOsTermosPrecisamCasarTest(){
+        livro("Casa de Pensão", autor("Aluísio Azevedo"));
+
+        assertEquals(List.of(casaVelha), indice.buscar("casa machado", 10));
+        assertEquals(List.of(casaVelha), indice.buscar("velha ass", 10));
+        // só o último termo casa por prefixo
+        assertEquals(List.of(), indice.buscar("cas velha", 10));
+        assertEquals(List.of(), indice.buscar("casa tolstoi", 10));
+    }
+
+    @Test
+    void atualizacaoDoLivroTest(){
+        indice.onLivroAlterado(new LivroAlteradoEvent(casaVelha, "Dom Casmurro", machado, TipoAlteracao.ATUALIZACAO));
+
+        assertEquals(List.of(), indice.buscar("velha", 10));
+        assertEquals(List.of(casaVelha), indice.buscar("casmurro", 10));
+        assertEquals(List.of(casaVelha), indice.buscar("machado", 10));
+    }
+
+    @Test
+    void remocaoDoLivroTest(){
+        indice.onLivroAlterado(new LivroAlteradoEvent(casaVelha, null, null, TipoAlteracao.REMOCAO));
+
+        assertEquals(List.of(), indice.buscar("casa", 10));
+        assertEquals(List.of(), indice.buscar("machado", 10));
+    }
+
+    // o livro não muda: a busca pelo autor acompanha o nome novo
+    @Test
+    void atualizacaoDoAutorTest(){
+        indice.onAutorAlterado(new AutorAlteradoEvent(machado, "Joaquim Maria", TipoAlteracao.ATUALIZACAO));
+
+        assertEquals(List.of(), indice.buscar("machado", 10));
+        assertEquals(List.of(casaVelha), indice.buscar("joaquim", 10));
+
+        indice.onAutorAlterado(new AutorAlteradoEvent(machado, null, TipoAlteracao.REMOCAO));
+
+        assertEquals(List.of(), indice.buscar("joaquim", 10));
+        assertEquals(List.of(casaVelha), indice.buscar("casa", 10));
+    }
+
+    private UUID autor(String nome){
+        UUID id = UUID.randomUUID();
+        indice.onAutorAlterado(new AutorAlteradoEvent(id, nome, TipoAlteracao.CRIACAO));
+        return id;
+    }
+
+    private UUID livro(String titulo, UUID idAutor){
+        UUID id = UUID.randomUUID();
+        indice.onLivroAlterado(new LivroAlteradoEvent(id, titulo, idAutor, TipoAlteracao.CRIACAO));
+        return id;
+    }
+}
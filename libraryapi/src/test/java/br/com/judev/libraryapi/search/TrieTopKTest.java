@@ -0,0 +1,136 @@
+package br.com.judev.libraryapi.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * TrieTopK sem Spring: chaves String, valores Integer em ordem crescente (menor = melhor).
+ */
+class TrieTopKTest {
+
+    TrieTopK<String, Integer> trie;
+
+    @BeforeEach
+    void criar(){
+        trie = new TrieTopK<>(3, Comparator.naturalOrder());
+    }
+
+    @Test
+    void buscaDevolveOsKMelhoresEmOrdemTest(){
+        trie.adicionar("casa", 4, List.of("casa"));
+        trie.adicionar("casmurro", 1, List.of("casmurro"));
+        trie.adicionar("cortico", 2, List.of("cortico"));
+        trie.adicionar("caso", 3, List.of("caso"));
+        trie.adicionar("casual", 5, List.of("casual"));
+
+        assertEquals(List.of(1, 3, 4), trie.buscar("cas", 10));
+        assertEquals(List.of(1, 2, 3), trie.buscar("c", 10));
+        assertEquals(List.of(1, 2), trie.buscar("", 2));
+        assertEquals(List.of(4), trie.buscar("casa", 10));
+        assertEquals(List.of(), trie.buscar("x", 10));
+    }
+
+    // o mesmo valor por mais de um termo (ex.: começo de cada palavra) aparece uma vez só
+    @Test
+    void valorEmVariosTermosApareceUmaVezTest(){
+        trie.adicionar("dom casmurro", 1, List.of("dom casmurro", "casmurro"));
+        trie.adicionar("casa velha", 2, List.of("casa velha", "velha"));
+
+        assertEquals(List.of(1, 2), trie.buscar("cas", 10));
+        assertEquals(List.of(1), trie.buscar("dom", 10));
+    }
+
+    @Test
+    void adicionarMesmaChaveSubstituiValorETermosTest(){
+        trie.adicionar("livro", 5, List.of("antigo"));
+        trie.adicionar("livro", 1, List.of("novo"));
+
+        assertEquals(List.of(), trie.buscar("ant", 10));
+        assertEquals(List.of(1), trie.buscar("nov", 10));
+        assertEquals(1, trie.tamanho());
+    }
+
+    // o nó de "ca" guarda só 3; removendo um deles, o 4º sobe pelo recálculo do caminho
+    @Test
+    void removerRecalculaOsAncestraisTest(){
+        trie.adicionar("a", 1, List.of("caa"));
+        trie.adicionar("b", 2, List.of("cab"));
+        trie.adicionar("c", 3, List.of("cac"));
+        trie.adicionar("d", 4, List.of("cad"));
+
+        trie.remover("a");
+
+        assertEquals(List.of(2, 3, 4), trie.buscar("ca", 10));
+        assertEquals(List.of(2, 3, 4), trie.buscar("", 10));
+        assertEquals(3, trie.tamanho());
+    }
+
+    @Test
+    void removerPodaOsNosSemValoresTest(){
+        trie.adicionar("abc", 1, List.of("abc"));
+        trie.adicionar("abd", 2, List.of("abd"));
+        // raiz, a, b, c, d
+        assertEquals(5, trie.nos());
+
+        trie.remover("abd");
+        assertEquals(4, trie.nos());
+
+        // "ab" continua: ainda leva a "abc"
+        trie.adicionar("ab", 3, List.of("ab"));
+        trie.remover("abc");
+        assertEquals(3, trie.nos());
+        assertEquals(List.of(3), trie.buscar("a", 10));
+
+        trie.remover("ab");
+        assertEquals(1, trie.nos());
+        assertEquals(List.of(), trie.buscar("", 10));
+    }
+
+    @Test
+    void removerChaveInexistenteTest(){
+        trie.adicionar("abc", 1, List.of("abc"));
+
+        trie.remover("xyz");
+
+        assertEquals(List.of(1), trie.buscar("ab", 10));
+    }
+
+    // carga em lote (sem recalcular a cada inserção) tem que chegar na mesma árvore
+    @Test
+    void cargaEmLoteIgualAIncrementalTest(){
+        TrieTopK<String, Integer> incremental = new TrieTopK<>(3, Comparator.naturalOrder());
+        String[] termos = {"casa", "caso", "casmurro", "cortico", "iracema", "casual", "cabo"};
+        for (int i = 0; i < termos.length; i++) {
+            trie.adicionarSemRecalcular(termos[i], termos.length - i, List.of(termos[i]));
+            incremental.adicionar(termos[i], termos.length - i, List.of(termos[i]));
+        }
+        trie.recalcularTudo();
+
+        for (String prefixo : List.of("", "c", "ca", "cas", "co", "i", "casm")) {
+            assertEquals(incremental.buscar(prefixo, 10), trie.buscar(prefixo, 10), prefixo);
+        }
+        assertEquals(incremental.nos(), trie.nos());
+    }
+
+    @Test
+    void limparTest(){
+        trie.adicionar("abc", 1, List.of("abc"));
+
+        trie.limpar();
+
+        assertEquals(0, trie.tamanho());
+        assertEquals(1, trie.nos());
+        assertEquals(List.of(), trie.buscar("a", 10));
+    }
+
+    @Test
+    void kInvalidoTest(){
+        assertThrows(IllegalArgumentException.class, () -> new TrieTopK<String, Integer>(0, Comparator.naturalOrder()));
+    }
+}
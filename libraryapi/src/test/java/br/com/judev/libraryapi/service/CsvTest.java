@@ -0,0 +1,39 @@
+package br.com.judev.libraryapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvTest {
+
+    @Test
+    void separarCamposEntreAspasTest(){
+        assertEquals(List.of("1", "Contos, crônicas", "ele disse \"sim\"", ""),
+                Csv.separar("1,\"Contos, crônicas\",\"ele disse \"\"sim\"\"\","));
+        assertEquals(List.of("", "", ""), Csv.separar(",,"));
+        assertEquals(List.of("linha um\nlinha dois", "x"), Csv.separar("\"linha um\nlinha dois\",x"));
+    }
+
+    @Test
+    void escaparESepararTest(){
+        List<String> valores = List.of("simples", "com, vírgula", "com \"aspas\"", "com\nquebra");
+        String linha = String.join(",", valores.stream().map(Csv::escapar).toList());
+
+        assertEquals(valores, Csv.separar(linha));
+        assertEquals("", Csv.escapar(null));
+        assertEquals("simples", Csv.escapar("simples"));
+    }
+
+    @Test
+    void aspasAbertasTest(){
+        assertTrue(Csv.aspasAbertas("1,\"começo do título"));
+        assertFalse(Csv.aspasAbertas("1,\"título\",2"));
+        // aspas escapadas ("") não fecham nem abrem o campo
+        assertTrue(Csv.aspasAbertas("1,\"ele disse \"\"sim\"\""));
+        assertFalse(Csv.aspasAbertas("sem aspas"));
+    }
+}
@@ -0,0 +1,224 @@
+package br.com.judev.libraryapi.service;
+
+import br.com.judev.libraryapi.MassaTeste;
+import br.com.judev.libraryapi.model.Autor;
+import br.com.judev.libraryapi.model.Livro;
+import br.com.judev.libraryapi.repository.AutorRepository;
+import br.com.judev.libraryapi.repository.LivroRepository;
+import br.com.judev.libraryapi.repository.specs.FiltroPesquisaLivro;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Exportação do catálogo (CSV e NDJSON) filtrada pelo título com o marcador do teste.
+ *
+ * Sem @Transactional: a exportação abre a própria transação read-only (é nela que o driver usa o
+ * cursor) e, no benchmark, roda em outra thread; o que foi gravado é removido no fim pelo autor.
+ *
+ * O benchmark (@Tag("benchmark"), mvn test -Pbenchmark) exporta QUANTIDADE_STREAMING livros e pausa a
+ * escrita na primeira saída: sem cursor o driver já teria o resultado inteiro na memória nesse ponto;
+ * com ele, só o fetch-size. O heap usado nesse momento não pode ter crescido mais que LIMITE_HEAP_MB.
+ */
+@SpringBootTest
+class ExportacaoLivroServiceTest {
+
+    private static final int QUANTIDADE_STREAMING = 300_000;
+    // o resultado inteiro ocupa perto de 400 bytes por linha no driver (mais de 100 MB); o fetch-size, menos de 1 MB
+    private static final long LIMITE_HEAP_MB = 20;
+
+    @Autowired
+    ExportacaoLivroService exportacaoService;
+
+    @Autowired
+    LivroRepository livroRepository;
+
+    @Autowired
+    AutorRepository autorRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    JsonMapper jsonMapper;
+
+    String marcador;
+    Autor autor;
+
+    @BeforeEach
+    void cadastrarAutor(){
+        marcador = MassaTeste.marcador("EXP");
+        autor = autorRepository.save(MassaTeste.autor("Autor, \"Aspas\" " + marcador));
+    }
+
+    @AfterEach
+    void removerLivros(){
+        jdbcTemplate.update("delete from livro where id_autor = ?", autor.getId());
+        autorRepository.delete(autor);
+    }
+
+    // vírgula, aspas e quebra de linha vão entre aspas; o registro com quebra ocupa duas linhas
+    @Test
+    void csvTest() throws IOException {
+        Livro comEscape = livroRepository.save(MassaTeste.livro(marcador + "-0", "Contos, \"outros\"\nsegunda linha " + marcador, autor));
+        Livro simples = livroRepository.save(MassaTeste.livro(marcador + "-1", "Simples " + marcador, autor));
+
+        String csv = exportar(FormatoArquivo.CSV);
+
+        List<String> registros = registrosCsv(csv);
+        assertEquals(3, registros.size());
+        assertEquals("id,isbn,titulo,data_publicacao,genero,preco,id_autor,nome_autor,data_nascimento_autor,nacionalidade_autor",
+                registros.get(0));
+        assertEquals(simples.getId() + "," + marcador + "-1,Simples " + marcador + ",2000-06-01,FICCAO,10.00,"
+                + autor.getId() + ",\"Autor, \"\"Aspas\"\" " + marcador + "\",1960-01-01,Brasileira", registros.get(2));
+
+        List<String> campos = Csv.separar(registros.get(1));
+        assertEquals(comEscape.getId().toString(), campos.get(0));
+        assertEquals("Contos, \"outros\"\nsegunda linha " + marcador, campos.get(2));
+        assertEquals(autor.getNome(), campos.get(7));
+        assertTrue(registros.get(1).contains("\"Contos, \"\"outros\"\"\nsegunda linha "));
+    }
+
+    // um livro por linha: a quebra de linha do título fica escapada no JSON
+    @Test
+    void ndjsonTest() throws IOException {
+        Livro comEscape = livroRepository.save(MassaTeste.livro(marcador + "-0", "Contos, \"outros\"\nsegunda linha " + marcador, autor));
+        Livro simples = livroRepository.save(MassaTeste.livro(marcador + "-1", "Simples " + marcador, autor));
+
+        String ndjson = exportar(FormatoArquivo.NDJSON);
+
+        assertTrue(ndjson.endsWith("\n"));
+        String[] linhas = ndjson.split("\n");
+        assertEquals(2, linhas.length);
+
+        JsonNode primeiro = jsonMapper.readTree(linhas[0]);
+        assertEquals(comEscape.getId().toString(), primeiro.get("id").asString());
+        assertEquals(comEscape.getTitulo(), primeiro.get("titulo").asString());
+        assertEquals(autor.getNome(), primeiro.get("autor").get("nome").asString());
+
+        JsonNode segundo = jsonMapper.readTree(linhas[1]);
+        assertEquals(simples.getId().toString(), segundo.get("id").asString());
+        assertEquals(marcador + "-1", segundo.get("isbn").asString());
+        assertEquals("FICCAO", segundo.get("genero").asString());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void exportacaoGrandeNaoCarregaOResultadoNaMemoriaTest() throws Exception {
+        jdbcTemplate.update("""
+                insert into livro (id, isbn, titulo, data_publicacao, genero, preco, id_autor, data_cadastro, data_atualizacao)
+                select gen_random_uuid(), ? || '-' || i, 'Livro ' || ? || ' ' || i, date '2000-06-01', 'FICCAO', 10,
+                       ?, localtimestamp, localtimestamp
+                from generate_series(1, ?) i
+                """, marcador, marcador, autor.getId(), QUANTIDADE_STREAMING);
+
+        SaidaPausada saida = new SaidaPausada();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            long heapAntes = heapUsado();
+            Future<?> exportacao = executor.submit(() -> {
+                exportacaoService.exportar(filtro(), FormatoArquivo.CSV, saida);
+                return null;
+            });
+
+            assertTrue(saida.primeiraEscrita.await(60, TimeUnit.SECONDS), "a exportação não escreveu nada");
+            long crescimentoMb = (heapUsado() - heapAntes) / (1024 * 1024);
+            saida.continuar.countDown();
+            exportacao.get(5, TimeUnit.MINUTES);
+
+            assertEquals(QUANTIDADE_STREAMING + 1, saida.linhas);
+            assertTrue(crescimentoMb < LIMITE_HEAP_MB, String.format(
+                    "heap cresceu %d MB até a primeira escrita de %d livros (limite %d MB)",
+                    crescimentoMb, QUANTIDADE_STREAMING, LIMITE_HEAP_MB));
+        } finally {
+            saida.continuar.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private String exportar(FormatoArquivo formato) throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        exportacaoService.exportar(filtro(), formato, saida);
+        return saida.toString(StandardCharsets.UTF_8);
+    }
+
+    private FiltroPesquisaLivro filtro(){
+        return new FiltroPesquisaLivro(null, marcador, null, null, null);
+    }
+
+    // junta as linhas de um registro com campo entre aspas quebrado, como a importação
+    private static List<String> registrosCsv(String csv){
+        List<String> registros = new ArrayList<>();
+        StringBuilder registro = null;
+        for (String linha : csv.split("\n")) {
+            if (registro == null) {
+                registro = new StringBuilder(linha);
+            } else {
+                registro.append('\n').append(linha);
+            }
+            if (!Csv.aspasAbertas(registro.toString())) {
+                registros.add(registro.toString());
+                registro = null;
+            }
+        }
+        return registros;
+    }
+
+    private static long heapUsado(){
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    // segura a primeira escrita até o teste medir o heap; depois só conta as linhas
+    private static final class SaidaPausada extends OutputStream {
+
+        private final CountDownLatch primeiraEscrita = new CountDownLatch(1);
+        private final CountDownLatch continuar = new CountDownLatch(1);
+        private long linhas;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (primeiraEscrita.getCount() > 0) {
+                primeiraEscrita.countDown();
+                try {
+                    continuar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    linhas++;
+                }
+            }
+        }
+    }
+}
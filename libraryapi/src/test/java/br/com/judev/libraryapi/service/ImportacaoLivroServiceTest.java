@@ -0,0 +1,258 @@
+package br.com.judev.libraryapi.service;
+
+import br.com.judev.libraryapi.MassaTeste;
+import br.com.judev.libraryapi.controller.dto.ErroImportacaoDTO;
+import br.com.judev.libraryapi.controller.dto.ResultadoImportacaoDTO;
+import br.com.judev.libraryapi.model.Autor;
+import br.com.judev.libraryapi.repository.AutorRepository;
+import br.com.judev.libraryapi.repository.LivroRepository;
+import br.com.judev.libraryapi.validator.LivroValidator;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Importação em lote pelo CSV, pelos dois caminhos de gravação (COPY e insert em batch).
+ *
+ * Sem @Transactional: cada lote é gravado na sua própria transação (TransactionTemplate), e é
+ * isso que está sendo testado; o que foi gravado é removido no fim pelo autor.
+ * O serviço é montado aqui para variar o tamanho do lote, o COPY e o repositório.
+ */
+@SpringBootTest
+class ImportacaoLivroServiceTest {
+
+    private static final String CABECALHO = "isbn,titulo,data_publicacao,genero,preco,id_autor";
+
+    @Autowired
+    LivroRepository livroRepository;
+
+    @Autowired
+    AutorRepository autorRepository;
+
+    @Autowired
+    LivroValidator livroValidator;
+
+    @Autowired
+    Validator validator;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    JsonMapper jsonMapper;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    String marcador;
+    Autor autor;
+
+    @BeforeEach
+    void cadastrarAutor(){
+        marcador = MassaTeste.marcador("IMP");
+        autor = autorRepository.save(MassaTeste.autor("Autor " + marcador));
+    }
+
+    @AfterEach
+    void removerLivros(){
+        jdbcTemplate.update("delete from livro where id_autor = ?", autor.getId());
+        autorRepository.delete(autor);
+    }
+
+    @Test
+    void csvComAspasEQuebraDeLinhaPeloCopyTest() throws IOException {
+        csvComAspasEQuebraDeLinha(true);
+    }
+
+    @Test
+    void csvComAspasEQuebraDeLinhaPeloBatchTest() throws IOException {
+        csvComAspasEQuebraDeLinha(false);
+    }
+
+    // o registro da linha 3 ocupa as linhas 3 e 4; o erro seguinte aponta a linha 5
+    private void csvComAspasEQuebraDeLinha(boolean copy) throws IOException {
+        String[] isbns = {isbn(), isbn(), isbn(), isbn()};
+        String csv = csv(
+                linha(isbns[0], "\"Contos, crônicas e \"\"outros\"\" " + marcador + "\""),
+                linha(isbns[1], "\"Primeira linha\nsegunda linha " + marcador + "\""),
+                isbns[2] + ",Gênero inválido " + marcador + ",2001-01-01,INVALIDO,10.00," + autor.getId(),
+                linha(isbns[3], "Simples " + marcador));
+
+        ResultadoImportacaoDTO resultado = servico(10, copy, livroRepository).importar(entrada(csv), FormatoArquivo.CSV);
+
+        assertEquals(4, resultado.linhasLidas());
+        assertEquals(3, resultado.importados());
+        assertEquals(List.of(new ErroImportacaoDTO(5, "genero", "Valor inválido: INVALIDO")), resultado.erros());
+        assertEquals("Contos, crônicas e \"outros\" " + marcador, titulo(isbns[0]));
+        assertEquals("Primeira linha\nsegunda linha " + marcador, titulo(isbns[1]));
+        assertEquals("Simples " + marcador, titulo(isbns[3]));
+    }
+
+    /*
+     * Lotes de 3: o repetido dentro do lote (linha 3) sai antes de ir ao banco; o repetido em outro
+     * lote (linha 6) é achado na consulta de ISBNs, porque o primeiro lote já foi gravado.
+     */
+    @Test
+    void isbnRepetidoNoArquivoTest() throws IOException {
+        String repetido = isbn();
+        String csv = csv(
+                linha(repetido, "Primeiro " + marcador),
+                linha(repetido, "Repetido no lote " + marcador),
+                linha(isbn(), "Segundo " + marcador),
+                linha(isbn(), "Terceiro " + marcador),
+                linha(repetido, "Repetido em outro lote " + marcador));
+
+        ResultadoImportacaoDTO resultado = servico(3, true, livroRepository).importar(entrada(csv), FormatoArquivo.CSV);
+
+        assertEquals(3, resultado.importados());
+        assertEquals(List.of(
+                new ErroImportacaoDTO(3, "isbn", "ISBN repetido no arquivo."),
+                new ErroImportacaoDTO(6, "isbn", "ISBN já cadastrado!")), resultado.erros());
+        assertEquals("Primeiro " + marcador, titulo(repetido));
+    }
+
+    @Test
+    void isbnJaCadastradoNoBancoTest() throws IOException {
+        String cadastrado = cadastrarLivro();
+        String novo = isbn();
+
+        ResultadoImportacaoDTO resultado = servico(10, true, livroRepository)
+                .importar(entrada(csv(linha(cadastrado, "Outro " + marcador), linha(novo, "Novo " + marcador))), FormatoArquivo.CSV);
+
+        assertEquals(1, resultado.importados());
+        assertEquals(List.of(new ErroImportacaoDTO(2, "isbn", "ISBN já cadastrado!")), resultado.erros());
+        assertEquals("Novo " + marcador, titulo(novo));
+    }
+
+    @Test
+    void isbnGravadoDuranteAImportacaoPeloCopyTest() throws IOException {
+        isbnGravadoDuranteAImportacao(true);
+    }
+
+    @Test
+    void isbnGravadoDuranteAImportacaoPeloBatchTest() throws IOException {
+        isbnGravadoDuranteAImportacao(false);
+    }
+
+    /*
+     * O repositório não enxerga o ISBN já gravado (como se outra requisição o tivesse gravado depois
+     * da consulta): a gravação esbarra na uk_livro_isbn, o ISBN sai do detalhe da violação, a linha
+     * dele é recusada e o resto do lote é gravado na nova tentativa.
+     */
+    private void isbnGravadoDuranteAImportacao(boolean copy) throws IOException {
+        String cadastrado = cadastrarLivro();
+        String antes = isbn();
+        String depois = isbn();
+        String csv = csv(
+                linha(antes, "Antes " + marcador),
+                linha(cadastrado, "Concorrente " + marcador),
+                linha(depois, "Depois " + marcador));
+
+        ResultadoImportacaoDTO resultado = servico(10, copy, semIsbnsCadastrados()).importar(entrada(csv), FormatoArquivo.CSV);
+
+        assertEquals(2, resultado.importados());
+        assertEquals(List.of(new ErroImportacaoDTO(3, "isbn", "ISBN já cadastrado!")), resultado.erros());
+        assertEquals("Antes " + marcador, titulo(antes));
+        assertEquals("Depois " + marcador, titulo(depois));
+    }
+
+    // título acima do varchar(150): passa na validação e falha no banco, no meio do segundo lote
+    @Test
+    void loteQueFalhaNoMeioNaoGravaNadaDoLoteTest() throws IOException {
+        List<String> isbns = new ArrayList<>();
+        List<String> linhas = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            isbns.add(isbn());
+            String titulo = i == 4 ? "Longo " + marcador + " " + "x".repeat(200) : "Livro " + marcador + " " + i;
+            linhas.add(linha(isbns.get(i), titulo));
+        }
+
+        ResultadoImportacaoDTO resultado = servico(3, true, livroRepository)
+                .importar(entrada(csv(linhas.toArray(String[]::new))), FormatoArquivo.CSV);
+
+        assertEquals(4, resultado.importados());
+        assertEquals(3, resultado.rejeitados());
+        assertEquals(List.of(5L, 6L, 7L), resultado.erros().stream().map(ErroImportacaoDTO::linha).toList());
+        assertTrue(resultado.erros().stream().allMatch(erro -> erro.erro().startsWith("Lote não gravado")));
+        assertEquals(Set.of(isbns.get(0), isbns.get(1), isbns.get(2), isbns.get(6)),
+                livroRepository.listarIsbnsCadastrados(isbns));
+    }
+
+    private ImportacaoLivroService servico(int tamanhoLote, boolean copy, LivroRepository repositorio){
+        return new ImportacaoLivroService(repositorio, autorRepository, livroValidator, validator, jdbcTemplate,
+                transactionTemplate, jsonMapper, eventPublisher, tamanhoLote, copy);
+    }
+
+    // o LivroRepository de verdade, exceto pela consulta de ISBNs, que não acha nenhum
+    private LivroRepository semIsbnsCadastrados(){
+        return (LivroRepository) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{LivroRepository.class},
+                (proxy, metodo, argumentos) -> {
+                    if (metodo.getName().equals("listarIsbnsCadastrados")) {
+                        return Set.of();
+                    }
+                    try {
+                        return metodo.invoke(livroRepository, argumentos);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private String cadastrarLivro(){
+        String isbn = isbn();
+        livroRepository.save(MassaTeste.livro(isbn, "Cadastrado " + marcador, autor));
+        return isbn;
+    }
+
+    private String linha(String isbn, String titulo){
+        return isbn + "," + titulo + ",2001-01-01,FICCAO,10.00," + autor.getId();
+    }
+
+    private static String csv(String... linhas){
+        return CABECALHO + "\n" + String.join("\n", linhas) + "\n";
+    }
+
+    private static ByteArrayInputStream entrada(String conteudo){
+        return new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String titulo(String isbn){
+        return jdbcTemplate.queryForObject("select titulo from livro where isbn = ?", String.class, isbn);
+    }
+
+    // ISBN-13 válido (o @ISBN confere o dígito verificador)
+    private static String isbn(){
+        StringBuilder isbn = new StringBuilder("978");
+        for (int i = 0; i < 9; i++) {
+            isbn.append(ThreadLocalRandom.current().nextInt(10));
+        }
+        int soma = 0;
+        for (int i = 0; i < 12; i++) {
+            soma += (isbn.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return isbn.append((10 - soma % 10) % 10).toString();
+    }
+}
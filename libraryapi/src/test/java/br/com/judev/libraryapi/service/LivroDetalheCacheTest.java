@@ -0,0 +1,102 @@
+package br.com.judev.libraryapi.service;
+
+import br.com.judev.libraryapi.controller.dto.AutorDTO;
+import br.com.judev.libraryapi.controller.dto.ResultadoPesquisaLivroDTO;
+import br.com.judev.libraryapi.controller.dto.VersaoRecursoDTO;
+import br.com.judev.libraryapi.events.AutorAlteradoEvent;
+import br.com.judev.libraryapi.events.LivroAlteradoEvent;
+import br.com.judev.libraryapi.events.TipoAlteracao;
+import br.com.judev.libraryapi.model.GeneroLivro;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Misses concorrentes do mesmo livro no LivroDetalheCache: uma carga por id por janela de miss,
+ * e uma nova carga depois de cada invalidação, inclusive de uma alteração do autor no meio da carga.
+ */
+class LivroDetalheCacheTest {
+
+    private final LivroDetalheCache cache = new LivroDetalheCache(
+            DataSize.ofMegabytes(1), Duration.ofMinutes(10), new SimpleMeterRegistry());
+
+    private final UUID idAutor = UUID.randomUUID();
+    private final AtomicInteger cargas = new AtomicInteger();
+
+    @Test
+    void missesConcorrentesFazemUmaCargaTest() throws Exception {
+        UUID id = UUID.randomUUID();
+
+        List<Optional<LivroDetalheCache.Entrada>> recebidos = carregarConcorrente(id);
+
+        assertEquals(1, cargas.get());
+        recebidos.forEach(recebido -> assertTrue(recebido.isPresent()));
+        recebidos.forEach(recebido -> assertSame(recebidos.getFirst().get(), recebido.get()));
+    }
+
+    @Test
+    void novaCargaDepoisDeAlteracaoTest() throws Exception {
+        UUID id = UUID.randomUUID();
+        carregarConcorrente(id);
+
+        cache.onLivroAlterado(new LivroAlteradoEvent(id, "Titulo novo", idAutor, TipoAlteracao.ATUALIZACAO));
+        carregarConcorrente(id);
+
+        cache.onAutorAlterado(new AutorAlteradoEvent(idAutor, "Autor novo", TipoAlteracao.ATUALIZACAO));
+        carregarConcorrente(id);
+
+        assertEquals(3, cargas.get());
+    }
+
+    @Test
+    void alteracaoDoAutorDuranteACargaTest() {
+        UUID id = UUID.randomUUID();
+
+        // a primeira carga leu o autor antigo; a alteração dele chega antes de ela terminar
+        cache.obter(id, chave -> {
+            if (cargas.incrementAndGet() == 1) {
+                cache.onAutorAlterado(new AutorAlteradoEvent(idAutor, "Autor novo", TipoAlteracao.ATUALIZACAO));
+            }
+            return Optional.of(entrada(chave));
+        });
+        assertEquals(2, cargas.get());
+
+        // a entrada que ficou é a da segunda carga
+        cache.obter(id, chave -> {
+            cargas.incrementAndGet();
+            return Optional.of(entrada(chave));
+        });
+        assertEquals(2, cargas.get());
+    }
+
+    // a carga só termina quando todas as chamadas estão esperando por ela (ver SingleFlightTest)
+    private List<Optional<LivroDetalheCache.Entrada>> carregarConcorrente(UUID id) throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        return SingleFlightTest.executarConcorrente(liberar, () -> cache.obter(id, chave -> {
+            cargas.incrementAndGet();
+            SingleFlightTest.aguardar(liberar);
+            return Optional.of(entrada(chave));
+        }));
+    }
+
+    private LivroDetalheCache.Entrada entrada(UUID id) {
+        var autor = new AutorDTO(idAutor, "Autor", LocalDate.of(1950, 1, 1), "Brasileira");
+        var livro = new ResultadoPesquisaLivroDTO(id, "978-85-333-0227-3", "Titulo", LocalDate.of(2001, 1, 1),
+                GeneroLivro.ROMANCE, BigDecimal.TEN, autor);
+        return new LivroDetalheCache.Entrada(new VersaoRecursoDTO(0, 0L, LocalDateTime.now()), livro);
+    }
+}
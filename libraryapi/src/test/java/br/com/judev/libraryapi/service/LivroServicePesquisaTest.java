@@ -0,0 +1,130 @@
+package br.com.judev.libraryapi.service;
+
+import br.com.judev.libraryapi.MassaTeste;
+import br.com.judev.libraryapi.model.Autor;
+import br.com.judev.libraryapi.repository.AutorRepository;
+import br.com.judev.libraryapi.repository.LivroRepository;
+import br.com.judev.libraryapi.repository.specs.FiltroPesquisaLivro;
+import br.com.judev.libraryapi.repository.specs.LivroSpecs;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Total da pesquisa paginada conforme a EstrategiaContagem: a próxima página não pode depender de
+ * um total aproximado, e a estratégia informada (X-Contagem) é a que de fato deu o total.
+ */
+@SpringBootTest
+@Transactional
+class LivroServicePesquisaTest {
+
+    private static final int QUANTIDADE_LIVROS = 30;
+
+    @Autowired
+    LivroService livroService;
+
+    @Autowired
+    LivroRepository livroRepository;
+
+    @Autowired
+    AutorRepository autorRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    String marcador;
+
+    @BeforeEach
+    void cadastrarLivros(){
+        marcador = MassaTeste.marcador("TOTAL");
+        Autor autor = autorRepository.save(MassaTeste.autor("Autor " + marcador));
+        for (int i = 0; i < QUANTIDADE_LIVROS; i++) {
+            livroRepository.save(MassaTeste.livro(marcador + "-" + i, "Livro " + marcador + " " + i, autor));
+        }
+        entityManager.flush();
+    }
+
+    // estimativa abaixo de offset + página: o PageImpl faria da página cheia a última
+    @Test
+    void totalAproximadoBaixoNaoEncerraAPaginacaoTest(){
+        var specs = LivroSpecs.tituloLike(marcador);
+
+        Page<?> pagina = livroRepository.pesquisarResumoComTotalAproximado(specs, PageRequest.of(1, 10), () -> 1);
+
+        assertEquals(10, pagina.getNumberOfElements());
+        assertTrue(pagina.hasNext());
+        assertFalse(pagina.isLast());
+        assertEquals(21, pagina.getTotalElements());
+    }
+
+    @Test
+    void ultimaPaginaNaoConsultaOTotalAproximadoTest(){
+        var specs = LivroSpecs.tituloLike(marcador);
+        AtomicInteger consultas = new AtomicInteger();
+
+        Page<?> cheia = livroRepository.pesquisarResumoComTotalAproximado(specs, PageRequest.of(2, 10),
+                () -> consultas.incrementAndGet() * 1_000L);
+        Page<?> parcial = livroRepository.pesquisarResumoComTotalAproximado(specs, PageRequest.of(4, 7),
+                () -> consultas.incrementAndGet() * 1_000L);
+
+        assertEquals(0, consultas.get());
+        assertFalse(cheia.hasNext());
+        assertEquals(QUANTIDADE_LIVROS, cheia.getTotalElements());
+        assertFalse(parcial.hasNext());
+        assertEquals(QUANTIDADE_LIVROS, parcial.getTotalElements());
+    }
+
+    @Test
+    void paginaDepoisDoFimTest(){
+        Page<?> pagina = livroRepository.pesquisarResumoComTotalAproximado(
+                LivroSpecs.tituloLike(marcador), PageRequest.of(5, 10), () -> 1_000);
+
+        assertEquals(0, pagina.getNumberOfElements());
+        assertFalse(pagina.hasNext());
+    }
+
+    @Test
+    void estrategiaAplicadaEstimadaTest(){
+        PesquisaLivros primeira = pesquisar(0, EstrategiaContagem.ESTIMADA);
+        PesquisaLivros ultima = pesquisar(2, EstrategiaContagem.ESTIMADA);
+
+        assertEquals(EstrategiaContagem.ESTIMADA, primeira.contagem());
+        assertTrue(primeira.resultado().hasNext());
+        // a última página dá o total exato, sem EXPLAIN
+        assertEquals(EstrategiaContagem.EXATA, ultima.contagem());
+        assertEquals(QUANTIDADE_LIVROS, ((Page<?>) ultima.resultado()).getTotalElements());
+    }
+
+    @Test
+    void estrategiaAplicadaCacheTest(){
+        PesquisaLivros primeira = pesquisar(0, EstrategiaContagem.CACHE);
+        PesquisaLivros segunda = pesquisar(1, EstrategiaContagem.CACHE);
+
+        // o primeiro acesso ao filtro faz o count(*)
+        assertEquals(EstrategiaContagem.EXATA, primeira.contagem());
+        assertEquals(EstrategiaContagem.CACHE, segunda.contagem());
+        assertEquals(QUANTIDADE_LIVROS, ((Page<?>) segunda.resultado()).getTotalElements());
+    }
+
+    @Test
+    void estrategiaAplicadaExataENenhumaTest(){
+        assertEquals(EstrategiaContagem.EXATA, pesquisar(0, EstrategiaContagem.EXATA).contagem());
+        assertEquals(EstrategiaContagem.EXATA, pesquisar(0, null).contagem());
+        assertEquals(EstrategiaContagem.NENHUMA, pesquisar(0, EstrategiaContagem.NENHUMA).contagem());
+    }
+
+    private PesquisaLivros pesquisar(int pagina, EstrategiaContagem contagem){
+        return livroService.pesquisa(new FiltroPesquisaLivro(null, marcador, null, null, null), pagina, 10, contagem, null);
+    }
+}
@@ -0,0 +1,241 @@
+package br.com.judev.libraryapi.service;
+
+import br.com.judev.libraryapi.MassaTeste;
+import br.com.judev.libraryapi.controller.dto.AlteracoesLivrosDTO;
+import br.com.judev.libraryapi.controller.dto.ResultadoPesquisaLivroDTO;
+import br.com.judev.libraryapi.exceptions.CursorExpiradoException;
+import br.com.judev.libraryapi.model.Autor;
+import br.com.judev.libraryapi.model.Livro;
+import br.com.judev.libraryapi.repository.AutorRepository;
+import br.com.judev.libraryapi.repository.LivroRemocaoRepository;
+import br.com.judev.libraryapi.repository.LivroRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sincronização incremental (GET /api/v1/livros/alteracoes).
+ *
+ * As datas de alteração e remoção são gravadas à mão em uma janela de alguns segundos, sorteada
+ * um mês atrás, para o teste não depender do relógio nem das outras linhas do banco: as páginas
+ * começam na janela e só os ids cadastrados aqui são conferidos.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@Transactional
+class SincronizacaoLivroServiceTest {
+
+    // libraryapi.alteracoes.margem padrão
+    private static final Duration MARGEM = Duration.ofMinutes(1);
+
+    @Autowired
+    SincronizacaoLivroService sincronizacaoService;
+
+    @Autowired
+    LivroService livroService;
+
+    @Autowired
+    AutorService autorService;
+
+    @Autowired
+    LivroRepository livroRepository;
+
+    @Autowired
+    AutorRepository autorRepository;
+
+    @Autowired
+    LivroRemocaoRepository remocaoRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    String marcador;
+    Autor autor;
+    LocalDateTime janela;
+
+    @BeforeEach
+    void cadastrarAutor(){
+        marcador = MassaTeste.marcador("SYNC");
+        autor = autorRepository.save(MassaTeste.autor("Autor " + marcador));
+        janela = LocalDateTime.now().minusDays(30).truncatedTo(ChronoUnit.SECONDS)
+                .minusSeconds(ThreadLocalRandom.current().nextInt(86_400));
+    }
+
+    @AfterEach
+    void limparAutenticacao(){
+        SecurityContextHolder.clearContext();
+    }
+
+    // tamanho 2: o cursor atravessa as duas listas a cada página, inclusive no empate de data
+    @Test
+    void paginacaoIntercalaAlteradosERemovidosTest(){
+        Livro primeiro = livro(0, janela.plusSeconds(1));
+        UUID removido1 = remocao(janela.plusSeconds(2));
+        Livro segundo = livro(1, janela.plusSeconds(3));
+        UUID removido2 = remocao(janela.plusSeconds(4));
+        Livro terceiro = livro(2, janela.plusSeconds(5));
+        UUID removido3 = remocao(janela.plusSeconds(5));
+
+        List<UUID> alterados = new ArrayList<>();
+        List<UUID> removidos = new ArrayList<>();
+        int paginas = sincronizar(janela, 2, Set.of(primeiro.getId(), segundo.getId(), terceiro.getId()),
+                Set.of(removido1, removido2, removido3), alterados, removidos);
+
+        assertEquals(List.of(primeiro.getId(), segundo.getId(), terceiro.getId()), alterados);
+        assertEquals(List.of(removido1, removido2, removido3), removidos);
+        assertTrue(paginas >= 3, "6 marcas em páginas de 2: " + paginas + " páginas");
+    }
+
+    @Test
+    void desdeExclusivoTest(){
+        livro(0, janela);
+        Livro depois = livro(1, janela.plusSeconds(1));
+
+        AlteracoesLivrosDTO pagina = sincronizacaoService.alteracoes(janela, null, 10);
+
+        assertEquals(depois.getId(), pagina.alterados().getFirst().id());
+    }
+
+    // alterado dentro da margem: fica para a próxima sincronização, que começa em sincronizadoAte
+    @Test
+    void sincronizadoAteFicaAMargemAtrasDoRelogioTest(){
+        LocalDateTime agora = LocalDateTime.now();
+        Livro foraDaMargem = livro(0, agora.minus(MARGEM).minusSeconds(30));
+        Livro dentroDaMargem = livro(1, agora.minus(MARGEM).plusSeconds(30));
+
+        LocalDateTime antes = LocalDateTime.now();
+        AlteracoesLivrosDTO pagina = sincronizacaoService.alteracoes(agora.minus(MARGEM).minusMinutes(1), null, 10_000);
+        LocalDateTime depois = LocalDateTime.now();
+
+        assertFalse(pagina.sincronizadoAte().isBefore(antes.minus(MARGEM)));
+        assertFalse(pagina.sincronizadoAte().isAfter(depois.minus(MARGEM)));
+
+        Set<UUID> ids = new HashSet<>(pagina.alterados().stream().map(ResultadoPesquisaLivroDTO::id).toList());
+        assertTrue(ids.contains(foraDaMargem.getId()));
+        assertFalse(ids.contains(dentroDaMargem.getId()));
+    }
+
+    @Test
+    void desdeAlemDaRetencaoTest() throws Exception {
+        LocalDateTime muitoAntigo = LocalDateTime.now().minusDays(91);
+
+        assertThrows(CursorExpiradoException.class, () -> sincronizacaoService.alteracoes(muitoAntigo, null, 10));
+
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                "operador", null, AuthorityUtils.createAuthorityList("ROLE_OPERADOR")));
+        mockMvc.perform(get("/api/v1/livros/alteracoes").param("desde", muitoAntigo.toString()))
+                .andExpect(status().isGone());
+    }
+
+    // o tombstone é gravado com a hora da remoção; aqui ele é movido para a janela do teste
+    @Test
+    void livroRemovidoApareceEmRemovidosTest(){
+        Livro livro = livro(0, janela.plusSeconds(1));
+
+        livroService.deletar(livro);
+        entityManager.flush();
+        jdbcTemplate.update("update livro_remocao set data_remocao = ? where id = ?", janela.plusSeconds(2), livro.getId());
+
+        AlteracoesLivrosDTO pagina = sincronizacaoService.alteracoes(janela, null, 10);
+
+        assertEquals(List.of(livro.getId()), pagina.removidos());
+        assertTrue(pagina.alterados().stream().noneMatch(resumo -> resumo.id().equals(livro.getId())));
+    }
+
+    // o resumo do livro traz o autor: renomear o autor tem que trazer os livros dele de novo
+    @Test
+    void alteracaoDoAutorMarcaOsLivrosTest(){
+        Livro livro = livro(0, janela);
+        Long versao = versao(livro);
+
+        autorService.atualizar(autor.getId(), null, MassaTeste.autor("Autor renomeado " + marcador));
+
+        assertTrue(dataAtualizacao(livro).isAfter(janela.plusDays(1)));
+        // o If-Match do PUT do livro continua valendo
+        assertEquals(versao, versao(livro));
+    }
+
+    @Test
+    void alteracaoDoAutorSemMudarOResumoNaoMarcaOsLivrosTest(){
+        Livro livro = livro(0, janela);
+
+        autorService.atualizar(autor.getId(), null, MassaTeste.autor(autor.getNome()));
+
+        assertEquals(janela, dataAtualizacao(livro));
+    }
+
+    /*
+     * Percorre as páginas a partir de desde, guardando na ordem só os ids esperados, até ver
+     * todos (o resto do banco pode ter alterações mais recentes). Devolve o número de páginas.
+     */
+    private int sincronizar(LocalDateTime desde, int tamanho, Set<UUID> alteradosEsperados, Set<UUID> removidosEsperados,
+                            List<UUID> alterados, List<UUID> removidos){
+        AlteracoesLivrosDTO pagina = sincronizacaoService.alteracoes(desde, null, tamanho);
+        int paginas = 1;
+        while (true) {
+            pagina.alterados().stream().map(ResultadoPesquisaLivroDTO::id).filter(alteradosEsperados::contains).forEach(alterados::add);
+            pagina.removidos().stream().filter(removidosEsperados::contains).forEach(removidos::add);
+
+            if (pagina.proximo() == null || alterados.size() + removidos.size() >= alteradosEsperados.size() + removidosEsperados.size()) {
+                return paginas;
+            }
+            pagina = sincronizacaoService.alteracoes(null, pagina.proximo(), tamanho);
+            paginas++;
+        }
+    }
+
+    // data_atualizacao vem do auditing (hora atual); o update direto põe o livro na janela do teste
+    private Livro livro(int indice, LocalDateTime dataAtualizacao){
+        Livro livro = livroRepository.save(MassaTeste.livro(marcador + "-" + indice, "Livro " + marcador + " " + indice, autor));
+        entityManager.flush();
+        jdbcTemplate.update("update livro set data_atualizacao = ? where id = ?", dataAtualizacao, livro.getId());
+        return livro;
+    }
+
+    private UUID remocao(LocalDateTime data){
+        UUID id = UUID.randomUUID();
+        remocaoRepository.registrar(id, data);
+        return id;
+    }
+
+    private LocalDateTime dataAtualizacao(Livro livro){
+        return jdbcTemplate.queryForObject("select data_atualizacao from livro where id = ?", LocalDateTime.class, livro.getId());
+    }
+
+    private Long versao(Livro livro){
+        return jdbcTemplate.queryForObject("select versao from livro where id = ?", Long.class, livro.getId());
+    }
+}
@@ -0,0 +1,169 @@
+package br.com.judev.libraryapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Várias threads pedem a mesma chave ao mesmo tempo: a carga (a "consulta") roda uma vez só
+ * e todas recebem o mesmo resultado.
+ *
+ * A carga fica presa no latch "liberar" até todas as chamadas estarem esperando dentro do executar;
+ * só então o teste a libera, então nenhuma chamada chega depois de a carga terminar.
+ */
+class SingleFlightTest {
+
+    private static final int THREADS = 8;
+    private static final Duration ESPERA = Duration.ofSeconds(10);
+
+    @Test
+    void umaCargaPorChaveEmAndamentoTest() throws Exception {
+        SingleFlight<String, Object> singleFlight = new SingleFlight<>();
+        AtomicInteger cargas = new AtomicInteger();
+        Object resultado = new Object();
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        List<Object> recebidos = executarConcorrente(liberar, () -> singleFlight.executar("livro-1", () -> {
+            cargas.incrementAndGet();
+            aguardar(liberar);
+            return resultado;
+        }));
+
+        assertEquals(1, cargas.get());
+        assertEquals(THREADS, recebidos.size());
+        recebidos.forEach(recebido -> assertSame(resultado, recebido));
+    }
+
+    @Test
+    void naoGuardaResultadoDepoisDaCargaTest() {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger cargas = new AtomicInteger();
+
+        singleFlight.executar("livro-1", cargas::incrementAndGet);
+        singleFlight.executar("livro-1", cargas::incrementAndGet);
+
+        assertEquals(2, cargas.get());
+    }
+
+    @Test
+    void chavesDiferentesCarregamSeparadoTest() throws Exception {
+        SingleFlight<Integer, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger cargas = new AtomicInteger();
+        AtomicInteger sequencia = new AtomicInteger();
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        executarConcorrente(liberar, () -> {
+            int chave = sequencia.getAndIncrement() % 2;
+            return singleFlight.executar(chave, () -> {
+                cargas.incrementAndGet();
+                aguardar(liberar);
+                return chave;
+            });
+        });
+
+        assertEquals(2, cargas.get());
+    }
+
+    @Test
+    void excecaoDaCargaChegaParaTodosTest() throws Exception {
+        SingleFlight<String, Object> singleFlight = new SingleFlight<>();
+        AtomicInteger cargas = new AtomicInteger();
+        AtomicInteger falhas = new AtomicInteger();
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        executarConcorrente(liberar, () -> {
+            try {
+                return singleFlight.executar("livro-1", () -> {
+                    cargas.incrementAndGet();
+                    aguardar(liberar);
+                    throw new IllegalStateException("banco fora do ar");
+                });
+            } catch (IllegalStateException e) {
+                falhas.incrementAndGet();
+                return null;
+            }
+        });
+
+        assertEquals(1, cargas.get());
+        assertEquals(THREADS, falhas.get());
+        // a falha não fica guardada: a próxima chamada tenta de novo
+        assertThrows(IllegalStateException.class, () -> singleFlight.executar("livro-1", () -> {
+            throw new IllegalStateException("de novo");
+        }));
+    }
+
+    /*
+     * Dispara THREADS chamadas juntas e só abre "liberar" quando todas estão paradas: a que carrega
+     * no próprio latch, as outras esperando o resultado dela (join do SingleFlight, lock do Caffeine).
+     * Depois de entrar, o único ponto em que uma chamada para é dentro da carga, então thread parada
+     * é chamada que já chegou ao executar; uma ainda a caminho continua RUNNABLE.
+     */
+    static <T> List<T> executarConcorrente(CountDownLatch liberar, Supplier<T> chamada) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Thread> chamadoras = new CopyOnWriteArrayList<>();
+            CountDownLatch entraram = new CountDownLatch(THREADS);
+            List<Future<T>> futuros = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futuros.add(executor.submit(() -> {
+                    chamadoras.add(Thread.currentThread());
+                    entraram.countDown();
+                    return chamada.get();
+                }));
+            }
+            assertTrue(entraram.await(ESPERA.toMillis(), TimeUnit.MILLISECONDS), "as chamadas não começaram");
+            aguardarParadas(chamadoras);
+            liberar.countDown();
+
+            List<T> resultados = new ArrayList<>();
+            for (Future<T> futuro : futuros) {
+                resultados.add(futuro.get(ESPERA.toMillis(), TimeUnit.MILLISECONDS));
+            }
+            return resultados;
+        } finally {
+            liberar.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    static void aguardar(CountDownLatch liberar) {
+        try {
+            if (!liberar.await(ESPERA.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new AssertionError("a carga não foi liberada");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void aguardarParadas(List<Thread> chamadoras) {
+        long limite = System.nanoTime() + ESPERA.toNanos();
+        while (!chamadoras.stream().allMatch(SingleFlightTest::parada)) {
+            if (System.nanoTime() - limite > 0) {
+                fail("chamadas ainda executando: " + chamadoras.stream().map(Thread::getState).toList());
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private static boolean parada(Thread thread) {
+        Thread.State estado = thread.getState();
+        return estado == Thread.State.WAITING || estado == Thread.State.TIMED_WAITING || estado == Thread.State.BLOCKED;
+    }
+}